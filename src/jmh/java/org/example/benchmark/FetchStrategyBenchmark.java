@@ -0,0 +1,80 @@
+package org.example.benchmark;
+
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.example.persistence.IdAllocator;
+import org.example.persistence.ReportRepository;
+import org.example.persistence.WarningRepository;
+import org.example.persistence.WarningTypeDictionary;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the LEFT JOIN and two-phase strategies of ReportRepository.getAllOfUser
+ * for a user whose reports have few or very many warnings each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FetchStrategyBenchmark {
+    private static final int REPORTS_PER_USER = 10;
+
+    @Param({"join", "two-phase"})
+    public String fetchStrategy;
+
+    @Param({"10", "10000"})
+    public int warningsPerReport;
+
+    private EmbeddedDatabase database;
+    private ReportRepository reportRepository;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO Users (username, password, name) VALUES (?, ?, ?)", "bench", "pass", "Bench User");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM Users WHERE username = ?", Long.class, "bench");
+
+        IdAllocator idAllocator = new IdAllocator(database, 10_000);
+        WarningTypeDictionary typeDictionary = new WarningTypeDictionary(database, 1000);
+        typeDictionary.registerAll(List.of("Lane departure"));
+        reportRepository = new ReportRepository(database, idAllocator, typeDictionary);
+        WarningRepository warningRepository = new WarningRepository(database, idAllocator, typeDictionary);
+
+        long now = System.currentTimeMillis();
+        for (int r = 0; r < REPORTS_PER_USER; r++) {
+            Report report = new Report(userId, 45.0, 25.0, 46.0, 26.0, now + r);
+            reportRepository.add(report);
+            List<Warning> warnings = new ArrayList<>(warningsPerReport);
+            for (int i = 0; i < warningsPerReport; i++) {
+                warnings.add(new Warning(report.getId(), "Lane departure", 45.0 + i * 1e-5, 25.0 + i * 1e-5, now + i));
+            }
+            warningRepository.addAll(warnings);
+        }
+
+        reportRepository.setFetchStrategy(fetchStrategy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Report> getAllOfUser() {
+        return reportRepository.getAllOfUser(userId);
+    }
+}
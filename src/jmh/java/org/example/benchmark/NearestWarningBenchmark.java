@@ -0,0 +1,112 @@
+package org.example.benchmark;
+
+import org.example.business.NearestWarningIndex;
+import org.example.domain.NearbyWarning;
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.example.persistence.IdAllocator;
+import org.example.persistence.ReportRepository;
+import org.example.persistence.WarningRepository;
+import org.example.persistence.WarningTypeDictionary;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding the 10 warnings nearest to a point with NearestWarningIndex against the equivalent SQL query,
+ * which has to compute the distance of every row since no index can serve ORDER BY distance.
+ * Both rank by squared distance; the SQL query approximates it on a plane scaled by the cosine of the latitude.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NearestWarningBenchmark {
+    private static final int K = 10;
+    private static final int WARNINGS_PER_REPORT = 1000;
+    private static final int QUERY_POINTS = 1024;
+    private static final String NEAREST_SQL = "SELECT id, type_code, lat, lng, created_at FROM warnings\n" +
+            "ORDER BY (lat - ?) * (lat - ?) + (lng - ?) * (lng - ?) * ?\n" +
+            "OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+
+    @Param({"10000", "200000"})
+    public int warnings;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private NearestWarningIndex index;
+    private final double[][] queryPoints = new double[QUERY_POINTS][];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO Users (username, password, name) VALUES (?, ?, ?)", "bench", "pass", "Bench User");
+        long userId = jdbcTemplate.queryForObject("SELECT id FROM Users WHERE username = ?", Long.class, "bench");
+
+        IdAllocator idAllocator = new IdAllocator(database, 10_000);
+        WarningTypeDictionary typeDictionary = new WarningTypeDictionary(database, 1000);
+        typeDictionary.registerAll(List.of("Lane departure"));
+        ReportRepository reportRepository = new ReportRepository(database, idAllocator, typeDictionary);
+        WarningRepository warningRepository = new WarningRepository(database, idAllocator, typeDictionary);
+
+        // Warnings spread over a region about the size of Romania
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        for (int written = 0; written < warnings; written += WARNINGS_PER_REPORT) {
+            Report report = new Report(userId, 44.0, 22.0, 48.0, 29.0, now);
+            reportRepository.add(report);
+            List<Warning> batch = new ArrayList<>(WARNINGS_PER_REPORT);
+            for (int i = 0; i < WARNINGS_PER_REPORT; i++) {
+                batch.add(new Warning(report.getId(), "Lane departure",
+                        44.0 + 4.0 * random.nextDouble(), 22.0 + 7.0 * random.nextDouble(), now + i));
+            }
+            warningRepository.addAll(batch);
+        }
+        for (int i = 0; i < QUERY_POINTS; i++) {
+            queryPoints[i] = new double[]{44.0 + 4.0 * random.nextDouble(), 22.0 + 7.0 * random.nextDouble()};
+        }
+
+        index = new NearestWarningIndex(warningRepository);
+        index.startLoading();
+        while (!index.isLoaded()) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        index.shutdown();
+        database.shutdown();
+    }
+
+    private double[] nextQueryPoint() {
+        return queryPoints[next++ & (QUERY_POINTS - 1)];
+    }
+
+    @Benchmark
+    public List<NearbyWarning> index() {
+        double[] point = nextQueryPoint();
+        return index.nearest(point[0], point[1], K);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> sql() {
+        double[] point = nextQueryPoint();
+        double cos = Math.cos(Math.toRadians(point[0]));
+        return jdbcTemplate.queryForList(NEAREST_SQL, point[0], point[0], point[1], point[1], cos * cos, K);
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.benchmark;
+
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.example.persistence.IdAllocator;
+import org.example.persistence.ReportRepository;
+import org.example.persistence.WarningRepository;
+import org.example.persistence.WarningTypeDictionary;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares persisting a report with one insert per warning against a single batched insert.
+ * Besides the latency per report reported by JMH, the number of database round trips
+ * per report is printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WarningInsertBenchmark {
+
+    @Param({"20", "2000"})
+    public int warningsPerReport;
+
+    private EmbeddedDatabase database;
+    private RoundTripCounter roundTripCounter;
+    private ReportRepository reportRepository;
+    private WarningRepository warningRepository;
+    private long userId;
+    private long reportsWritten;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO Users (username, password, name) VALUES (?, ?, ?)", "bench", "pass", "Bench User");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM Users WHERE username = ?", Long.class, "bench");
+
+        roundTripCounter = new RoundTripCounter();
+        DataSource countingDataSource = roundTripCounter.wrap(database);
+        IdAllocator idAllocator = new IdAllocator(database, 10_000);
+        WarningTypeDictionary typeDictionary = new WarningTypeDictionary(database, 1000);
+        typeDictionary.registerAll(List.of("Lane departure"));
+        reportRepository = new ReportRepository(countingDataSource, idAllocator, typeDictionary);
+        warningRepository = new WarningRepository(countingDataSource, idAllocator, typeDictionary);
+        reportsWritten = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long roundTrips = roundTripCounter.reset();
+        System.out.printf("%n%d warnings/report: %.1f round trips per report%n",
+                warningsPerReport, reportsWritten == 0 ? 0.0 : (double) roundTrips / reportsWritten);
+        database.shutdown();
+    }
+
+    @Benchmark
+    public Report insertOneWarningPerStatement() {
+        Report report = newReport();
+        reportRepository.add(report);
+        for (Warning warning : report.getWarnings()) {
+            warning.setReport_id(report.getId());
+            warningRepository.add(warning);
+        }
+        reportsWritten++;
+        return report;
+    }
+
+    @Benchmark
+    public Report insertWarningsInBatch() {
+        Report report = newReport();
+        reportRepository.add(report);
+        for (Warning warning : report.getWarnings()) {
+            warning.setReport_id(report.getId());
+        }
+        warningRepository.addAll(report.getWarnings());
+        reportsWritten++;
+        return report;
+    }
+
+    private Report newReport() {
+        long now = System.currentTimeMillis();
+        Report report = new Report(userId, 45.0, 25.0, 46.0, 26.0, now);
+        List<Warning> warnings = new ArrayList<>(warningsPerReport);
+        for (int i = 0; i < warningsPerReport; i++) {
+            warnings.add(new Warning(null, "Lane departure", 45.0 + i * 1e-4, 25.0 + i * 1e-4, now + i));
+        }
+        report.setWarnings(warnings);
+        return report;
+    }
+}
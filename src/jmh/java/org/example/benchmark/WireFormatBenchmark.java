@@ -0,0 +1,68 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serializing and parsing a report with its warnings as JSON, CBOR and Smile.
+ * Besides the time per operation reported by JMH, the encoded size of the report
+ * is printed at the start of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"20", "2000"})
+    public int warningsPerReport;
+
+    private ObjectMapper mapper;
+    private Report report;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> new ObjectMapper();
+        };
+
+        long now = System.currentTimeMillis();
+        report = new Report(1L, 45.0, 25.0, 46.0, 26.0, now);
+        List<Warning> warnings = new ArrayList<>(warningsPerReport);
+        for (int i = 0; i < warningsPerReport; i++) {
+            Warning warning = new Warning(1L, "Lane departure", 45.0 + i * 1e-4, 25.0 + i * 1e-4, now + i * 40L);
+            warning.setId((long) i + 1);
+            warnings.add(warning);
+        }
+        report.setWarnings(warnings);
+        report.setId(1L);
+
+        encoded = mapper.writeValueAsBytes(report);
+        System.out.printf("%n%s, %d warnings/report: %d bytes (%.1f per warning)%n",
+                format, warningsPerReport, encoded.length, (double) encoded.length / warningsPerReport);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(report);
+    }
+
+    @Benchmark
+    public Report parse() throws IOException {
+        return mapper.readValue(encoded, Report.class);
+    }
+}
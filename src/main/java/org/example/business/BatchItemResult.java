@@ -0,0 +1,35 @@
+package org.example.business;
+
+/**
+ * Outcome of one item of a batch request, reported back to the client in request order.
+ */
+public class BatchItemResult {
+    public static final String CREATED = "created";
+    public static final String REJECTED = "rejected";
+
+    private final int index; // Position of the item in the request
+    private final String status; // CREATED or REJECTED
+    private final Long id; // ID of the created entity, null if rejected
+    private final String error; // Reason for the rejection, null if created
+
+    private BatchItemResult(int index, String status, Long id, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, CREATED, id, null);
+    }
+
+    public static BatchItemResult rejected(int index, String error) {
+        return new BatchItemResult(index, REJECTED, null, error);
+    }
+
+    // Getters
+    public int getIndex() { return index; }
+    public String getStatus() { return status; }
+    public Long getId() { return id; }
+    public String getError() { return error; }
+}
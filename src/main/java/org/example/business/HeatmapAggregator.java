@@ -0,0 +1,127 @@
+package org.example.business;
+import jakarta.annotation.PreDestroy;
+import org.example.domain.Warning;
+import org.example.persistence.IWarningTileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the warning counts per map tile used by the heatmap, enabled unless
+ * {@code reports.heatmap.enabled=false}. Warnings of committed reports are counted into every zoom level
+ * between reports.heatmap.min-zoom and max-zoom in memory, and the accumulated counts are added to the
+ * warning_tiles table by a background thread at a fixed interval, in one short transaction.
+ * Report transactions therefore never wait on the heavily shared rows of low zoom levels.
+ * Counts not yet written are lost if the process dies; they are written on a normal shutdown.
+ */
+@Component
+@ConditionalOnProperty(name = "reports.heatmap.enabled", havingValue = "true", matchIfMissing = true)
+public class HeatmapAggregator {
+    private static final Logger log = LoggerFactory.getLogger(HeatmapAggregator.class);
+    private static final long SHUTDOWN_SECONDS = 30;
+
+    private final IWarningTileRepository tileRepository;
+    private final TransactionOperations transactionOperations;
+    private final int minZoom;
+    private final int maxZoom;
+    private final ScheduledExecutorService flusher;
+    private TileCounts pending; // Guarded by this
+
+    /**
+     * Creates the aggregator and schedules its flushes.
+     *
+     * @param tileRepository        repository the counts are written to
+     * @param transactionOperations transaction wrapping each flush
+     * @param minZoom               lowest zoom level counted
+     * @param maxZoom               highest zoom level counted
+     * @param flushIntervalMillis   time between two flushes
+     */
+    public HeatmapAggregator(IWarningTileRepository tileRepository,
+                             TransactionOperations transactionOperations,
+                             @Value("${reports.heatmap.min-zoom:3}") int minZoom,
+                             @Value("${reports.heatmap.max-zoom:15}") int maxZoom,
+                             @Value("${reports.heatmap.flush-interval-ms:2000}") long flushIntervalMillis) {
+        this.tileRepository = tileRepository;
+        this.transactionOperations = transactionOperations;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.pending = newCounts();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heatmap-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates empty counts for the zoom levels of this aggregator, to be filled by a caller and passed to record.
+     */
+    TileCounts newCounts() {
+        return new TileCounts(minZoom, maxZoom);
+    }
+
+    /**
+     * Counts committed warnings into the tiles; they are written with the next flush.
+     *
+     * @param warnings the warnings to count
+     */
+    public void record(Collection<Warning> warnings) {
+        TileCounts counts = newCounts();
+        for (Warning warning : warnings) {
+            counts.add(warning.getLat(), warning.getLng());
+        }
+        record(counts);
+    }
+
+    synchronized void record(TileCounts counts) {
+        pending.addAll(counts);
+    }
+
+    /**
+     * Adds the counts accumulated since the last flush to the warning_tiles table.
+     * If writing fails, the counts are kept and retried with the next flush.
+     */
+    public void flush() {
+        TileCounts batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = newCounts();
+        }
+
+        try {
+            transactionOperations.executeWithoutResult(status -> tileRepository.addCounts(batch.toTiles()));
+        } catch (RuntimeException e) {
+            log.error("Failed to write heatmap tile counts, retrying with the next flush", e);
+            record(batch);
+        }
+    }
+
+    /**
+     * Stops the scheduled flushes and writes the remaining counts.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
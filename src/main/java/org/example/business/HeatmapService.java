@@ -0,0 +1,73 @@
+package org.example.business;
+import org.example.business.exception.DataAccessException;
+import org.example.business.exception.InvalidCredentialsException;
+import org.example.business.exception.ValidationException;
+import org.example.domain.HeatmapTile;
+import org.example.persistence.IWarningTileRepository;
+import org.example.persistence.RepositoryException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.List;
+
+/**
+ * Service class serving the warning heatmap from the counts maintained by HeatmapAggregator.
+ * A request reads only the stored tiles inside the viewport, independent of the number of warnings.
+ */
+@Service
+public class HeatmapService {
+    @Autowired
+    private IWarningTileRepository tileRepository;
+
+    @Value("${reports.heatmap.min-zoom:3}")
+    private int minZoom = 3;
+    @Value("${reports.heatmap.max-zoom:15}")
+    private int maxZoom = 15;
+    @Value("${reports.heatmap.max-tiles:4096}")
+    private int maxTiles = 4096;
+
+    /**
+     * Retrieves the warning counts of the tiles of a zoom level that intersect a viewport.
+     *
+     * @param user_id The ID of the user requesting the heatmap.
+     * @param zoom    The zoom level of the tiles.
+     * @param minLat  The southern edge of the viewport.
+     * @param minLng  The western edge of the viewport.
+     * @param maxLat  The northern edge of the viewport.
+     * @param maxLng  The eastern edge of the viewport.
+     * @return The tiles inside the viewport that contain at least one warning.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ValidationException If the zoom level is not aggregated, the viewport is invalid
+     *                             or it spans more than reports.heatmap.max-tiles tiles.
+     * @throws DataAccessException If repository access fails.
+     */
+    public List<HeatmapTile> getHeatmap(Long user_id, int zoom, double minLat, double minLng, double maxLat, double maxLng) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+        if (zoom < minZoom || zoom > maxZoom) {
+            throw new ValidationException("Zoom must be between " + minZoom + " and " + maxZoom + "!\n");
+        }
+        if (minLat < -90 || maxLat > 90 || minLng < -180 || maxLng > 180) {
+            throw new ValidationException("Bounding box must lie within latitudes -90..90 and longitudes -180..180!\n");
+        }
+        if (minLat > maxLat || minLng > maxLng) {
+            throw new ValidationException("Bounding box minimum must not exceed its maximum!\n");
+        }
+
+        // Rows grow southwards, so the northern edge gives the first row
+        int minX = WebMercator.tileX(minLng, zoom);
+        int maxX = WebMercator.tileX(maxLng, zoom);
+        int minY = WebMercator.tileY(maxLat, zoom);
+        int maxY = WebMercator.tileY(minLat, zoom);
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > maxTiles) {
+            throw new ValidationException("Viewport covers more than " + maxTiles + " tiles, use a lower zoom!\n");
+        }
+
+        try {
+            return tileRepository.getTiles(zoom, minX, maxX, minY, maxY);
+        } catch (RepositoryException exception) {
+            throw new DataAccessException("Error while fetching heatmap!", exception);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.business;
+import org.example.domain.HotspotCell;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warnings per cell of the hotspot grid, accumulated in memory before they are clustered or written.
+ */
+final class HotspotCells {
+    private static final class Sums {
+        private final int row;
+        private final int column;
+        private long count;
+        private double latSum;
+        private double lngSum;
+
+        private Sums(int row, int column) {
+            this.row = row;
+            this.column = column;
+        }
+    }
+
+    private final HotspotGrid grid;
+    private final Map<Long, Sums> cells = new HashMap<>();
+
+    HotspotCells(HotspotGrid grid) {
+        this.grid = grid;
+    }
+
+    void add(double lat, double lng) {
+        int row = grid.row(lat);
+        add(row, grid.column(row, lng), 1, lat, lng);
+    }
+
+    void add(HotspotCell cell) {
+        add(cell.getRow_index(), cell.getColumn_index(), cell.getWarning_count(), cell.getLat_sum(), cell.getLng_sum());
+    }
+
+    void addAll(HotspotCells other) {
+        for (Sums sums : other.cells.values()) {
+            add(sums.row, sums.column, sums.count, sums.latSum, sums.lngSum);
+        }
+    }
+
+    private void add(int row, int column, long count, double latSum, double lngSum) {
+        Sums sums = cells.computeIfAbsent(HotspotGrid.key(row, column), key -> new Sums(row, column));
+        sums.count += count;
+        sums.latSum += latSum;
+        sums.lngSum += lngSum;
+    }
+
+    boolean isEmpty() {
+        return cells.isEmpty();
+    }
+
+    List<HotspotCell> toCells() {
+        List<HotspotCell> result = new ArrayList<>(cells.size());
+        for (Sums sums : cells.values()) {
+            result.add(new HotspotCell(sums.row, sums.column, sums.count, sums.latSum, sums.lngSum));
+        }
+        return result;
+    }
+}
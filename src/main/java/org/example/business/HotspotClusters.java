@@ -0,0 +1,196 @@
+package org.example.business;
+import org.example.domain.Hotspot;
+import org.example.domain.HotspotCell;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental, grid-based DBSCAN over warning locations. The warnings of a cell count as core points when the
+ * cell and its eight adjacent cells hold at least minWarnings warnings; that 3 x 3 block covers about 1.4 times
+ * the area within eps of a warning, so its count estimates the neighbours DBSCAN would count. Such a cell is
+ * dense, and dense cells close enough to hold warnings within eps of each other belong to the same cluster,
+ * tracked with union-find.
+ * <p>
+ * Adding warnings only ever makes cells denser, so a cluster never splits: when a cell becomes dense it is
+ * joined with its dense neighbours, and nothing else changes. Each warning therefore costs constant time, no
+ * matter how many are stored. Unlike exact DBSCAN, warnings of cells that are not dense are left out, even next
+ * to a cluster. Not thread-safe.
+ */
+final class HotspotClusters {
+    private static final class Cell {
+        private final int row;
+        private final int column;
+        private long count;
+        private long blockCount; // Warnings of this cell and its eight adjacent cells
+        private double latSum;
+        private double lngSum;
+        private Cell parent = this;
+        private int rank;
+
+        private Cell(int row, int column) {
+            this.row = row;
+            this.column = column;
+        }
+    }
+
+    private static final class Cluster {
+        private long count;
+        private double latSum;
+        private double lngSum;
+        private double minLat = Double.POSITIVE_INFINITY;
+        private double minLng = Double.POSITIVE_INFINITY;
+        private double maxLat = Double.NEGATIVE_INFINITY;
+        private double maxLng = Double.NEGATIVE_INFINITY;
+    }
+
+    private final HotspotGrid grid;
+    private final long minWarnings;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final List<Cell> denseCells = new ArrayList<>();
+
+    HotspotClusters(HotspotGrid grid, long minWarnings) {
+        this.grid = grid;
+        this.minWarnings = minWarnings;
+    }
+
+    void addAll(HotspotCells delta) {
+        for (HotspotCell cell : delta.toCells()) {
+            add(cell);
+        }
+    }
+
+    void add(HotspotCell delta) {
+        int row = delta.getRow_index();
+        int column = delta.getColumn_index();
+        long key = HotspotGrid.key(row, column);
+        long added = delta.getWarning_count();
+        Cell cell = cells.get(key);
+        long blockAdded = added;
+        if (cell == null) {
+            cell = new Cell(row, column);
+            cells.put(key, cell);
+            for (Cell adjacent : adjacentCells(cell)) {
+                blockAdded += adjacent.count;
+            }
+        }
+        cell.count += added;
+        cell.latSum += delta.getLat_sum();
+        cell.lngSum += delta.getLng_sum();
+
+        addToBlock(cell, blockAdded);
+        for (Cell adjacent : adjacentCells(cell)) {
+            addToBlock(adjacent, added);
+        }
+    }
+
+    private void addToBlock(Cell cell, long count) {
+        boolean wasDense = isDense(cell);
+        cell.blockCount += count;
+        if (!wasDense && isDense(cell)) {
+            denseCells.add(cell);
+            joinDenseNeighbours(cell);
+        }
+    }
+
+    private boolean isDense(Cell cell) {
+        return cell.blockCount >= minWarnings;
+    }
+
+    /**
+     * Returns the existing cells next to a cell, diagonals included.
+     */
+    private List<Cell> adjacentCells(Cell cell) {
+        return cellsAround(cell, 1);
+    }
+
+    /**
+     * Returns the existing cells up to distance rows and columns away from a cell, except the cell itself and, for a
+     * distance of 2, the four corners of that range. Columns of other rows are found through the longitude of the
+     * cell's center, as their width differs slightly.
+     */
+    private List<Cell> cellsAround(Cell cell, int distance) {
+        List<Cell> found = new ArrayList<>();
+        double lng = grid.centerLng(cell.row, cell.column);
+        for (int dRow = -distance; dRow <= distance; dRow++) {
+            int row = cell.row + dRow;
+            int center = grid.column(row, lng);
+            for (int dColumn = -distance; dColumn <= distance; dColumn++) {
+                if (distance == 2 && Math.abs(dRow) == 2 && Math.abs(dColumn) == 2) {
+                    continue;
+                }
+                Cell other = cells.get(HotspotGrid.key(row, center + dColumn));
+                if (other != null && other != cell) {
+                    found.add(other);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Joins a cell with the dense cells up to two rows and columns away, except the four corners of that
+     * range, whose nearest points are already eps apart.
+     */
+    private void joinDenseNeighbours(Cell cell) {
+        for (Cell neighbour : cellsAround(cell, 2)) {
+            if (isDense(neighbour)) {
+                union(cell, neighbour);
+            }
+        }
+    }
+
+    private static Cell find(Cell cell) {
+        while (cell.parent != cell) {
+            cell.parent = cell.parent.parent;
+            cell = cell.parent;
+        }
+        return cell;
+    }
+
+    private static void union(Cell a, Cell b) {
+        Cell rootA = find(a);
+        Cell rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (rootA.rank < rootB.rank) {
+            rootA.parent = rootB;
+        } else {
+            rootB.parent = rootA;
+            if (rootA.rank == rootB.rank) {
+                rootA.rank++;
+            }
+        }
+    }
+
+    /**
+     * Returns the current clusters, largest first.
+     *
+     * @param limit maximum number of clusters to return
+     * @return the clusters with their centroid, bounding box and number of warnings
+     */
+    List<Hotspot> hotspots(int limit) {
+        Map<Cell, Cluster> clusters = new IdentityHashMap<>();
+        for (Cell cell : denseCells) {
+            Cluster cluster = clusters.computeIfAbsent(find(cell), root -> new Cluster());
+            cluster.count += cell.count;
+            cluster.latSum += cell.latSum;
+            cluster.lngSum += cell.lngSum;
+            cluster.minLat = Math.min(cluster.minLat, grid.minLat(cell.row));
+            cluster.maxLat = Math.max(cluster.maxLat, grid.maxLat(cell.row));
+            cluster.minLng = Math.min(cluster.minLng, grid.minLng(cell.row, cell.column));
+            cluster.maxLng = Math.max(cluster.maxLng, grid.maxLng(cell.row, cell.column));
+        }
+
+        return clusters.values().stream()
+                .sorted(Comparator.comparingLong((Cluster cluster) -> cluster.count).reversed())
+                .limit(limit)
+                .map(cluster -> new Hotspot(cluster.latSum / cluster.count, cluster.lngSum / cluster.count,
+                        cluster.minLat, cluster.minLng, cluster.maxLat, cluster.maxLng, cluster.count))
+                .toList();
+    }
+}
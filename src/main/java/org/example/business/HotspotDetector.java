@@ -0,0 +1,204 @@
+package org.example.business;
+import jakarta.annotation.PreDestroy;
+import org.example.business.exception.ServiceUnavailableException;
+import org.example.domain.Hotspot;
+import org.example.domain.Warning;
+import org.example.persistence.IHotspotCellRepository;
+import org.example.persistence.IWarningRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds hotspots, road stretches where many drivers' warnings concentrate, with an incremental grid-based
+ * DBSCAN (HotspotClusters) held in memory; enabled unless {@code reports.hotspots.enabled=false}.
+ * <p>
+ * Warnings of committed reports are clustered as they arrive, in constant time each. At a fixed interval a
+ * background thread takes a snapshot: it publishes the current hotspots to readers and adds the warnings
+ * counted since the last snapshot to the hotspot_cells table, in one short transaction. Once the application
+ * has started, the clusters are rebuilt from that table, which takes time proportional to the number of cells,
+ * not of warnings; only if it is empty are the cells computed once from the warnings table.
+ * Counts not yet written are lost if the process dies; they are written on a normal shutdown.
+ */
+@Component
+@ConditionalOnProperty(name = "reports.hotspots.enabled", havingValue = "true", matchIfMissing = true)
+public class HotspotDetector {
+    private static final Logger log = LoggerFactory.getLogger(HotspotDetector.class);
+    private static final long LOADING_RETRY_AFTER_SECONDS = 5;
+    private static final long RELOAD_DELAY_SECONDS = 30;
+    private static final long SHUTDOWN_SECONDS = 30;
+
+    private final IHotspotCellRepository cellRepository;
+    private final IWarningRepository warningRepository;
+    private final TransactionOperations transactionOperations;
+    private final HotspotGrid grid;
+    private final long snapshotIntervalMillis;
+    private final int maxResults;
+    private final ScheduledExecutorService snapshotter;
+    private final HotspotClusters clusters; // Guarded by this
+    private HotspotCells unwritten; // Guarded by this
+    private volatile List<Hotspot> hotspots = List.of();
+    private volatile boolean loaded;
+
+    /**
+     * Creates the detector; clusters are loaded and snapshots scheduled once the application is ready.
+     *
+     * @param cellRepository         repository the cells are loaded from and written to
+     * @param warningRepository      repository the cells are computed from if none are stored yet
+     * @param transactionOperations  transaction wrapping each write of the cells
+     * @param epsMeters              distance within which warnings count as neighbours
+     * @param minWarnings            warnings a cell and its adjacent cells need for the cell to be part of a hotspot
+     * @param snapshotIntervalMillis time between two snapshots
+     * @param maxResults             maximum number of hotspots published, largest first
+     */
+    public HotspotDetector(IHotspotCellRepository cellRepository,
+                           IWarningRepository warningRepository,
+                           TransactionOperations transactionOperations,
+                           @Value("${reports.hotspots.eps-meters:25}") double epsMeters,
+                           @Value("${reports.hotspots.min-warnings:20}") long minWarnings,
+                           @Value("${reports.hotspots.snapshot-interval-ms:10000}") long snapshotIntervalMillis,
+                           @Value("${reports.hotspots.max-results:100}") int maxResults) {
+        this.cellRepository = cellRepository;
+        this.warningRepository = warningRepository;
+        this.transactionOperations = transactionOperations;
+        this.grid = new HotspotGrid(epsMeters);
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        this.maxResults = maxResults;
+        this.clusters = new HotspotClusters(grid, minWarnings);
+        this.unwritten = newCells();
+
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hotspot-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts loading the stored cells in the background once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        snapshotter.execute(this::load);
+    }
+
+    /**
+     * Rebuilds the clusters from the stored cells, or from the warnings table if no cells are stored,
+     * then takes the first snapshot and schedules the following ones. A failed load is retried after
+     * RELOAD_DELAY_SECONDS. Warnings committed while the warnings table is read may be counted twice.
+     */
+    void load() {
+        HotspotCells stored = newCells();
+        try {
+            cellRepository.forEach(stored::add);
+            if (stored.isEmpty()) {
+                warningRepository.forEach(warning -> stored.add(warning.getLat(), warning.getLng()));
+                transactionOperations.executeWithoutResult(status -> cellRepository.addCells(stored.toCells()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to load hotspot cells, retrying in {} s", RELOAD_DELAY_SECONDS, e);
+            snapshotter.schedule(this::load, RELOAD_DELAY_SECONDS, TimeUnit.SECONDS);
+            return;
+        }
+
+        synchronized (this) {
+            clusters.addAll(stored);
+        }
+        loaded = true;
+        snapshot();
+        snapshotter.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates empty cells on the grid of this detector, to be filled by a caller and passed to record.
+     */
+    HotspotCells newCells() {
+        return new HotspotCells(grid);
+    }
+
+    /**
+     * Clusters committed warnings; they are published and written with the next snapshot.
+     *
+     * @param warnings the warnings to cluster
+     */
+    public void record(Collection<Warning> warnings) {
+        HotspotCells cells = newCells();
+        for (Warning warning : warnings) {
+            cells.add(warning.getLat(), warning.getLng());
+        }
+        record(cells);
+    }
+
+    synchronized void record(HotspotCells cells) {
+        clusters.addAll(cells);
+        unwritten.addAll(cells);
+    }
+
+    /**
+     * Publishes the current hotspots and adds the cells counted since the last snapshot to the hotspot_cells table.
+     * If writing fails, the cells are kept and retried with the next snapshot.
+     */
+    public void snapshot() {
+        HotspotCells batch;
+        synchronized (this) {
+            hotspots = clusters.hotspots(maxResults);
+            batch = unwritten;
+            unwritten = newCells();
+        }
+        if (!loaded || batch.isEmpty()) {
+            // Nothing is written before loading: an empty table is what makes load compute the cells from the warnings
+            synchronized (this) {
+                unwritten.addAll(batch);
+            }
+            return;
+        }
+
+        try {
+            transactionOperations.executeWithoutResult(status -> cellRepository.addCells(batch.toCells()));
+        } catch (RuntimeException e) {
+            log.error("Failed to write hotspot cells, retrying with the next snapshot", e);
+            synchronized (this) {
+                unwritten.addAll(batch);
+            }
+        }
+    }
+
+    /**
+     * Returns the hotspots of the last snapshot, largest first.
+     *
+     * @throws ServiceUnavailableException if the clusters are still being loaded
+     */
+    public List<Hotspot> getHotspots() {
+        if (!loaded) {
+            throw new ServiceUnavailableException("Hotspots are still being loaded!", LOADING_RETRY_AFTER_SECONDS);
+        }
+        return hotspots;
+    }
+
+    /**
+     * Stops the scheduled snapshots and writes the remaining cells.
+     */
+    @PreDestroy
+    public void shutdown() {
+        snapshotter.shutdown();
+        try {
+            if (!snapshotter.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                snapshotter.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            snapshotter.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.business;
+
+/**
+ * Geometry of the grid hotspots are clustered on. Cells are squares of side eps / sqrt(2), so any two
+ * warnings of one cell are at most eps apart. Rows have a fixed height in degrees of latitude; within a
+ * row, the width in degrees of longitude grows with the latitude, keeping cells roughly square in meters.
+ * Cells whose warnings may lie within eps of each other are at most two rows and two columns apart.
+ */
+final class HotspotGrid {
+    private static final double METERS_PER_DEGREE = 111_195.08;
+    // Keeps the rows at the poles, where longitude degrees shrink to nothing, one column wide
+    private static final double MIN_SCALE = 1e-9;
+
+    private final double cellDegrees;
+
+    /**
+     * @param epsMeters the distance within which warnings count as neighbours
+     */
+    HotspotGrid(double epsMeters) {
+        this.cellDegrees = epsMeters / Math.sqrt(2) / METERS_PER_DEGREE;
+    }
+
+    int row(double lat) {
+        return (int) Math.floor((Math.min(lat, 90) + 90) / cellDegrees);
+    }
+
+    int column(int row, double lng) {
+        return (int) Math.floor((lng + 180) * scale(row) / cellDegrees);
+    }
+
+    double minLat(int row) {
+        return row * cellDegrees - 90;
+    }
+
+    double maxLat(int row) {
+        return Math.min(minLat(row) + cellDegrees, 90);
+    }
+
+    double minLng(int row, int column) {
+        return Math.max(column * cellDegrees / scale(row) - 180, -180);
+    }
+
+    double maxLng(int row, int column) {
+        return Math.min((column + 1) * cellDegrees / scale(row) - 180, 180);
+    }
+
+    double centerLng(int row, int column) {
+        return (column + 0.5) * cellDegrees / scale(row) - 180;
+    }
+
+    static long key(int row, int column) {
+        return (long) row << 32 | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Cosine of the latitude of the middle of a row: the length of a degree of longitude there, relative to the equator.
+     */
+    private double scale(int row) {
+        return Math.max(Math.cos(Math.toRadians(minLat(row) + cellDegrees / 2)), MIN_SCALE);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.business;
+import org.example.business.exception.InvalidCredentialsException;
+import org.example.business.exception.ResourceNotFoundException;
+import org.example.business.exception.ServiceUnavailableException;
+import org.example.business.exception.ValidationException;
+import org.example.domain.Hotspot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.List;
+
+/**
+ * Service class serving the warning hotspots of all drivers, as last published by HotspotDetector.
+ * A request only copies the published list, independent of the number of warnings.
+ */
+@Service
+public class HotspotService {
+    // Only present when hotspot detection is enabled (reports.hotspots.enabled, on by default)
+    @Autowired(required = false)
+    private HotspotDetector hotspotDetector;
+
+    /**
+     * Retrieves the current hotspots, largest first.
+     *
+     * @param user_id The ID of the user requesting the hotspots.
+     * @param limit   The maximum number of hotspots to return, or null for all published ones.
+     * @return The hotspots with their centroid, bounding box and number of warnings.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ValidationException If the limit is not positive.
+     * @throws ResourceNotFoundException If hotspot detection is disabled.
+     * @throws ServiceUnavailableException If the hotspots are still being loaded.
+     */
+    public List<Hotspot> getHotspots(Long user_id, Integer limit) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+        if (limit != null && limit < 1) {
+            throw new ValidationException("Limit must be positive!\n");
+        }
+        if (hotspotDetector == null) {
+            throw new ResourceNotFoundException("Hotspot detection is disabled!");
+        }
+
+        List<Hotspot> hotspots = hotspotDetector.getHotspots();
+        return limit != null && limit < hotspots.size() ? hotspots.subList(0, limit) : hotspots;
+    }
+}
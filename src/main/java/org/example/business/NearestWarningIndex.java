@@ -0,0 +1,218 @@
+package org.example.business;
+import jakarta.annotation.PreDestroy;
+import org.example.business.exception.ServiceUnavailableException;
+import org.example.domain.NearbyWarning;
+import org.example.domain.Warning;
+import org.example.persistence.IWarningRepository;
+import org.example.persistence.RepositoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of the locations of all drivers' warnings, answering k-nearest-neighbour queries
+ * without touching the database; enabled unless {@code reports.nearest.enabled=false}.
+ * <p>
+ * The index is a KD-tree plus a tail of warnings added since it was built. Queries search the tree and
+ * scan the tail. Once the tail grows past a fraction of the tree, a background thread builds a new tree
+ * over both and swaps it in; queries keep using the previous tree and tail until then, so they never wait.
+ * The whole table is loaded by the same thread once the application has started; until that finishes,
+ * queries are answered with 503.
+ * <p>
+ * Warnings of committed reports are added by ReportsChangedListener. Warnings written
+ * by other instances of the application, or deleted ones, are only reflected after a restart.
+ */
+@Component
+@ConditionalOnProperty(name = "reports.nearest.enabled", havingValue = "true", matchIfMissing = true)
+public class NearestWarningIndex {
+    private static final Logger log = LoggerFactory.getLogger(NearestWarningIndex.class);
+    private static final long LOADING_RETRY_AFTER_SECONDS = 5;
+    private static final long RELOAD_DELAY_SECONDS = 30;
+    // The tree is rebuilt once the tail holds this many warnings, or 1/TAIL_FRACTION of the tree if more
+    private static final int MIN_REBUILD_SIZE = 4096;
+    private static final int TAIL_FRACTION = 32;
+
+    /**
+     * What queries search: a tree and the first tailSize points of a tail.
+     */
+    private record Snapshot(WarningKdTree tree, WarningPoints tail, int tailSize) {
+    }
+
+    private final IWarningRepository warningRepository;
+    private final ScheduledExecutorService maintainer;
+    // Equal texts share one String, as most warnings repeat a handful of texts
+    private final Map<String, String> texts = new ConcurrentHashMap<>();
+    private WarningPoints tail = new WarningPoints(MIN_REBUILD_SIZE); // Guarded by this
+    private boolean rebuilding; // Guarded by this
+    private volatile Snapshot snapshot = new Snapshot(WarningKdTree.EMPTY, tail, 0);
+    private volatile boolean loaded;
+
+    public NearestWarningIndex(IWarningRepository warningRepository) {
+        this.warningRepository = warningRepository;
+        this.maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nearest-warning-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts loading the warnings table in the background once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        maintainer.execute(this::load);
+    }
+
+    /**
+     * Builds the tree from every warning in the database. Warnings added while it runs stay in the tail;
+     * one that is also read from the table is then held twice, which queries ignore.
+     * A failed load is retried after RELOAD_DELAY_SECONDS.
+     */
+    void load() {
+        long start = System.nanoTime();
+        Loader loader = new Loader();
+        try {
+            warningRepository.forEach(loader);
+        } catch (RepositoryException e) {
+            log.error("Failed to load warnings into the nearest-warning index, retrying in {} s", RELOAD_DELAY_SECONDS, e);
+            maintainer.schedule(this::load, RELOAD_DELAY_SECONDS, TimeUnit.SECONDS);
+            return;
+        }
+
+        // An exactly sized copy, so the tree does not keep the spare capacity of the loader
+        WarningKdTree tree = WarningKdTree.build(loader.points.suffix(0, 0));
+        synchronized (this) {
+            snapshot = new Snapshot(tree, snapshot.tail(), snapshot.tailSize());
+            loaded = true;
+            rebuildIfNeeded();
+        }
+        log.info("Loaded {} warnings into the nearest-warning index in {} ms",
+                tree.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Adds committed warnings to the index; warnings without an ID are skipped.
+     *
+     * @param warnings the warnings to add
+     */
+    public void add(Collection<Warning> warnings) {
+        synchronized (this) {
+            for (Warning warning : warnings) {
+                if (warning.getId() != null) {
+                    tail = tail.add(warning.getId(), warning.getLat(), warning.getLng(), warning.getCreated_at(),
+                            canonical(warning.getText()));
+                }
+            }
+            snapshot = new Snapshot(snapshot.tree(), tail, tail.size());
+            rebuildIfNeeded();
+        }
+    }
+
+    /**
+     * Finds the warnings nearest to a location.
+     *
+     * @param lat latitude of the location
+     * @param lng longitude of the location
+     * @param k   maximum number of warnings to return, at least 1
+     * @return up to k warnings, nearest first
+     * @throws ServiceUnavailableException if the warnings table is still being loaded
+     */
+    public List<NearbyWarning> nearest(double lat, double lng, int k) {
+        if (!loaded) {
+            throw new ServiceUnavailableException("Nearest-warning index is still loading!", LOADING_RETRY_AFTER_SECONDS);
+        }
+        Snapshot current = snapshot;
+        double[] query = WarningPoints.unitVector(lat, lng);
+        WarningKdTree.Neighbours neighbours = new WarningKdTree.Neighbours(k);
+        current.tree().search(query, neighbours);
+        neighbours.scan(current.tail(), 0, current.tailSize(), query);
+        return neighbours.toWarnings();
+    }
+
+    /**
+     * Whether the warnings table has been loaded and queries are answered.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Number of warnings held, a warning held twice counted twice.
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current.tree().size() + current.tailSize();
+    }
+
+    /**
+     * Schedules a rebuild if the tail has grown large enough and none is running; called holding the lock.
+     */
+    private void rebuildIfNeeded() {
+        Snapshot base = snapshot;
+        if (loaded && !rebuilding && base.tailSize() >= Math.max(MIN_REBUILD_SIZE, base.tree().size() / TAIL_FRACTION)) {
+            rebuilding = true;
+            maintainer.execute(() -> rebuild(base));
+        }
+    }
+
+    /**
+     * Builds a tree over the tree and tail of base and publishes it with what was added to the tail since.
+     * Only rebuilds replace the tail, so the tail still starts with the points of base.
+     */
+    private void rebuild(Snapshot base) {
+        WarningKdTree tree;
+        try {
+            tree = base.tree().merge(base.tail(), base.tailSize());
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild the nearest-warning index", e);
+            synchronized (this) {
+                rebuilding = false;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            tail = tail.suffix(base.tailSize(), MIN_REBUILD_SIZE);
+            snapshot = new Snapshot(tree, tail, tail.size());
+            rebuilding = false;
+            rebuildIfNeeded();
+        }
+    }
+
+    private String canonical(String text) {
+        return text == null ? null : texts.computeIfAbsent(text, t -> t);
+    }
+
+    /**
+     * Stops the background thread; the index itself needs no saving.
+     */
+    @PreDestroy
+    public void shutdown() {
+        maintainer.shutdownNow();
+    }
+
+    /**
+     * Collects the warnings streamed from the database, on the maintainer thread.
+     */
+    private final class Loader implements Consumer<Warning> {
+        private WarningPoints points = new WarningPoints(MIN_REBUILD_SIZE);
+
+        @Override
+        public void accept(Warning warning) {
+            points = points.add(warning.getId(), warning.getLat(), warning.getLng(), warning.getCreated_at(),
+                    canonical(warning.getText()));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.business;
+import org.example.business.exception.InvalidCredentialsException;
+import org.example.business.exception.ResourceNotFoundException;
+import org.example.business.exception.ServiceUnavailableException;
+import org.example.business.exception.ValidationException;
+import org.example.domain.NearbyWarning;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.List;
+
+/**
+ * Service class finding the past warnings of all drivers nearest to a location, from the in-memory
+ * NearestWarningIndex, e.g. for routing around known trouble spots.
+ */
+@Service
+public class NearestWarningService {
+    // Only present when the index is enabled (reports.nearest.enabled, on by default)
+    @Autowired(required = false)
+    private NearestWarningIndex nearestWarningIndex;
+
+    @Value("${reports.nearest.max-k:100}")
+    private int maxK = 100;
+
+    /**
+     * Finds the warnings nearest to a location.
+     *
+     * @param user_id The ID of the user searching.
+     * @param lat     The latitude of the location.
+     * @param lng     The longitude of the location.
+     * @param k       The number of warnings to return.
+     * @return Up to k warnings, nearest first.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ValidationException If the location is invalid or k is not between 1 and reports.nearest.max-k.
+     * @throws ResourceNotFoundException If the nearest-warning index is disabled.
+     * @throws ServiceUnavailableException If the index is still being loaded.
+     */
+    public List<NearbyWarning> getNearest(Long user_id, double lat, double lng, int k) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new ValidationException("Location must lie within latitudes -90..90 and longitudes -180..180!\n");
+        }
+        if (k < 1 || k > maxK) {
+            throw new ValidationException("k must be between 1 and " + maxK + "!\n");
+        }
+        if (nearestWarningIndex == null) {
+            throw new ResourceNotFoundException("Nearest-warning search is disabled!");
+        }
+
+        return nearestWarningIndex.nearest(lat, lng, k);
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.business;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.domain.Report;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * In-process cache of each user's full report list, used by ReportService.getAll.
+ * Enabled unless {@code reports.cache.enabled=false}.
+ * Entries are weighed by the number of reports and warnings they hold, so a few heavy drivers
+ * cannot crowd out everyone else, and expire after a fixed time so data written by other
+ * instances is picked up eventually. A user's entry is dropped as soon as their reports change.
+ * Hit, miss and eviction counts are published under the cache name "reports".
+ */
+@Component
+@ConditionalOnProperty(name = "reports.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ReportCache {
+    private final Cache<Long, List<Report>> cache;
+
+    /**
+     * @param meterRegistry registry the cache statistics are published to
+     * @param maxWeight     maximum number of reports plus warnings held in the cache
+     * @param ttlSeconds    time after which an entry is reloaded, even without changes
+     */
+    public ReportCache(MeterRegistry meterRegistry,
+                       @Value("${reports.cache.max-weight:500000}") long maxWeight,
+                       @Value("${reports.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long userId, List<Report> reports) -> weigh(reports))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "reports");
+    }
+
+    private static int weigh(List<Report> reports) {
+        int weight = 1;
+        for (Report report : reports) {
+            weight += 1 + (report.getWarnings() == null ? 0 : report.getWarnings().size());
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the cached reports of a user, loading them on a miss.
+     * Concurrent misses for the same user share a single load.
+     *
+     * @param user_id the ID of the user
+     * @param loader  loads the user's reports from the database
+     * @return the user's reports, as an unmodifiable list
+     */
+    public List<Report> get(Long user_id, Function<Long, List<Report>> loader) {
+        return cache.get(user_id, id -> List.copyOf(loader.apply(id)));
+    }
+
+    /**
+     * Returns the cached reports of a user without loading them.
+     *
+     * @param user_id the ID of the user
+     * @return the user's reports, or null if they are not cached
+     */
+    public List<Report> getIfPresent(Long user_id) {
+        return cache.getIfPresent(user_id);
+    }
+
+    /**
+     * Drops the cached reports of a user. If a load for that user is in progress,
+     * this waits for it and drops its result, so no stale list survives.
+     *
+     * @param user_id the ID of the user
+     */
+    public void invalidate(Long user_id) {
+        cache.invalidate(user_id);
+    }
+
+    @EventListener
+    public void onReportsChanged(ReportsChangedEvent event) {
+        invalidate(event.user_id());
+        // Inside a transaction, the entry is dropped again once it ends: a list loaded meanwhile by
+        // another request misses the uncommitted reports, one loaded by this transaction keeps them on rollback
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(event.user_id());
+                }
+            });
+        }
+    }
+}
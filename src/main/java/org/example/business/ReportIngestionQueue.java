@@ -0,0 +1,164 @@
+package org.example.business;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.business.exception.InvalidCredentialsException;
+import org.example.business.exception.ServiceUnavailableException;
+import org.example.business.exception.ValidationException;
+import org.example.domain.Report;
+import org.example.persistence.IdAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind queue for report creation, enabled with {@code reports.ingestion.async=true}.
+ * Reports are validated synchronously, given their final ID, placed in a bounded in-memory queue
+ * and persisted by a fixed pool of writer threads, so request threads are released before any database work.
+ * When the queue is full, new reports are rejected instead of blocking the caller.
+ * Reports still in the queue are lost if the process dies; they are drained on a normal shutdown.
+ */
+@Service
+@ConditionalOnProperty(name = "reports.ingestion.async", havingValue = "true")
+public class ReportIngestionQueue {
+    private static final Logger log = LoggerFactory.getLogger(ReportIngestionQueue.class);
+    private static final long POLL_MILLIS = 200;
+    private static final long SHUTDOWN_SECONDS = 30;
+
+    private final ReportService reportService;
+    private final IdAllocator idAllocator;
+    private final BlockingQueue<Report> queue;
+    private final ExecutorService writers;
+    private final long retryAfterSeconds;
+    private volatile boolean running = true;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter persisted;
+    private final Counter failed;
+
+    /**
+     * Creates the queue and starts its writer threads.
+     *
+     * @param reportService     the service used by the writers to persist reports
+     * @param idAllocator       allocator for the IDs given to reports when they are accepted
+     * @param meterRegistry     registry for the queue depth and throughput metrics
+     * @param capacity          maximum number of reports waiting to be written
+     * @param workers           number of writer threads
+     * @param retryAfterSeconds Retry-After hint sent to clients when the queue is full
+     */
+    public ReportIngestionQueue(ReportService reportService,
+                                IdAllocator idAllocator,
+                                MeterRegistry meterRegistry,
+                                @Value("${reports.ingestion.queue-capacity:10000}") int capacity,
+                                @Value("${reports.ingestion.workers:4}") int workers,
+                                @Value("${reports.ingestion.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.reportService = reportService;
+        this.idAllocator = idAllocator;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        meterRegistry.gauge("reports.ingestion.queue.depth", queue, BlockingQueue::size);
+        this.accepted = meterRegistry.counter("reports.ingestion.accepted");
+        this.rejected = meterRegistry.counter("reports.ingestion.rejected");
+        this.persisted = meterRegistry.counter("reports.ingestion.persisted");
+        this.failed = meterRegistry.counter("reports.ingestion.failed");
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "report-writer-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        this.writers = Executors.newFixedThreadPool(workers, threadFactory);
+        for (int i = 0; i < workers; i++) {
+            writers.submit(this::drain);
+        }
+    }
+
+    /**
+     * Validates a report, assigns its ID and queues it for asynchronous persistence.
+     *
+     * @param report The report to be saved, including its warnings.
+     * @return The accepted report, carrying the ID it will be stored under.
+     * @throws InvalidCredentialsException If the report has no user ID.
+     * @throws ValidationException If the report or any of its warnings is invalid.
+     * @throws ServiceUnavailableException If the queue is full or shutting down.
+     */
+    public Report enqueue(Report report) {
+        reportService.validate(report);
+
+        if (!running || queue.remainingCapacity() == 0) {
+            throw reject();
+        }
+        report.setId(idAllocator.next(IdAllocator.REPORTS));
+        if (!queue.offer(report)) {
+            throw reject();
+        }
+        accepted.increment();
+        return report;
+    }
+
+    private ServiceUnavailableException reject() {
+        rejected.increment();
+        return new ServiceUnavailableException("Report ingestion queue is full, please retry later!\n", retryAfterSeconds);
+    }
+
+    /**
+     * Returns the number of reports waiting to be written.
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Writer loop: persists queued reports until shutdown and the queue is empty.
+     */
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            Report report;
+            try {
+                report = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (report == null) {
+                continue;
+            }
+
+            try {
+                reportService.create(report);
+                persisted.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Failed to persist queued report of user {}", report.getUser_id(), e);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting reports and waits for the writers to drain the queue.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                log.error("Report writers did not finish in time, {} reports were not persisted", queue.size());
+                writers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
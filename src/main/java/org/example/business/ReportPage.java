@@ -0,0 +1,20 @@
+package org.example.business;
+import org.example.domain.Report;
+import java.util.List;
+
+/**
+ * One page of a user's reports, newest first, with the cursor for the next page.
+ */
+public class ReportPage {
+    private final List<Report> reports; // Reports of this page, including their warnings
+    private final String next_cursor; // Opaque cursor for the next page, null on the last page
+
+    public ReportPage(List<Report> reports, String next_cursor) {
+        this.reports = reports;
+        this.next_cursor = next_cursor;
+    }
+
+    // Getters
+    public List<Report> getReports() { return reports; }
+    public String getNext_cursor() { return next_cursor; }
+}
@@ -1,21 +1,36 @@
 package org.example.business;
 import org.example.business.exception.DataAccessException;
 import org.example.business.exception.InvalidCredentialsException;
+import org.example.business.exception.ResourceNotFoundException;
+import org.example.business.exception.ValidationException;
+import org.example.domain.DailyStats;
 import org.example.domain.Report;
+import org.example.domain.ReportSummary;
 import org.example.domain.Warning;
 import org.example.domain.validators.ReportValidator;
 import org.example.domain.validators.Validator;
 import org.example.domain.validators.WarningValidator;
+import org.example.persistence.IDailyStatsRepository;
 import org.example.persistence.IReportRepository;
 import org.example.persistence.IWarningRepository;
+import org.example.persistence.ReportGroupCommitter;
 import org.example.persistence.RepositoryException;
+import org.example.persistence.WarningTypeDictionary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Service class responsible for managing reports and associated warnings.
- * Provides functionality to create reports and retrieve them by user.
+ * Provides functionality to create reports, one at a time or in batches, and retrieve them by user.
  */
 @Service
 public class ReportService {
@@ -26,10 +41,44 @@ public class ReportService {
     private IReportRepository reportRepository;
     @Autowired
     private IWarningRepository warningRepository;
+    @Autowired
+    private IDailyStatsRepository dailyStatsRepository;
+    @Autowired
+    private WarningTypeDictionary warningTypes;
+
+    // Replaced by the application's transaction template; runs without a transaction in unit tests
+    @Autowired
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    @Value("${reports.batch.max-size:100}")
+    private int maxBatchSize = 100;
+
+    @Value("${reports.page.default-size:20}")
+    private int defaultPageSize = 20;
+    @Value("${reports.page.max-size:100}")
+    private int maxPageSize = 100;
+
+    @Value("${reports.geo.max-results:1000}")
+    private int maxBoxResults = 1000;
+
+    // Only present when group commit is enabled (reports.group-commit.enabled=true)
+    @Autowired(required = false)
+    private ReportGroupCommitter groupCommitter;
+
+    // Only present when the report cache is enabled (reports.cache.enabled, on by default)
+    @Autowired(required = false)
+    private ReportCache reportCache;
+
+    // Replaced by the application context; changes are not announced in unit tests.
+    // ReportsChangedListener and ReportCache act on the announcement once the reports are committed.
+    @Autowired
+    private ApplicationEventPublisher eventPublisher = event -> {};
 
     /**
      * Creates a new report with its associated warnings after validation.
-     * Performs rollback if any part of the creation fails.
+     * The report and all of its warnings are written in a single transaction,
+     * so a failure at any point rolls back everything written so far.
+     * With group commit enabled, the transaction is shared with reports from concurrent requests.
      *
      * @param report The report to be saved, including its warnings.
      * @return The created report.
@@ -37,8 +86,171 @@ public class ReportService {
      * @throws DataAccessException If saving the report or any warning fails.
      */
     public Report create(Report report) {
-        List<Runnable> cleanupActions = new ArrayList<>();
+        validate(report);
+
+        try {
+            Report savedReport = groupCommitter != null
+                    ? groupCommitter.submit(report).join()
+                    : transactionOperations.execute(status -> persist(report));
+            eventPublisher.publishEvent(new ReportsChangedEvent(report.getUser_id(), report.getWarnings()));
+            return savedReport;
+        } catch (CompletionException exception) {
+            throw new DataAccessException("Error while creating report!", exception.getCause());
+        } catch (RepositoryException | DataAccessException exception) {
+            throw new DataAccessException("Error while creating report!", exception);
+        }
+    }
+
+    /**
+     * Creates a report whose warnings are too many to hold in memory at once, e.g. one uploaded through
+     * ReportStreamIngestor. The report row and every chunk of warnings are written in a single transaction,
+     * one batch per chunk; the chunks are gone over once more by the listeners of the ReportsChangedEvent.
+     *
+     * @param report       The report, already validated, without its warnings.
+     * @param warningCount The number of warnings in the chunks.
+     * @param warnings     The warnings of the report, already validated and with their texts registered.
+     * @return The created report.
+     * @throws DataAccessException If saving the report or any warning fails.
+     */
+    public Report createInChunks(Report report, int warningCount, WarningChunks warnings) {
+        try {
+            Report savedReport = transactionOperations.execute(status -> {
+                Report saved = reportRepository.add(report)
+                        .orElseThrow(() -> new DataAccessException("Report could not be created!\n", null));
+                warnings.forEach(chunk -> {
+                    for (Warning warning : chunk) {
+                        warning.setReport_id(saved.getId());
+                    }
+                    warningRepository.addAll(chunk);
+                });
+                dailyStatsRepository.addAll(List.of(DailyStats.ofReport(saved, warningCount)));
+                return saved;
+            });
+            eventPublisher.publishEvent(new ReportsChangedEvent(report.getUser_id(), (WarningChunks) consumer ->
+                    warnings.forEach(chunk -> {
+                        for (Warning warning : chunk) {
+                            warning.setReport_id(savedReport.getId());
+                        }
+                        consumer.accept(chunk);
+                    })));
+            return savedReport;
+        } catch (RepositoryException | DataAccessException exception) {
+            throw new DataAccessException("Error while creating report!", exception);
+        }
+    }
+
+    /**
+     * Creates several reports of one user at once, e.g. trips replayed by a device that was offline.
+     * Every report is validated on its own; the valid ones are then written together in one
+     * transaction using batched inserts, and invalid ones are reported back without failing the others.
+     *
+     * @param user_id The ID of the user submitting the reports.
+     * @param reports The reports to be saved, including their warnings.
+     * @return One result per submitted report, in request order.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ValidationException If the batch is empty or larger than the configured maximum.
+     * @throws DataAccessException If saving the valid reports fails; none of them is saved then.
+     */
+    public List<BatchItemResult> createAll(Long user_id, List<Report> reports) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+        if (reports == null || reports.isEmpty()) {
+            throw new ValidationException("No reports found!\n");
+        }
+        if (reports.size() > maxBatchSize) {
+            throw new ValidationException("A batch can contain at most " + maxBatchSize + " reports!\n");
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(Collections.nCopies(reports.size(), null));
+        List<Report> validReports = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < reports.size(); i++) {
+            Report report = reports.get(i);
+            if (report == null) {
+                results.set(i, BatchItemResult.rejected(i, "Report cannot be null."));
+                continue;
+            }
+            report.setUser_id(user_id);
+            try {
+                validate(report);
+                validReports.add(report);
+                validIndexes.add(i);
+            } catch (ValidationException exception) {
+                results.set(i, BatchItemResult.rejected(i, exception.getMessage()));
+            }
+        }
+
+        if (!validReports.isEmpty()) {
+            try {
+                transactionOperations.executeWithoutResult(status -> persistAll(validReports));
+                List<Warning> warnings = new ArrayList<>();
+                for (Report report : validReports) {
+                    warnings.addAll(report.getWarnings());
+                }
+                eventPublisher.publishEvent(new ReportsChangedEvent(user_id, warnings));
+            } catch (RepositoryException exception) {
+                throw new DataAccessException("Error while creating reports!", exception);
+            }
+        }
+
+        for (int i = 0; i < validReports.size(); i++) {
+            int index = validIndexes.get(i);
+            results.set(index, BatchItemResult.created(index, validReports.get(i).getId()));
+        }
+        return results;
+    }
+
+    /**
+     * Writes validated reports and all their warnings with one batch each, and adds them to the
+     * daily statistics of their users; must run inside a transaction.
+     */
+    private void persistAll(List<Report> reports) {
+        reportRepository.addAll(reports);
+
+        List<Warning> warnings = new ArrayList<>();
+        List<DailyStats> stats = new ArrayList<>(reports.size());
+        for (Report report : reports) {
+            for (Warning warning : report.getWarnings()) {
+                warning.setReport_id(report.getId());
+                warnings.add(warning);
+            }
+            stats.add(DailyStats.ofReport(report, report.getWarnings().size()));
+        }
+        warningRepository.addAll(warnings);
+        dailyStatsRepository.addAll(stats);
+    }
+
+    /**
+     * Writes a validated report and its warnings, and adds them to the daily statistics of the user;
+     * must run inside a transaction.
+     */
+    private Report persist(Report report) {
+        Report savedReport = reportRepository.add(report)
+                .orElseThrow(() -> new DataAccessException("Report could not be created!\n", null));
+
+        for (Warning warning : report.getWarnings()) {
+            warning.setReport_id(savedReport.getId());
+        }
+
+        // All warnings are written in a single batch instead of one round trip each
+        warningRepository.addAll(report.getWarnings());
+        dailyStatsRepository.addAll(List.of(DailyStats.ofReport(savedReport, report.getWarnings().size())));
+
+        return savedReport;
+    }
 
+    /**
+     * Checks that a report can be created: it must belong to a user and both the report
+     * and its warnings must be valid. Sets created_at to the current time if missing.
+     * Registers the warning texts not seen before, so that no transaction writing the report has to.
+     *
+     * @param report The report to check.
+     * @throws InvalidCredentialsException If the report has no user ID.
+     * @throws ValidationException If the report or any of its warnings is invalid.
+     * @throws DataAccessException If the warning texts could not be registered.
+     */
+    public void validate(Report report) {
         if (report.getUser_id() == null) {
             throw new InvalidCredentialsException("Missing or invalid token!\n");
         }
@@ -48,59 +260,389 @@ public class ReportService {
         }
 
         reportValidator.validate(report);
+        Set<String> texts = new HashSet<>();
         for (Warning warning : report.getWarnings()) {
             warningValidator.validate(warning);
+            texts.add(warning.getText());
         }
+        registerWarningTypes(texts);
+    }
 
+    /**
+     * Registers the texts of warnings about to be written; must run before their transaction.
+     *
+     * @param texts The distinct texts of the warnings.
+     * @throws ValidationException If a text is new and no more warning types can be registered.
+     * @throws DataAccessException If the texts could not be registered.
+     */
+    public void registerWarningTypes(Collection<String> texts) {
+        List<String> refused;
         try {
-            Report savedReport = reportRepository.add(report)
-                    .orElseThrow(() -> new DataAccessException("Report could not be created!\n", null));
+            refused = warningTypes.registerAll(texts);
+        } catch (RepositoryException exception) {
+            throw new DataAccessException("Error while registering warning types!", exception);
+        }
+        if (!refused.isEmpty()) {
+            throw new ValidationException("WarningValidator: Unknown warning type " + refused.get(0) + "!\n");
+        }
+    }
 
-            // If successful, add its deletion to the cleanup list
-            cleanupActions.add(() -> reportRepository.delete(savedReport.getId()));
+    /**
+     * Retrieves all reports associated with a given user.
+     * Served from the report cache when it is enabled; reports created through this service
+     * are visible immediately, writes made by other instances once the cached entry expires.
+     *
+     * @param user_id The ID of the user whose reports are to be retrieved.
+     * @return A list of reports submitted by the user.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws DataAccessException If repository access fails.
+     */
+    public List<Report> getAll(Long user_id) {
+        try{
+            if(user_id == null){
+                throw new InvalidCredentialsException("Missing or invalid token!\n");
+            }
 
+            if(reportCache != null){
+                return reportCache.get(user_id, reportRepository::getAllOfUser);
+            }
+            return reportRepository.getAllOfUser(user_id);
+        }
+        catch (RepositoryException exception){
+            throw new DataAccessException("Error while fetching reports!", exception);
+        }
+    }
 
-            for (Warning warning : report.getWarnings()) {
-                warning.setReport_id(savedReport.getId());
-                Warning savedWarning = warningRepository.add(warning)
-                        .orElseThrow(() -> new DataAccessException("A warning for report " + savedReport.getId() + " could not be created!\n", null));
+    /**
+     * Retrieves the reports of a user created in the window [from, to), e.g. last week's trips.
+     * Without bounds this is the same as getAll(user_id); with bounds the window is queried directly.
+     *
+     * @param user_id The ID of the user whose reports are to be retrieved.
+     * @param from    Inclusive lower bound of created_at in epoch milliseconds, or null.
+     * @param to      Exclusive upper bound of created_at in epoch milliseconds, or null.
+     * @return The reports of the user in the window, newest first.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ValidationException If from is after to.
+     * @throws DataAccessException If repository access fails.
+     */
+    public List<Report> getAll(Long user_id, Long from, Long to) {
+        if (from == null && to == null) {
+            return getAll(user_id);
+        }
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+        validateRange(from, to);
 
-                // If successful, add its deletion to the cleanup list
-                cleanupActions.add(() -> warningRepository.delete(savedWarning.getId()));
+        try {
+            return reportRepository.getAllOfUser(user_id, from, to);
+        } catch (RepositoryException exception) {
+            throw new DataAccessException("Error while fetching reports!", exception);
+        }
+    }
+
+    private static void validateRange(Long from, Long to) {
+        if (from != null && to != null && from > to) {
+            throw new ValidationException("from must not be after to!\n");
+        }
+    }
+
+    /**
+     * Returns a version of the reports of a user, equal to versionOf(getAll(user_id)) but without loading
+     * any report: taken from the cached reports if present, otherwise counted in the database.
+     * Used to answer conditional requests for the user's reports.
+     *
+     * @param user_id The ID of the user whose reports are checked.
+     * @return The current version of the user's reports.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws DataAccessException If repository access fails.
+     */
+    public String getVersion(Long user_id) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+
+        try {
+            List<Report> cached = reportCache != null ? reportCache.getIfPresent(user_id) : null;
+            if (cached != null) {
+                return versionOf(cached);
             }
+            long[] countAndMaxId = reportRepository.getCountAndMaxIdOfUser(user_id);
+            return countAndMaxId[0] + "-" + countAndMaxId[1];
+        } catch (RepositoryException exception) {
+            throw new DataAccessException("Error while fetching reports!", exception);
+        }
+    }
 
-            return savedReport;
-        } catch (RepositoryException | DataAccessException exception) {
-            Collections.reverse(cleanupActions);
-            for (Runnable action : cleanupActions) {
-                try {
-                    action.run();
-                } catch (Exception e) {
-                    System.err.println("CRITICAL: Failed to run cleanup action during rollback: " + e.getMessage());
-                }
+    /**
+     * Computes the version of a list of reports returned by getAll: their count and highest ID.
+     * Reports are never changed once written, so this only changes when a report is added.
+     *
+     * @param reports The reports of a user.
+     * @return The version of the reports.
+     */
+    public static String versionOf(List<Report> reports) {
+        long maxId = 0;
+        for (Report report : reports) {
+            if (report.getId() != null && report.getId() > maxId) {
+                maxId = report.getId();
             }
-            throw new DataAccessException("Error while creating report!", exception);
         }
+        return reports.size() + "-" + maxId;
     }
 
     /**
-     * Retrieves all reports associated with a given user.
+     * Retrieves summaries of all reports of a user: endpoints, timestamp and warning count, without the warnings.
      *
      * @param user_id The ID of the user whose reports are to be retrieved.
-     * @return A list of reports submitted by the user.
+     * @return The summaries of the user's reports, newest first.
      * @throws InvalidCredentialsException If the user ID is null.
      * @throws DataAccessException If repository access fails.
      */
-    public List<Report> getAll(Long user_id) {
+    public List<ReportSummary> getSummaries(Long user_id) {
         try{
             if(user_id == null){
                 throw new InvalidCredentialsException("Missing or invalid token!\n");
             }
 
-            return reportRepository.getAllOfUser(user_id);
+            return reportRepository.getSummariesOfUser(user_id);
         }
         catch (RepositoryException exception){
+            throw new DataAccessException("Error while fetching report summaries!", exception);
+        }
+    }
+
+    /**
+     * Retrieves a user's trips and warnings per day from the daily statistics, which are updated with every
+     * report written, so the cost depends on the number of days rather than of reports and warnings.
+     *
+     * @param user_id The ID of the user whose statistics are to be retrieved.
+     * @param from    The first day (UTC, yyyy-MM-dd), inclusive, or null.
+     * @param to      The last day (UTC, yyyy-MM-dd), inclusive, or null.
+     * @return The statistics of each day with at least one trip, oldest first.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ValidationException If a day is malformed or from is after to.
+     * @throws DataAccessException If repository access fails.
+     */
+    public List<DailyStats> getDailyStats(Long user_id, String from, String to) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+        LocalDate fromDay = parseDay(from);
+        LocalDate toDay = parseDay(to);
+        if (fromDay != null && toDay != null && fromDay.isAfter(toDay)) {
+            throw new ValidationException("from must not be after to!\n");
+        }
+
+        try {
+            return dailyStatsRepository.getOfUser(user_id, fromDay, toDay);
+        } catch (RepositoryException exception) {
+            throw new DataAccessException("Error while fetching statistics!", exception);
+        }
+    }
+
+    private static LocalDate parseDay(String day) {
+        if (day == null || day.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(day);
+        } catch (DateTimeParseException exception) {
+            throw new ValidationException("Days must be given as yyyy-MM-dd!\n");
+        }
+    }
+
+    /**
+     * Retrieves one of a user's reports with its warnings.
+     *
+     * @param user_id   The ID of the user requesting the report.
+     * @param report_id The ID of the report.
+     * @return The report, including its warnings.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ResourceNotFoundException If the report does not exist or belongs to another user.
+     * @throws DataAccessException If repository access fails.
+     */
+    public Report getOne(Long user_id, Long report_id) {
+        try{
+            if(user_id == null){
+                throw new InvalidCredentialsException("Missing or invalid token!\n");
+            }
+
+            // Reports of other users are reported as missing, so their IDs cannot be probed
+            return reportRepository.findOne(report_id)
+                    .filter(report -> user_id.equals(report.getUser_id()))
+                    .orElseThrow(() -> new ResourceNotFoundException("Report not found!\n"));
+        }
+        catch (RepositoryException exception){
+            throw new DataAccessException("Error while fetching report!", exception);
+        }
+    }
+
+    /**
+     * Retrieves the warnings of one of a user's reports.
+     *
+     * @param user_id   The ID of the user requesting the warnings.
+     * @param report_id The ID of the report.
+     * @return The warnings of the report, in the order they were recorded.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ResourceNotFoundException If the report does not exist or belongs to another user.
+     * @throws DataAccessException If repository access fails.
+     */
+    public List<Warning> getWarnings(Long user_id, Long report_id) {
+        return getWarnings(user_id, report_id, null, null);
+    }
+
+    /**
+     * Retrieves the warnings of one of a user's reports recorded in the window [from, to).
+     *
+     * @param user_id   The ID of the user requesting the warnings.
+     * @param report_id The ID of the report.
+     * @param from      Inclusive lower bound of created_at in epoch milliseconds, or null.
+     * @param to        Exclusive upper bound of created_at in epoch milliseconds, or null.
+     * @return The warnings of the report in the window, in the order they were recorded.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ValidationException If from is after to.
+     * @throws ResourceNotFoundException If the report does not exist or belongs to another user.
+     * @throws DataAccessException If repository access fails.
+     */
+    public List<Warning> getWarnings(Long user_id, Long report_id, Long from, Long to) {
+        try{
+            if(user_id == null){
+                throw new InvalidCredentialsException("Missing or invalid token!\n");
+            }
+            validateRange(from, to);
+            // Reports of other users are reported as missing, so their IDs cannot be probed
+            if(!reportRepository.isOwnedBy(report_id, user_id)){
+                throw new ResourceNotFoundException("Report not found!\n");
+            }
+
+            return warningRepository.getAllOfReport(report_id, from, to);
+        }
+        catch (RepositoryException exception){
+            throw new DataAccessException("Error while fetching warnings!", exception);
+        }
+    }
+
+    /**
+     * Retrieves the warnings of a user's reports inside a map viewport, e.g. to draw them on a map.
+     * At most reports.geo.max-results warnings are returned; the oldest come first.
+     *
+     * @param user_id The ID of the user whose warnings are to be retrieved.
+     * @param minLat  The southern edge of the box.
+     * @param minLng  The western edge of the box.
+     * @param maxLat  The northern edge of the box.
+     * @param maxLng  The eastern edge of the box.
+     * @return The warnings inside the box, edges included.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ValidationException If a coordinate is not finite, the box is outside the valid coordinates or its edges are swapped.
+     * @throws DataAccessException If repository access fails.
+     */
+    public List<Warning> getWarningsInBox(Long user_id, double minLat, double minLng, double maxLat, double maxLng) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+        if (!Double.isFinite(minLat) || !Double.isFinite(minLng) || !Double.isFinite(maxLat) || !Double.isFinite(maxLng)) {
+            throw new ValidationException("Bounding box coordinates must be finite numbers!\n");
+        }
+        if (minLat < -90 || maxLat > 90 || minLng < -180 || maxLng > 180) {
+            throw new ValidationException("Bounding box must lie within latitudes -90..90 and longitudes -180..180!\n");
+        }
+        if (minLat > maxLat || minLng > maxLng) {
+            throw new ValidationException("Bounding box minimum must not exceed its maximum!\n");
+        }
+
+        try {
+            return warningRepository.getInBoxOfUser(user_id, minLat, minLng, maxLat, maxLng, maxBoxResults);
+        } catch (RepositoryException exception) {
+            throw new DataAccessException("Error while fetching warnings!", exception);
+        }
+    }
+
+    /**
+     * Streams all reports of a user, newest first, to the given consumer one at a time,
+     * so memory use does not depend on the size of the user's history.
+     *
+     * @param user_id  The ID of the user whose reports are to be retrieved.
+     * @param consumer Receives each report together with its warnings.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws DataAccessException If repository access fails.
+     */
+    public void streamAll(Long user_id, Consumer<Report> consumer) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+
+        try {
+            reportRepository.forEachOfUser(user_id, consumer);
+        } catch (RepositoryException exception) {
             throw new DataAccessException("Error while fetching reports!", exception);
         }
     }
+
+    /**
+     * Retrieves one page of a user's reports, newest first.
+     *
+     * @param user_id The ID of the user whose reports are to be retrieved.
+     * @param cursor  The next_cursor of the previous page, or null for the first page.
+     * @param limit   The maximum number of reports in the page, or null for the default page size.
+     * @return The page of reports, with the cursor of the following page if there is one.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws ValidationException If the cursor is malformed or the limit is out of range.
+     * @throws DataAccessException If repository access fails.
+     */
+    public ReportPage getPage(Long user_id, String cursor, Integer limit) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new ValidationException("Page size must be between 1 and " + maxPageSize + "!\n");
+        }
+
+        Long cursorCreatedAt = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            long[] position = decodeCursor(cursor);
+            cursorCreatedAt = position[0];
+            cursorId = position[1];
+        }
+
+        try {
+            // One extra report tells whether there is a next page
+            List<Report> reports = reportRepository.getPageOfUser(user_id, cursorCreatedAt, cursorId, pageSize + 1);
+            if (reports.size() <= pageSize) {
+                return new ReportPage(reports, null);
+            }
+
+            reports = new ArrayList<>(reports.subList(0, pageSize));
+            Report last = reports.get(pageSize - 1);
+            return new ReportPage(reports, encodeCursor(last.getCreated_at(), last.getId()));
+        } catch (RepositoryException exception) {
+            throw new DataAccessException("Error while fetching reports!", exception);
+        }
+    }
+
+    /**
+     * Encodes the position of a report in the (created_at, id) order as an opaque URL-safe cursor.
+     */
+    static String encodeCursor(long createdAt, long id) {
+        String position = createdAt + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor created by encodeCursor into {created_at, id}.
+     */
+    static long[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            return new long[]{
+                    Long.parseLong(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1))
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+            throw new ValidationException("Invalid cursor!\n");
+        }
+    }
 }
@@ -0,0 +1,372 @@
+package org.example.business;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.example.business.exception.DataAccessException;
+import org.example.business.exception.InvalidCredentialsException;
+import org.example.business.exception.PayloadTooLargeException;
+import org.example.business.exception.ValidationException;
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.example.domain.validators.ReportValidator;
+import org.example.domain.validators.Validator;
+import org.example.domain.validators.WarningValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Creates a report by reading its body as a token stream instead of binding it into a Report through
+ * the message converters. Besides JSON, the body may be CBOR or Smile, selected by its Content-Type.
+ * <p>
+ * The body is read once while the client sends it: warnings are validated one by one, so an invalid upload
+ * is rejected without reading the rest of it, and the size of the upload is limited. The bytes read are
+ * spooled to a temporary file, so no transaction or connection is held while a slow client is sending.
+ * ReportService then writes the report in one short transaction, reading the warnings back from the file
+ * in chunks of reports.stream.chunk-size; at no point are more than one chunk of warnings held in memory,
+ * however long the trip is. The file is deleted once the report has been created or rejected.
+ * <p>
+ * The texts of the warnings are registered while the body is read, a chunk at a time, so a rejected upload
+ * may leave some of its texts registered.
+ */
+@Service
+public class ReportStreamIngestor {
+    private static final Logger log = LoggerFactory.getLogger(ReportStreamIngestor.class);
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final ReportValidator reportValidator = ReportValidator.getInstance();
+    private final Validator<Warning> warningValidator = WarningValidator.getInstance();
+
+    private final JsonFactory jsonFactory;
+    private final JsonFactory cborFactory = new CBORFactory();
+    private final JsonFactory smileFactory = new SmileFactory();
+    private final ReportService reportService;
+    private final int chunkSize;
+    private final long maxBytes;
+    private final int maxWarnings;
+
+    /**
+     * @param objectMapper  the application's mapper, whose factory creates the parsers
+     * @param reportService service the report is created with
+     * @param chunkSize     number of warnings held in memory and written per batch
+     * @param maxBytes      maximum size of an upload in bytes
+     * @param maxWarnings   maximum number of warnings in one report
+     */
+    public ReportStreamIngestor(ObjectMapper objectMapper,
+                                ReportService reportService,
+                                @Value("${reports.stream.chunk-size:500}") int chunkSize,
+                                @Value("${reports.stream.max-bytes:52428800}") long maxBytes,
+                                @Value("${reports.stream.max-warnings:200000}") int maxWarnings) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.reportService = reportService;
+        this.chunkSize = chunkSize;
+        this.maxBytes = maxBytes;
+        this.maxWarnings = maxWarnings;
+    }
+
+    /**
+     * Reads a report from a stream and saves it together with its warnings.
+     *
+     * @param user_id       The ID of the user submitting the report.
+     * @param body          The body of the upload.
+     * @param contentType   The Content-Type of the body; JSON is assumed if it is missing or unknown.
+     * @param contentLength The declared length of the body, or -1 if unknown.
+     * @return The created report, without its warnings.
+     * @throws InvalidCredentialsException If the user ID is null.
+     * @throws PayloadTooLargeException If the upload exceeds the size or warning limits.
+     * @throws ValidationException If the body is malformed or the report or any warning is invalid.
+     * @throws DataAccessException If saving the report or any warning fails.
+     */
+    public Report ingest(Long user_id, InputStream body, String contentType, long contentLength) {
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+        if (contentLength > maxBytes) {
+            throw tooLarge();
+        }
+
+        JsonFactory factory = factoryFor(contentType);
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("report-upload-", ".spool");
+            Upload upload = new Upload();
+            try (OutputStream copy = Files.newOutputStream(spool);
+                 JsonParser parser = factory.createParser(new SpoolingInputStream(body, copy))) {
+                upload.read(parser);
+            }
+            Report report = upload.finish(user_id);
+
+            Path spooled = spool;
+            return reportService.createInChunks(report, upload.warningCount, consumer -> replay(factory, spooled, consumer));
+        } catch (JsonProcessingException exception) {
+            throw new ValidationException("Malformed report: " + exception.getOriginalMessage() + "\n");
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            delete(spool);
+        }
+    }
+
+    private JsonFactory factoryFor(String contentType) {
+        if (contentType != null) {
+            try {
+                MediaType mediaType = MediaType.parseMediaType(contentType);
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                    return cborFactory;
+                }
+                if (mediaType.isCompatibleWith(APPLICATION_SMILE)) {
+                    return smileFactory;
+                }
+            } catch (InvalidMediaTypeException ignored) {
+                // Fall back to JSON
+            }
+        }
+        return jsonFactory;
+    }
+
+    private PayloadTooLargeException tooLarge() {
+        return new PayloadTooLargeException("Report upload exceeds " + maxBytes + " bytes!\n");
+    }
+
+    private static void delete(Path spool) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException exception) {
+            log.warn("Could not delete spooled report upload {}", spool, exception);
+        }
+    }
+
+    /**
+     * Reads the warnings of a spooled upload back in chunks of at most chunkSize, each one a new list.
+     * The upload was parsed and validated before, so it is not checked again.
+     */
+    private void replay(JsonFactory factory, Path spool, Consumer<List<Warning>> consumer) {
+        try (JsonParser parser = factory.createParser(spool.toFile())) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY || !field.equals("warnings")) {
+                    parser.skipChildren();
+                    continue;
+                }
+                List<Warning> chunk = new ArrayList<>(chunkSize);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    chunk.add(readWarning(parser));
+                    if (chunk.size() == chunkSize) {
+                        consumer.accept(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    consumer.accept(chunk);
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * State of a single upload while it is read: the report fields and what is known about its warnings.
+     * Only the report itself is kept; each warning is dropped once it has been checked.
+     */
+    private final class Upload {
+        private final Report report = new Report();
+        private boolean warningsPresent;
+        private int warningCount;
+        // A valid warning, standing in for all of them when the report is validated
+        private Warning sample;
+        // Texts not registered yet, at most one chunk's worth
+        private final Set<String> texts = new HashSet<>();
+
+        void read(JsonParser parser) throws IOException {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ValidationException("Report cannot be null.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("warnings")) {
+                    readWarnings(parser, value);
+                } else {
+                    readReportField(parser, field, value);
+                }
+            }
+            registerTexts();
+        }
+
+        private void readReportField(JsonParser parser, String field, JsonToken value) throws IOException {
+            switch (field) {
+                case "start_lat" -> report.setStart_lat(readDouble(parser, field, value));
+                case "start_lng" -> report.setStart_lng(readDouble(parser, field, value));
+                case "end_lat" -> report.setEnd_lat(readDouble(parser, field, value));
+                case "end_lng" -> report.setEnd_lng(readDouble(parser, field, value));
+                case "created_at" -> report.setCreated_at(readLong(parser, field, value));
+                // id and user_id are assigned by the server, anything else is ignored
+                default -> parser.skipChildren();
+            }
+        }
+
+        private void readWarnings(JsonParser parser, JsonToken value) throws IOException {
+            if (value == JsonToken.VALUE_NULL) {
+                return;
+            }
+            if (value != JsonToken.START_ARRAY) {
+                throw new ValidationException("Invalid value for warnings!\n");
+            }
+            warningsPresent = true;
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new ValidationException("Warning cannot be null!\n");
+                }
+                check(readWarning(parser));
+            }
+        }
+
+        private void check(Warning warning) {
+            warningValidator.validate(warning);
+            if (++warningCount > maxWarnings) {
+                throw new PayloadTooLargeException("A report can contain at most " + maxWarnings + " warnings!\n");
+            }
+            if (sample == null) {
+                sample = warning;
+            }
+            texts.add(warning.getText());
+            if (texts.size() >= chunkSize) {
+                registerTexts();
+            }
+        }
+
+        private void registerTexts() {
+            if (!texts.isEmpty()) {
+                reportService.registerWarningTypes(Set.copyOf(texts));
+                texts.clear();
+            }
+        }
+
+        /**
+         * Completes the report read from the upload and validates it like ReportService does.
+         */
+        Report finish(Long user_id) {
+            report.setUser_id(user_id);
+            if (report.getCreated_at() == null) {
+                report.setCreated_at(System.currentTimeMillis());
+            }
+            report.setWarnings(!warningsPresent ? null : sample == null ? List.of() : List.of(sample));
+            reportValidator.validate(report);
+            report.setWarnings(null);
+            return report;
+        }
+    }
+
+    private static Warning readWarning(JsonParser parser) throws IOException {
+        Warning warning = new Warning();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "text" -> warning.setText(readText(parser, field, value));
+                case "lat" -> warning.setLat(readDouble(parser, field, value));
+                case "lng" -> warning.setLng(readDouble(parser, field, value));
+                case "created_at" -> warning.setCreated_at(readLong(parser, field, value));
+                default -> parser.skipChildren();
+            }
+        }
+        return warning;
+    }
+
+    private static Double readDouble(JsonParser parser, String field, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!value.isNumeric()) {
+            throw new ValidationException("Invalid value for " + field + "!\n");
+        }
+        return parser.getDoubleValue();
+    }
+
+    private static Long readLong(JsonParser parser, String field, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value != JsonToken.VALUE_NUMBER_INT) {
+            throw new ValidationException("Invalid value for " + field + "!\n");
+        }
+        return parser.getLongValue();
+    }
+
+    private static String readText(JsonParser parser, String field, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value != JsonToken.VALUE_STRING) {
+            throw new ValidationException("Invalid value for " + field + "!\n");
+        }
+        return parser.getText();
+    }
+
+    /**
+     * Copies every byte read from the body to the spool file, and fails the upload as soon as more than
+     * maxBytes have been read, also when no Content-Length was sent.
+     */
+    private final class SpoolingInputStream extends FilterInputStream {
+        private final OutputStream copy;
+        private long remaining = maxBytes;
+
+        private SpoolingInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+                copy.write(buffer, offset, n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            remaining -= n;
+            if (remaining < 0) {
+                throw tooLarge();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.business;
+
+import org.example.domain.Warning;
+
+import java.util.List;
+
+/**
+ * Published when reports of a user have been written; listeners act on it once the write is committed,
+ * so read-side state derived from reports never sees data that was rolled back.
+ *
+ * @param user_id  the ID of the user whose reports changed
+ * @param warnings the warnings of the written reports, in chunks
+ */
+public record ReportsChangedEvent(Long user_id, WarningChunks warnings) {
+
+    /**
+     * @param user_id  the ID of the user whose reports changed
+     * @param warnings the warnings of the written reports
+     */
+    public ReportsChangedEvent(Long user_id, List<Warning> warnings) {
+        this(user_id, WarningChunks.of(warnings));
+    }
+}
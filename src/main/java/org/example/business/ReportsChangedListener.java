@@ -0,0 +1,42 @@
+package org.example.business;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Feeds the warnings of newly written reports to the read-side components that aggregate them:
+ * the heatmap, the nearest-warning index and the hotspot detector.
+ * Runs once the transaction writing the reports has committed, or right away when the event is
+ * published after it, so every way of creating reports goes through the same hooks.
+ */
+@Component
+public class ReportsChangedListener {
+
+    // Only present when heatmap aggregation is enabled (reports.heatmap.enabled, on by default)
+    @Autowired(required = false)
+    private HeatmapAggregator heatmapAggregator;
+
+    // Only present when the nearest-warning index is enabled (reports.nearest.enabled, on by default)
+    @Autowired(required = false)
+    private NearestWarningIndex nearestWarningIndex;
+
+    // Only present when hotspot detection is enabled (reports.hotspots.enabled, on by default)
+    @Autowired(required = false)
+    private HotspotDetector hotspotDetector;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReportsChanged(ReportsChangedEvent event) {
+        event.warnings().forEach(chunk -> {
+            if (heatmapAggregator != null) {
+                heatmapAggregator.record(chunk);
+            }
+            if (nearestWarningIndex != null) {
+                nearestWarningIndex.add(chunk);
+            }
+            if (hotspotDetector != null) {
+                hotspotDetector.record(chunk);
+            }
+        });
+    }
+}
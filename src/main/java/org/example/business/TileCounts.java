@@ -0,0 +1,56 @@
+package org.example.business;
+import org.example.domain.HeatmapTile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warning counts per tile for a range of zoom levels, accumulated in memory before they are written.
+ * Each location is projected once at the highest zoom; its tiles at lower zooms are found by shifting,
+ * since every tile is split into 2 x 2 tiles at the next zoom level.
+ */
+final class TileCounts {
+    private record Key(int zoom, int x, int y) {}
+
+    private final int minZoom;
+    private final int maxZoom;
+    private final Map<Key, long[]> counts = new HashMap<>();
+
+    TileCounts(int minZoom, int maxZoom) {
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+    }
+
+    void add(double lat, double lng) {
+        int x = WebMercator.tileX(lng, maxZoom);
+        int y = WebMercator.tileY(lat, maxZoom);
+        for (int zoom = maxZoom; zoom >= minZoom; zoom--) {
+            int shift = maxZoom - zoom;
+            add(new Key(zoom, x >> shift, y >> shift), 1);
+        }
+    }
+
+    void addAll(TileCounts other) {
+        for (Map.Entry<Key, long[]> entry : other.counts.entrySet()) {
+            add(entry.getKey(), entry.getValue()[0]);
+        }
+    }
+
+    private void add(Key key, long count) {
+        counts.computeIfAbsent(key, k -> new long[1])[0] += count;
+    }
+
+    boolean isEmpty() {
+        return counts.isEmpty();
+    }
+
+    List<HeatmapTile> toTiles() {
+        List<HeatmapTile> tiles = new ArrayList<>(counts.size());
+        for (Map.Entry<Key, long[]> entry : counts.entrySet()) {
+            Key key = entry.getKey();
+            tiles.add(new HeatmapTile(key.zoom(), key.x(), key.y(), entry.getValue()[0]));
+        }
+        return tiles;
+    }
+}
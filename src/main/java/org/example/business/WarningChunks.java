@@ -0,0 +1,33 @@
+package org.example.business;
+
+import org.example.domain.Warning;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The warnings of written reports, handed out chunk by chunk, so that the warnings of a long upload
+ * never have to be held in memory at once. Every call of forEach goes over all of them again.
+ */
+@FunctionalInterface
+public interface WarningChunks {
+
+    /**
+     * Passes the warnings to the consumer in chunks, in the order they were recorded.
+     *
+     * @param consumer receives each chunk; it must not keep the list after returning
+     */
+    void forEach(Consumer<List<Warning>> consumer);
+
+    /**
+     * @param warnings warnings already in memory
+     * @return the warnings as a single chunk, or no chunk at all if there are none
+     */
+    static WarningChunks of(List<Warning> warnings) {
+        return consumer -> {
+            if (!warnings.isEmpty()) {
+                consumer.accept(warnings);
+            }
+        };
+    }
+}
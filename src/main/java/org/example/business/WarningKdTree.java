@@ -0,0 +1,246 @@
+package org.example.business;
+import org.example.domain.NearbyWarning;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable KD-tree over warning locations, stored implicitly in the arrays of WarningPoints:
+ * the node of a range [lo, hi) is the point at its middle, with the points of its left subtree before it
+ * and those of its right subtree after it. Each node splits on the axis along which its points spread most.
+ * Ranges of at most LEAF_SIZE points are scanned linearly.
+ */
+final class WarningKdTree {
+    static final WarningKdTree EMPTY = new WarningKdTree(new WarningPoints(0), new byte[0]);
+
+    private static final int LEAF_SIZE = 8;
+
+    private final WarningPoints points;
+    private final byte[] axes; // Split axis of the node at each index
+
+    private WarningKdTree(WarningPoints points, byte[] axes) {
+        this.points = points;
+        this.axes = axes;
+    }
+
+    /**
+     * Builds a tree over the points; the points are reordered in place and must not be changed afterwards.
+     *
+     * @param points the points of the tree, exactly sized
+     * @return the tree
+     */
+    static WarningKdTree build(WarningPoints points) {
+        byte[] axes = new byte[points.size()];
+        build(points, axes, 0, points.size());
+        return new WarningKdTree(points, axes);
+    }
+
+    /**
+     * Builds a tree over the points of this tree and the first tailSize points of tail.
+     */
+    WarningKdTree merge(WarningPoints tail, int tailSize) {
+        return build(WarningPoints.concat(points, points.size(), tail, tailSize));
+    }
+
+    int size() {
+        return points.size();
+    }
+
+    private static void build(WarningPoints points, byte[] axes, int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) {
+            return;
+        }
+        int axis = widestAxis(points, lo, hi);
+        int mid = (lo + hi) >>> 1;
+        select(points, lo, hi - 1, mid, axis);
+        axes[mid] = (byte) axis;
+        build(points, axes, lo, mid);
+        build(points, axes, mid + 1, hi);
+    }
+
+    private static int widestAxis(WarningPoints points, int lo, int hi) {
+        int widest = 0;
+        double widestSpread = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double value = points.coordinate(axis, i);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widestSpread) {
+                widest = axis;
+                widestSpread = max - min;
+            }
+        }
+        return widest;
+    }
+
+    /**
+     * Reorders [lo, hi] so that the point at k has the k-th smallest coordinate on the axis, with no larger
+     * coordinate before it and no smaller one after it. Hoare partitioning keeps runs of equal coordinates,
+     * e.g. warnings repeated at one spot, from degrading the selection.
+     */
+    private static void select(WarningPoints points, int lo, int hi, int k, int axis) {
+        while (lo < hi) {
+            double pivot = points.coordinate(axis, (lo + hi) >>> 1);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (points.coordinate(axis, i) < pivot) {
+                    i++;
+                }
+                while (points.coordinate(axis, j) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    points.swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Offers the points of this tree that may be among the nearest to the query vector to the neighbours.
+     *
+     * @param query      unit vector of the queried location
+     * @param neighbours the nearest points found so far
+     */
+    void search(double[] query, Neighbours neighbours) {
+        search(query, neighbours, 0, points.size());
+    }
+
+    private void search(double[] query, Neighbours neighbours, int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) {
+            neighbours.scan(points, lo, hi, query);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int axis = axes[mid];
+        neighbours.offer(points, mid, query);
+
+        double diff = query[axis] - points.coordinate(axis, mid);
+        int nearLo = diff < 0 ? lo : mid + 1;
+        int nearHi = diff < 0 ? mid : hi;
+        search(query, neighbours, nearLo, nearHi);
+        // The far side can only hold a nearer point if the splitting plane is nearer than the current k-th point
+        if (diff * diff < neighbours.worst()) {
+            search(query, neighbours, diff < 0 ? mid + 1 : lo, diff < 0 ? hi : mid);
+        }
+    }
+
+    /**
+     * The k nearest points offered so far, kept in a max-heap on squared chord distance so that the
+     * farthest of them is replaced first. A point whose warning ID is already held is ignored, which
+     * makes a warning indexed twice harmless.
+     */
+    static final class Neighbours {
+        private final double[] distances;
+        private final WarningPoints[] sources;
+        private final int[] indexes;
+        private int size;
+
+        Neighbours(int k) {
+            distances = new double[k];
+            sources = new WarningPoints[k];
+            indexes = new int[k];
+        }
+
+        /**
+         * Squared chord distance a point must be below to be kept, infinite until k points are held.
+         */
+        double worst() {
+            return size < distances.length ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        void scan(WarningPoints points, int from, int to, double[] query) {
+            for (int i = from; i < to; i++) {
+                offer(points, i, query);
+            }
+        }
+
+        void offer(WarningPoints points, int i, double[] query) {
+            double dx = points.xs[i] - query[0];
+            double dy = points.ys[i] - query[1];
+            double dz = points.zs[i] - query[2];
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (distance >= worst()) {
+                return;
+            }
+            long id = points.ids[i];
+            for (int n = 0; n < size; n++) {
+                if (sources[n].ids[indexes[n]] == id) {
+                    return;
+                }
+            }
+
+            if (size < distances.length) {
+                int child = size++;
+                set(child, distance, points, i);
+                while (child > 0 && distances[(child - 1) / 2] < distances[child]) {
+                    swap(child, (child - 1) / 2);
+                    child = (child - 1) / 2;
+                }
+            } else {
+                set(0, distance, points, i);
+                int parent = 0;
+                while (true) {
+                    int largest = parent;
+                    for (int child = 2 * parent + 1; child <= 2 * parent + 2 && child < size; child++) {
+                        if (distances[child] > distances[largest]) {
+                            largest = child;
+                        }
+                    }
+                    if (largest == parent) {
+                        break;
+                    }
+                    swap(parent, largest);
+                    parent = largest;
+                }
+            }
+        }
+
+        /**
+         * Returns the points held, nearest first.
+         */
+        List<NearbyWarning> toWarnings() {
+            Integer[] order = new Integer[size];
+            Arrays.setAll(order, n -> n);
+            Arrays.sort(order, Comparator.comparingDouble(n -> distances[n]));
+
+            List<NearbyWarning> warnings = new ArrayList<>(size);
+            for (int n : order) {
+                WarningPoints points = sources[n];
+                int i = indexes[n];
+                warnings.add(new NearbyWarning(points.texts[i], points.lat(i), points.lng(i),
+                        points.createdAt(i), WarningPoints.metersOf(distances[n])));
+            }
+            return warnings;
+        }
+
+        private void set(int n, double distance, WarningPoints points, int i) {
+            distances[n] = distance;
+            sources[n] = points;
+            indexes[n] = i;
+        }
+
+        private void swap(int a, int b) {
+            double distance = distances[a];
+            WarningPoints points = sources[a];
+            int i = indexes[a];
+            set(a, distances[b], sources[b], indexes[b]);
+            set(b, distance, points, i);
+        }
+    }
+}
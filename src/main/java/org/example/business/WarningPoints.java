@@ -0,0 +1,139 @@
+package org.example.business;
+
+/**
+ * Warning locations stored column-wise in primitive arrays, for NearestWarningIndex.
+ * A location is kept as the unit vector (x, y, z) pointing at it from the center of the earth:
+ * the straight-line (chord) distance between two such vectors grows with the great-circle distance,
+ * so nearest neighbours can be searched with plain Euclidean distance in three dimensions.
+ * <p>
+ * Points are only appended, by one writer at a time. A full instance is replaced by a larger copy,
+ * so a reader that captured an instance together with its size sees a fixed set of points.
+ */
+final class WarningPoints {
+    static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    final double[] xs;
+    final double[] ys;
+    final double[] zs;
+    final long[] ids;
+    final long[] createdAts;
+    final String[] texts;
+    private int size;
+
+    WarningPoints(int capacity) {
+        xs = new double[capacity];
+        ys = new double[capacity];
+        zs = new double[capacity];
+        ids = new long[capacity];
+        createdAts = new long[capacity];
+        texts = new String[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a warning location.
+     *
+     * @param id        the ID of the warning
+     * @param lat       latitude in degrees
+     * @param lng       longitude in degrees
+     * @param createdAt timestamp of the warning in epoch milliseconds, or null
+     * @param text      text of the warning
+     * @return this instance, or a larger copy holding the point if this one was full
+     */
+    WarningPoints add(long id, double lat, double lng, Long createdAt, String text) {
+        WarningPoints target = size < ids.length ? this : copy(Math.max(16, ids.length * 2));
+        double[] vector = unitVector(lat, lng);
+        int i = target.size++;
+        target.xs[i] = vector[0];
+        target.ys[i] = vector[1];
+        target.zs[i] = vector[2];
+        target.ids[i] = id;
+        target.createdAts[i] = createdAt != null ? createdAt : NO_TIMESTAMP;
+        target.texts[i] = text;
+        return target;
+    }
+
+    /**
+     * Returns a copy of the points from index start on, with room for at least capacity points.
+     */
+    WarningPoints suffix(int start, int capacity) {
+        WarningPoints copy = new WarningPoints(Math.max(capacity, size - start));
+        copy.appendRange(this, start, size);
+        return copy;
+    }
+
+    /**
+     * Returns an exactly sized copy of the first aSize points of a followed by the first bSize points of b.
+     */
+    static WarningPoints concat(WarningPoints a, int aSize, WarningPoints b, int bSize) {
+        WarningPoints copy = new WarningPoints(aSize + bSize);
+        copy.appendRange(a, 0, aSize);
+        copy.appendRange(b, 0, bSize);
+        return copy;
+    }
+
+    private WarningPoints copy(int capacity) {
+        WarningPoints copy = new WarningPoints(capacity);
+        copy.appendRange(this, 0, size);
+        return copy;
+    }
+
+    private void appendRange(WarningPoints source, int from, int to) {
+        int count = to - from;
+        System.arraycopy(source.xs, from, xs, size, count);
+        System.arraycopy(source.ys, from, ys, size, count);
+        System.arraycopy(source.zs, from, zs, size, count);
+        System.arraycopy(source.ids, from, ids, size, count);
+        System.arraycopy(source.createdAts, from, createdAts, size, count);
+        System.arraycopy(source.texts, from, texts, size, count);
+        size += count;
+    }
+
+    /**
+     * Returns the unit vector pointing at a location given in degrees.
+     */
+    static double[] unitVector(double lat, double lng) {
+        double latRadians = Math.toRadians(lat);
+        double lngRadians = Math.toRadians(lng);
+        return new double[]{
+                Math.cos(latRadians) * Math.cos(lngRadians),
+                Math.cos(latRadians) * Math.sin(lngRadians),
+                Math.sin(latRadians)};
+    }
+
+    double coordinate(int axis, int i) {
+        return axis == 0 ? xs[i] : axis == 1 ? ys[i] : zs[i];
+    }
+
+    void swap(int i, int j) {
+        double x = xs[i]; xs[i] = xs[j]; xs[j] = x;
+        double y = ys[i]; ys[i] = ys[j]; ys[j] = y;
+        double z = zs[i]; zs[i] = zs[j]; zs[j] = z;
+        long id = ids[i]; ids[i] = ids[j]; ids[j] = id;
+        long createdAt = createdAts[i]; createdAts[i] = createdAts[j]; createdAts[j] = createdAt;
+        String text = texts[i]; texts[i] = texts[j]; texts[j] = text;
+    }
+
+    double lat(int i) {
+        return Math.toDegrees(Math.atan2(zs[i], Math.hypot(xs[i], ys[i])));
+    }
+
+    double lng(int i) {
+        return Math.toDegrees(Math.atan2(ys[i], xs[i]));
+    }
+
+    Long createdAt(int i) {
+        return createdAts[i] != NO_TIMESTAMP ? createdAts[i] : null;
+    }
+
+    /**
+     * Converts a squared chord distance between unit vectors into meters along the earth's surface.
+     */
+    static double metersOf(double chordSquared) {
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(chordSquared) / 2));
+    }
+}
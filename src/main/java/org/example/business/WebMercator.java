@@ -0,0 +1,31 @@
+package org.example.business;
+
+/**
+ * Conversion of coordinates to Web Mercator (slippy map) tile indexes.
+ */
+final class WebMercator {
+    /** Latitudes beyond this are outside the square Web Mercator map. */
+    static final double MAX_LAT = 85.05112878;
+
+    private WebMercator() {
+    }
+
+    /**
+     * Returns the column of the tile containing a longitude.
+     */
+    static int tileX(double lng, int zoom) {
+        int tiles = 1 << zoom;
+        int x = (int) Math.floor((lng + 180) / 360 * tiles);
+        return Math.max(0, Math.min(tiles - 1, x));
+    }
+
+    /**
+     * Returns the row of the tile containing a latitude; latitudes outside the map fall into the edge rows.
+     */
+    static int tileY(double lat, int zoom) {
+        int tiles = 1 << zoom;
+        double latRad = Math.toRadians(Math.max(-MAX_LAT, Math.min(MAX_LAT, lat)));
+        int y = (int) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * tiles);
+        return Math.max(0, Math.min(tiles - 1, y));
+    }
+}
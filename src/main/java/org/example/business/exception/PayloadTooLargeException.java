@@ -0,0 +1,16 @@
+package org.example.business.exception;
+
+/**
+ * Exception thrown when a request carries more data than the service is willing to accept.
+ * Extends the ServiceException class to provide specific error handling for oversized uploads.
+ */
+public class PayloadTooLargeException extends ServiceException {
+    /**
+     * Constructs a new PayloadTooLargeException with the specified detail message.
+     *
+     * @param message the detail message describing which limit was exceeded
+     */
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
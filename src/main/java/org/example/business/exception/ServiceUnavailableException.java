@@ -0,0 +1,24 @@
+package org.example.business.exception;
+
+/**
+ * Exception thrown when the service is temporarily unable to accept more work, e.g. when a queue is full.
+ * Extends the ServiceException class and carries a hint for when the client should retry.
+ */
+public class ServiceUnavailableException extends ServiceException {
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new ServiceUnavailableException with the specified detail message and retry hint.
+     *
+     * @param message           the detail message
+     * @param retryAfterSeconds the number of seconds after which the client may retry
+     */
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.domain;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Trips and warnings of one user on one day, rolled up as reports are written, so statistics screens read
+ * one row per day instead of every report and warning. Days are UTC dates of the reports' created_at.
+ */
+public class DailyStats {
+    private final long user_id; // ID of the user who drove
+    private final String day; // UTC date, as yyyy-MM-dd
+    private final long trip_count; // Number of reports created that day
+    private final long warning_count; // Number of warnings in those reports
+    private final long first_at; // created_at of the earliest of those reports (in ms)
+    private final long last_at; // created_at of the latest of those reports (in ms)
+
+    public DailyStats(long user_id, String day, long trip_count, long warning_count, long first_at, long last_at) {
+        this.user_id = user_id;
+        this.day = day;
+        this.trip_count = trip_count;
+        this.warning_count = warning_count;
+        this.first_at = first_at;
+        this.last_at = last_at;
+    }
+
+    /**
+     * Returns the contribution of one report, with a created_at set, to the statistics of its day.
+     *
+     * @param report        the report
+     * @param warning_count the number of warnings of the report
+     */
+    public static DailyStats ofReport(Report report, long warning_count) {
+        long createdAt = report.getCreated_at();
+        String day = LocalDate.ofInstant(Instant.ofEpochMilli(createdAt), ZoneOffset.UTC).toString();
+        return new DailyStats(report.getUser_id(), day, 1, warning_count, createdAt, createdAt);
+    }
+
+    // Getters
+    public long getUser_id() { return user_id; }
+    public String getDay() { return day; }
+    public long getTrip_count() { return trip_count; }
+    public long getWarning_count() { return warning_count; }
+    public long getFirst_at() { return first_at; }
+    public long getLast_at() { return last_at; }
+}
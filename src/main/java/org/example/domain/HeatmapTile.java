@@ -0,0 +1,26 @@
+package org.example.domain;
+
+/**
+ * Number of warnings recorded inside one map tile, across all drivers.
+ * Tiles use the Web Mercator (slippy map) scheme: at zoom z the world is 2^z x 2^z tiles,
+ * x growing eastwards from longitude -180 and y southwards from latitude 85.05.
+ */
+public class HeatmapTile {
+    private final int zoom; // Zoom level of the tile
+    private final int x; // Column of the tile
+    private final int y; // Row of the tile
+    private final long warning_count; // Number of warnings inside the tile
+
+    public HeatmapTile(int zoom, int x, int y, long warning_count) {
+        this.zoom = zoom;
+        this.x = x;
+        this.y = y;
+        this.warning_count = warning_count;
+    }
+
+    // Getters
+    public int getZoom() { return zoom; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public long getWarning_count() { return warning_count; }
+}
@@ -0,0 +1,34 @@
+package org.example.domain;
+
+/**
+ * A stretch of road where many warnings were recorded, across all drivers: a connected group of dense
+ * cells of the hotspot grid. The location is the centroid of its warnings, the box encloses its cells.
+ */
+public class Hotspot {
+    private final double lat; // Latitude of the centroid
+    private final double lng; // Longitude of the centroid
+    private final double min_lat; // Southern edge of the hotspot
+    private final double min_lng; // Western edge of the hotspot
+    private final double max_lat; // Northern edge of the hotspot
+    private final double max_lng; // Eastern edge of the hotspot
+    private final long warning_count; // Number of warnings inside the hotspot
+
+    public Hotspot(double lat, double lng, double min_lat, double min_lng, double max_lat, double max_lng, long warning_count) {
+        this.lat = lat;
+        this.lng = lng;
+        this.min_lat = min_lat;
+        this.min_lng = min_lng;
+        this.max_lat = max_lat;
+        this.max_lng = max_lng;
+        this.warning_count = warning_count;
+    }
+
+    // Getters
+    public double getLat() { return lat; }
+    public double getLng() { return lng; }
+    public double getMin_lat() { return min_lat; }
+    public double getMin_lng() { return min_lng; }
+    public double getMax_lat() { return max_lat; }
+    public double getMax_lng() { return max_lng; }
+    public long getWarning_count() { return warning_count; }
+}
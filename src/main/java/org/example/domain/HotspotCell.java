@@ -0,0 +1,30 @@
+package org.example.domain;
+
+/**
+ * Warnings recorded inside one cell of the hotspot grid, across all drivers.
+ * Cells are about reports.hotspots.eps-meters / sqrt(2) wide; rows count from latitude -90 northwards,
+ * columns from longitude -180 eastwards, with the column width of each row scaled by the cosine of its latitude.
+ * The coordinate sums give the centroid of the warnings of the cell.
+ */
+public class HotspotCell {
+    private final int row_index; // Row of the cell
+    private final int column_index; // Column of the cell within its row
+    private final long warning_count; // Number of warnings inside the cell
+    private final double lat_sum; // Sum of the latitudes of those warnings
+    private final double lng_sum; // Sum of the longitudes of those warnings
+
+    public HotspotCell(int row_index, int column_index, long warning_count, double lat_sum, double lng_sum) {
+        this.row_index = row_index;
+        this.column_index = column_index;
+        this.warning_count = warning_count;
+        this.lat_sum = lat_sum;
+        this.lng_sum = lng_sum;
+    }
+
+    // Getters
+    public int getRow_index() { return row_index; }
+    public int getColumn_index() { return column_index; }
+    public long getWarning_count() { return warning_count; }
+    public double getLat_sum() { return lat_sum; }
+    public double getLng_sum() { return lng_sum; }
+}
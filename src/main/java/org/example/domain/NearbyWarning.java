@@ -0,0 +1,28 @@
+package org.example.domain;
+
+/**
+ * A past warning of any driver near a queried point, as returned by the nearest-warnings search.
+ * It carries no report or user ID, only what was recorded and where.
+ */
+public class NearbyWarning {
+    private final String text; // Description of the warning
+    private final double lat; // Latitude coordinate
+    private final double lng; // Longitude coordinate
+    private final Long created_at; // Timestamp when the warning was recorded (ms since epoch), null if unknown
+    private final double distance_m; // Great-circle distance from the queried point in meters
+
+    public NearbyWarning(String text, double lat, double lng, Long created_at, double distance_m) {
+        this.text = text;
+        this.lat = lat;
+        this.lng = lng;
+        this.created_at = created_at;
+        this.distance_m = distance_m;
+    }
+
+    // Getters
+    public String getText() { return text; }
+    public double getLat() { return lat; }
+    public double getLng() { return lng; }
+    public Long getCreated_at() { return created_at; }
+    public double getDistance_m() { return distance_m; }
+}
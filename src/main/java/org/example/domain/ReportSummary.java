@@ -0,0 +1,78 @@
+package org.example.domain;
+
+/**
+ * Lightweight view of a report for list screens: its endpoints, timestamp
+ * and the number of warnings, without the warnings themselves.
+ */
+public class ReportSummary extends Entity<Long>{
+    Long user_id; // ID of the user who submitted the report
+    Double start_lat; // Start latitude of the journey
+    Double start_lng; // Start longitude of the journey
+    Double end_lat; // End latitude of the journey
+    Double end_lng; // End longitude of the journey
+    Long created_at; // Timestamp when the report was created (in ms)
+    Long warning_count; // Number of warnings recorded during the journey
+
+    /**
+     * Default constructor.
+     */
+    public ReportSummary(){}
+
+    // Standard getters/setters for each field
+
+    public Long getUser_id() {
+        return user_id;
+    }
+
+    public void setUser_id(Long user_id) {
+        this.user_id = user_id;
+    }
+
+    public Double getStart_lat() {
+        return start_lat;
+    }
+
+    public void setStart_lat(Double start_lat) {
+        this.start_lat = start_lat;
+    }
+
+    public Double getStart_lng() {
+        return start_lng;
+    }
+
+    public void setStart_lng(Double start_lng) {
+        this.start_lng = start_lng;
+    }
+
+    public Double getEnd_lat() {
+        return end_lat;
+    }
+
+    public void setEnd_lat(Double end_lat) {
+        this.end_lat = end_lat;
+    }
+
+    public Double getEnd_lng() {
+        return end_lng;
+    }
+
+    public void setEnd_lng(Double end_lng) {
+        this.end_lng = end_lng;
+    }
+
+    public Long getCreated_at() {
+        return created_at;
+    }
+
+    public void setCreated_at(Long created_at) {
+        this.created_at = created_at;
+    }
+
+    public Long getWarning_count() {
+        return warning_count;
+    }
+
+    public void setWarning_count(Long warning_count) {
+        this.warning_count = warning_count;
+    }
+}
@@ -22,7 +22,7 @@ public class WarningValidator implements Validator<Warning> {
      * @return true if the latitude is valid, false otherwise
      */
     private Boolean validLat(Double lat) {
-        return lat >= -90 && lat <= 90;
+        return lat != null && lat >= -90 && lat <= 90;
     }
 
     /**
@@ -32,7 +32,7 @@ public class WarningValidator implements Validator<Warning> {
      * @return true if the longitude is valid, false otherwise
      */
     private Boolean validLng(Double lon) {
-        return lon >= -180 && lon <= 180;
+        return lon != null && lon >= -180 && lon <= 180;
     }
 
     /**
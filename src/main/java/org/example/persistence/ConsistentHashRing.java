@@ -0,0 +1,110 @@
+package org.example.persistence;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Immutable consistent-hash ring assigning long keys (user IDs) to named shards.
+ * Each shard is placed at several points of the ring (virtual nodes), and a key belongs to the shard
+ * of the first point at or after its own hash, wrapping around. Adding a shard only moves keys to the
+ * new shard, about 1/N of them, and leaves every other key where it was.
+ * <p>
+ * Points depend only on the names of the shards, so every node configured with the same names
+ * computes the same assignment.
+ *
+ * @param <S> the type of the shards
+ */
+public final class ConsistentHashRing<S> {
+    private final Map<String, S> shards;
+    private final int virtualNodes;
+    private final long[] points; // Sorted hashes of all virtual nodes
+    private final List<S> owners; // Shard of each point, at the same index
+
+    /**
+     * Creates a ring of the given shards.
+     *
+     * @param shards       the shards by name, in any order
+     * @param virtualNodes points per shard; more points spread keys more evenly
+     * @throws IllegalArgumentException if there are no shards or virtualNodes is not positive
+     */
+    public ConsistentHashRing(Map<String, S> shards, int virtualNodes) {
+        if (shards.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("A ring needs at least one shard and one virtual node per shard");
+        }
+        this.shards = Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+        this.virtualNodes = virtualNodes;
+
+        TreeMap<Long, S> ring = new TreeMap<>();
+        // Names are placed in sorted order so that the rare colliding points resolve the same way on every node
+        for (String name : new TreeSet<>(shards.keySet())) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.putIfAbsent(hash(name + "#" + i), shards.get(name));
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new ArrayList<>(ring.size());
+        int i = 0;
+        for (Map.Entry<Long, S> point : ring.entrySet()) {
+            points[i++] = point.getKey();
+            owners.add(point.getValue());
+        }
+    }
+
+    /**
+     * Returns the shard a key belongs to.
+     *
+     * @param key the key, e.g. the ID of a user
+     * @return the shard of the key
+     */
+    public S shardOf(long key) {
+        int index = Arrays.binarySearch(points, mix(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners.get(index == points.length ? 0 : index);
+    }
+
+    /**
+     * Returns a new ring with one more shard; this ring is unchanged.
+     *
+     * @param name  the name of the new shard
+     * @param shard the new shard
+     * @return the ring including the new shard
+     * @throws IllegalArgumentException if the ring already has a shard with that name
+     */
+    public ConsistentHashRing<S> with(String name, S shard) {
+        if (shards.containsKey(name)) {
+            throw new IllegalArgumentException("The ring already has a shard named " + name);
+        }
+        Map<String, S> extended = new LinkedHashMap<>(shards);
+        extended.put(name, shard);
+        return new ConsistentHashRing<>(extended, virtualNodes);
+    }
+
+    /**
+     * Returns the shards of the ring by name.
+     */
+    public Map<String, S> shards() {
+        return shards;
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes, finished with mix so that similar names land far apart.
+     */
+    private static long hash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * The SplitMix64 finalizer; consecutive user IDs get unrelated positions on the ring.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
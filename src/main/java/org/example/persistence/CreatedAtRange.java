@@ -0,0 +1,34 @@
+package org.example.persistence;
+import java.util.List;
+
+/**
+ * Builds the created_at predicate of queries limited to a time window [from, to).
+ * Either end may be null for an open range, in which case no predicate is emitted for it,
+ * so the database can use an index range scan on (..., created_at) for the remaining bounds.
+ */
+final class CreatedAtRange {
+    private CreatedAtRange() {
+    }
+
+    /**
+     * Returns the predicate for the given column, starting with " AND", and appends its arguments.
+     *
+     * @param column the created_at column, qualified if needed
+     * @param from   inclusive lower bound in epoch milliseconds, or null
+     * @param to     exclusive upper bound in epoch milliseconds, or null
+     * @param args   the query arguments the bounds are appended to
+     * @return the predicate, or an empty string if both bounds are null
+     */
+    static String predicate(String column, Long from, Long to, List<Object> args) {
+        StringBuilder sql = new StringBuilder();
+        if (from != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND ").append(column).append(" < ?");
+            args.add(to);
+        }
+        return sql.toString();
+    }
+}
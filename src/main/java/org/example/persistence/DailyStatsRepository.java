@@ -0,0 +1,135 @@
+package org.example.persistence;
+import org.example.domain.DailyStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Repository for the user_daily_stats table, which holds the number of trips and warnings of each user
+ * per UTC day, with the created_at of the first and last trip of the day.
+ */
+@Component
+public class DailyStatsRepository implements IDailyStatsRepository {
+    private static final String UPDATE_SQL = "UPDATE user_daily_stats SET trip_count = trip_count + ?, warning_count = warning_count + ?, " +
+            "first_at = CASE WHEN ? < first_at THEN ? ELSE first_at END, last_at = CASE WHEN ? > last_at THEN ? ELSE last_at END " +
+            "WHERE user_id = ? AND stats_date = ?";
+    private static final String INSERT_SQL = "INSERT INTO user_daily_stats (user_id, stats_date, trip_count, warning_count, first_at, last_at) " +
+            "VALUES (?,?,?,?,?,?)";
+
+    // Days are always updated in key order, so concurrent writers cannot deadlock on each other's rows
+    private static final Comparator<DailyStats> KEY_ORDER = Comparator.comparingLong(DailyStats::getUser_id)
+            .thenComparing(DailyStats::getDay);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public DailyStatsRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Merges deltas of the same user and day, then adds them with one batched UPDATE; days that do not exist yet
+     * are then inserted one by one. If another writer inserts the same day first, the delta is added to its row instead.
+     *
+     * @param deltas the contributions to add, e.g. one per written report
+     * @throws RepositoryException if a data access error occurs
+     */
+    @Override
+    public void addAll(List<DailyStats> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Map<DailyStats, DailyStats> merged = new TreeMap<>(KEY_ORDER);
+        for (DailyStats delta : deltas) {
+            merged.merge(delta, delta, DailyStatsRepository::merge);
+        }
+        List<DailyStats> sorted = new ArrayList<>(merged.values());
+
+        try {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    DailyStats delta = sorted.get(i);
+                    ps.setLong(1, delta.getTrip_count());
+                    ps.setLong(2, delta.getWarning_count());
+                    ps.setLong(3, delta.getFirst_at());
+                    ps.setLong(4, delta.getFirst_at());
+                    ps.setLong(5, delta.getLast_at());
+                    ps.setLong(6, delta.getLast_at());
+                    ps.setLong(7, delta.getUser_id());
+                    ps.setObject(8, LocalDate.parse(delta.getDay()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return sorted.size();
+                }
+            });
+
+            for (int i = 0; i < sorted.size(); i++) {
+                // Any other value, including SUCCESS_NO_INFO, means the row existed and was updated
+                if (updated[i] == 0) {
+                    insert(sorted.get(i));
+                }
+            }
+        } catch (DataAccessException e) {
+            throw new RepositoryException("DailyStatsRepository: Failed to update daily statistics", e);
+        }
+    }
+
+    private void insert(DailyStats delta) {
+        LocalDate day = LocalDate.parse(delta.getDay());
+        try {
+            jdbcTemplate.update(INSERT_SQL, delta.getUser_id(), day, delta.getTrip_count(), delta.getWarning_count(),
+                    delta.getFirst_at(), delta.getLast_at());
+        } catch (DuplicateKeyException e) {
+            // Created by another writer in the meantime
+            jdbcTemplate.update(UPDATE_SQL, delta.getTrip_count(), delta.getWarning_count(), delta.getFirst_at(), delta.getFirst_at(),
+                    delta.getLast_at(), delta.getLast_at(), delta.getUser_id(), day);
+        }
+    }
+
+    private static DailyStats merge(DailyStats a, DailyStats b) {
+        return new DailyStats(a.getUser_id(), a.getDay(), a.getTrip_count() + b.getTrip_count(),
+                a.getWarning_count() + b.getWarning_count(), Math.min(a.getFirst_at(), b.getFirst_at()),
+                Math.max(a.getLast_at(), b.getLast_at()));
+    }
+
+    @Override
+    public List<DailyStats> getOfUser(Long user_id, LocalDate from, LocalDate to) {
+        List<Object> args = new ArrayList<>();
+        args.add(user_id);
+        StringBuilder sql = new StringBuilder("SELECT user_id, stats_date, trip_count, warning_count, first_at, last_at " +
+                "FROM user_daily_stats WHERE user_id = ?");
+        if (from != null) {
+            sql.append(" AND stats_date >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND stats_date <= ?");
+            args.add(to);
+        }
+        sql.append(" ORDER BY stats_date");
+
+        try {
+            return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new DailyStats(rs.getLong("user_id"),
+                    rs.getObject("stats_date", LocalDate.class).toString(), rs.getLong("trip_count"),
+                    rs.getLong("warning_count"), rs.getLong("first_at"), rs.getLong("last_at")), args.toArray());
+        } catch (DataAccessException e) {
+            throw new RepositoryException("DailyStatsRepository: Failed to fetch daily statistics", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.persistence;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geohash cell IDs of warning locations. A geohash is a base-32 string whose prefixes are
+ * the enclosing, larger cells, so all points of a cell share the cell's hash as prefix and
+ * "points in a cell" is a prefix (index range) match on the stored hash.
+ */
+final class Geohash {
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /** Precision stored with every warning: cells of about 4.8 m x 4.8 m. */
+    static final int STORED_PRECISION = 9;
+
+    private Geohash() {
+    }
+
+    /**
+     * Encodes a location as a geohash of the given length.
+     *
+     * @param lat       latitude, between -90 and 90
+     * @param lng       longitude, between -180 and 180
+     * @param precision number of characters, between 1 and 12
+     * @return the geohash of the cell containing the location
+     */
+    static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean lngBit = true;
+        int bits = 0;
+        int value = 0;
+
+        while (hash.length() < precision) {
+            if (lngBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    value = value << 1 | 1;
+                    minLng = mid;
+                } else {
+                    value <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    value = value << 1 | 1;
+                    minLat = mid;
+                } else {
+                    value <<= 1;
+                    maxLat = mid;
+                }
+            }
+            lngBit = !lngBit;
+
+            if (++bits == 5) {
+                hash.append(BASE32[value]);
+                bits = 0;
+                value = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Returns the geohash cells covering a bounding box, using the longest hashes for which
+     * at most maxCells cells are needed. Every point of the box lies in one of the cells;
+     * the cells may extend beyond the box, so matches still have to be filtered by lat/lng.
+     *
+     * @param minLat   southern edge of the box
+     * @param minLng   western edge of the box
+     * @param maxLat   northern edge of the box
+     * @param maxLng   eastern edge of the box, not smaller than minLng
+     * @param maxCells maximum number of cells to return
+     * @return the covering cells, as geohash prefixes
+     */
+    static List<String> cover(double minLat, double minLng, double maxLat, double maxLng, int maxCells) {
+        int precision = 1;
+        while (precision < STORED_PRECISION
+                && cellCount(minLat, minLng, maxLat, maxLng, precision + 1) <= maxCells) {
+            precision++;
+        }
+
+        int latBits = 5 * precision / 2;
+        int lngBits = 5 * precision - latBits;
+        double cellHeight = 180.0 / (1L << latBits);
+        double cellWidth = 360.0 / (1L << lngBits);
+
+        List<String> cells = new ArrayList<>();
+        for (long row = cellIndex(minLat + 90, cellHeight, latBits); row <= cellIndex(maxLat + 90, cellHeight, latBits); row++) {
+            for (long column = cellIndex(minLng + 180, cellWidth, lngBits); column <= cellIndex(maxLng + 180, cellWidth, lngBits); column++) {
+                // The center of a cell is encoded as that cell
+                cells.add(encode((row + 0.5) * cellHeight - 90, (column + 0.5) * cellWidth - 180, precision));
+            }
+        }
+        return cells;
+    }
+
+    private static long cellCount(double minLat, double minLng, double maxLat, double maxLng, int precision) {
+        int latBits = 5 * precision / 2;
+        int lngBits = 5 * precision - latBits;
+        double cellHeight = 180.0 / (1L << latBits);
+        double cellWidth = 360.0 / (1L << lngBits);
+        long rows = cellIndex(maxLat + 90, cellHeight, latBits) - cellIndex(minLat + 90, cellHeight, latBits) + 1;
+        long columns = cellIndex(maxLng + 180, cellWidth, lngBits) - cellIndex(minLng + 180, cellWidth, lngBits) + 1;
+        return rows * columns;
+    }
+
+    /**
+     * Index of the cell containing an offset from the lower edge, clamped to the last cell
+     * so that the upper edge (90 or 180) falls into it.
+     */
+    private static long cellIndex(double offset, double cellSize, int bits) {
+        return Math.min((long) Math.floor(offset / cellSize), (1L << bits) - 1);
+    }
+}
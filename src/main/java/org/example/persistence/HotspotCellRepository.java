@@ -0,0 +1,109 @@
+package org.example.persistence;
+import org.example.domain.HotspotCell;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Repository for the hotspot_cells table, which holds the number of warnings and their coordinate sums
+ * per (row_index, column_index) cell of the hotspot grid.
+ */
+@Component
+public class HotspotCellRepository implements IHotspotCellRepository {
+    private static final String UPDATE_SQL = "UPDATE hotspot_cells SET warning_count = warning_count + ?, lat_sum = lat_sum + ?, lng_sum = lng_sum + ? " +
+            "WHERE row_index = ? AND column_index = ?";
+    private static final String INSERT_SQL = "INSERT INTO hotspot_cells (row_index, column_index, warning_count, lat_sum, lng_sum) VALUES (?,?,?,?,?)";
+
+    // Cells are always updated in key order, so concurrent writers cannot deadlock on each other's rows
+    private static final Comparator<HotspotCell> KEY_ORDER = Comparator.comparingInt(HotspotCell::getRow_index)
+            .thenComparingInt(HotspotCell::getColumn_index);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    @Autowired
+    public HotspotCellRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(500);
+    }
+
+    /**
+     * Adds the given cells with one batched UPDATE; cells that do not exist yet are then inserted one by one.
+     * If another writer inserts the same cell first, the delta is added to its row instead.
+     * Should run inside a transaction so that a failure does not leave the deltas partially applied.
+     *
+     * @param deltas the cells with the warnings to add to each
+     * @throws RepositoryException if a data access error occurs
+     */
+    @Override
+    public void addCells(List<HotspotCell> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<HotspotCell> sorted = new ArrayList<>(deltas);
+        sorted.sort(KEY_ORDER);
+
+        try {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    HotspotCell cell = sorted.get(i);
+                    ps.setLong(1, cell.getWarning_count());
+                    ps.setDouble(2, cell.getLat_sum());
+                    ps.setDouble(3, cell.getLng_sum());
+                    ps.setInt(4, cell.getRow_index());
+                    ps.setInt(5, cell.getColumn_index());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return sorted.size();
+                }
+            });
+
+            for (int i = 0; i < sorted.size(); i++) {
+                // Any other value, including SUCCESS_NO_INFO, means the row existed and was updated
+                if (updated[i] == 0) {
+                    insert(sorted.get(i));
+                }
+            }
+        } catch (DataAccessException e) {
+            throw new RepositoryException("HotspotCellRepository: Failed to update cells", e);
+        }
+    }
+
+    private void insert(HotspotCell cell) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, cell.getRow_index(), cell.getColumn_index(), cell.getWarning_count(),
+                    cell.getLat_sum(), cell.getLng_sum());
+        } catch (DuplicateKeyException e) {
+            // Created by another writer in the meantime
+            jdbcTemplate.update(UPDATE_SQL, cell.getWarning_count(), cell.getLat_sum(), cell.getLng_sum(),
+                    cell.getRow_index(), cell.getColumn_index());
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<HotspotCell> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(new HotspotCell(rs.getInt("row_index"), rs.getInt("column_index"),
+                rs.getLong("warning_count"), rs.getDouble("lat_sum"), rs.getDouble("lng_sum")));
+        try {
+            streamingJdbcTemplate.query("SELECT row_index, column_index, warning_count, lat_sum, lng_sum FROM hotspot_cells", handler);
+        } catch (DataAccessException e) {
+            throw new RepositoryException("HotspotCellRepository: Failed to stream cells", e);
+        }
+    }
+}
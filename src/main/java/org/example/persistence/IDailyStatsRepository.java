@@ -0,0 +1,29 @@
+package org.example.persistence;
+import org.example.domain.DailyStats;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Interface for the per-user, per-day rollup of trips and warnings, kept up to date by every report write.
+ */
+public interface IDailyStatsRepository {
+    /**
+     * Adds the given trips and warnings to the stored days of their users, creating days seen for the first time;
+     * first_at and last_at are widened to include the deltas'. Should run in the transaction writing the reports.
+     *
+     * @param deltas the contributions to add, e.g. one per written report
+     * @throws RepositoryException if a data access error occurs
+     */
+    void addAll(List<DailyStats> deltas);
+
+    /**
+     * Retrieves the days of a user within a date range, oldest first; days without trips have no row.
+     *
+     * @param user_id the ID of the user
+     * @param from    the first day, inclusive, or null for no lower bound
+     * @param to      the last day, inclusive, or null for no upper bound
+     * @return the statistics of each day with at least one trip
+     * @throws RepositoryException if a data access error occurs
+     */
+    List<DailyStats> getOfUser(Long user_id, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,25 @@
+package org.example.persistence;
+import org.example.domain.HotspotCell;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Interface for the warning counts per cell of the hotspot grid, from which the hotspot clusters are rebuilt.
+ */
+public interface IHotspotCellRepository {
+    /**
+     * Adds the given counts and coordinate sums to the stored ones of their cells, creating cells seen for the first time.
+     *
+     * @param deltas the cells with the warnings to add to each
+     * @throws RepositoryException if a data access error occurs
+     */
+    void addCells(List<HotspotCell> deltas);
+
+    /**
+     * Streams every stored cell, in no particular order, without collecting them in memory.
+     *
+     * @param consumer receives the cells one at a time
+     * @throws RepositoryException if a data access error occurs
+     */
+    void forEach(Consumer<HotspotCell> consumer);
+}
@@ -1,6 +1,8 @@
 package org.example.persistence;
 import org.example.domain.Report;
+import org.example.domain.ReportSummary;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for managing Report entities in the repository.
@@ -15,4 +17,77 @@ public interface IReportRepository extends Repository<Long, Report> {
      * @throws RepositoryException if a data access error occurs
      */
     public List<Report> getAllOfUser(Long user);
+
+    /**
+     * Retrieves the reports of a user created in the window [from, to), newest first, with their warnings.
+     *
+     * @param user the ID of the user
+     * @param from inclusive lower bound of created_at in epoch milliseconds, or null for no lower bound
+     * @param to   exclusive upper bound of created_at in epoch milliseconds, or null for no upper bound
+     * @return the user's reports in the window
+     * @throws RepositoryException if a data access error occurs
+     */
+    public List<Report> getAllOfUser(Long user, Long from, Long to);
+
+    /**
+     * Retrieves one page of a user's reports, newest first, ordered by (created_at, id).
+     * The page starts right after the report identified by the cursor.
+     *
+     * @param user            the ID of the user
+     * @param cursorCreatedAt created_at of the last report of the previous page, or null for the first page
+     * @param cursorId        ID of the last report of the previous page, or null for the first page
+     * @param limit           maximum number of reports to return
+     * @return the reports of the page, including their warnings
+     * @throws RepositoryException if a data access error occurs
+     */
+    public List<Report> getPageOfUser(Long user, Long cursorCreatedAt, Long cursorId, int limit);
+
+    /**
+     * Adds all given reports using as few database round trips as possible.
+     * Only the report rows are written; reports without an ID are given one before the insert.
+     *
+     * @param reports the reports to add
+     * @return the same reports, with their IDs set
+     * @throws RepositoryException if a data access error occurs
+     */
+    public List<Report> addAll(List<Report> reports);
+
+    /**
+     * Streams all reports of a user, newest first, without collecting them in memory.
+     * Each report is passed to the consumer complete with its warnings.
+     *
+     * @param user     the ID of the user
+     * @param consumer receives the reports one at a time
+     * @throws RepositoryException if a data access error occurs
+     */
+    public void forEachOfUser(Long user, Consumer<Report> consumer);
+
+    /**
+     * Retrieves summaries of all reports of a user, newest first, with warnings counted in the database.
+     *
+     * @param user the ID of the user
+     * @return the summaries of the user's reports
+     * @throws RepositoryException if a data access error occurs
+     */
+    public List<ReportSummary> getSummariesOfUser(Long user);
+
+    /**
+     * Checks whether a report exists and belongs to the given user.
+     *
+     * @param reportId the ID of the report
+     * @param user     the ID of the user
+     * @return true if the report belongs to the user
+     * @throws RepositoryException if a data access error occurs
+     */
+    public boolean isOwnedBy(Long reportId, Long user);
+
+    /**
+     * Counts the reports of a user and finds the highest report ID, without loading any rows.
+     * Reports are only ever added, so together the two change whenever a report is added.
+     *
+     * @param user the ID of the user
+     * @return {count, highest ID}, with a highest ID of 0 if the user has no reports
+     * @throws RepositoryException if a data access error occurs
+     */
+    public long[] getCountAndMaxIdOfUser(Long user);
 }
@@ -1,10 +1,63 @@
 package org.example.persistence;
 import org.example.domain.Warning;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for managing Warning entities in the repository.
  * Inherits all CRUD operations from the generic {@link Repository} interface.
  */
 public interface IWarningRepository extends Repository<Long, Warning> {
+    /**
+     * Adds all given warnings using as few database round trips as possible.
+     * Warnings without an ID are given one before the insert.
+     *
+     * @param warnings the warnings to add
+     * @return the same warnings, with their IDs set
+     * @throws RepositoryException if a data access error occurs
+     */
+    List<Warning> addAll(List<Warning> warnings);
 
+    /**
+     * Retrieves all warnings of a report, in the order they were recorded.
+     *
+     * @param reportId the ID of the report
+     * @return the warnings of the report, empty if it has none
+     * @throws RepositoryException if a data access error occurs
+     */
+    List<Warning> getAllOfReport(Long reportId);
+
+    /**
+     * Retrieves the warnings of a report recorded in the window [from, to), in the order they were recorded.
+     * Warnings without a timestamp are only returned when both bounds are null.
+     *
+     * @param reportId the ID of the report
+     * @param from     inclusive lower bound of created_at in epoch milliseconds, or null for no lower bound
+     * @param to       exclusive upper bound of created_at in epoch milliseconds, or null for no upper bound
+     * @return the warnings of the report in the window
+     * @throws RepositoryException if a data access error occurs
+     */
+    List<Warning> getAllOfReport(Long reportId, Long from, Long to);
+
+    /**
+     * Retrieves the warnings of a user's reports located inside a bounding box, using the geohash index.
+     *
+     * @param userId the ID of the user owning the reports
+     * @param minLat southern edge of the box
+     * @param minLng western edge of the box
+     * @param maxLat northern edge of the box
+     * @param maxLng eastern edge of the box, not smaller than minLng
+     * @param limit  maximum number of warnings to return
+     * @return the warnings inside the box, edges included, in the order they were recorded
+     * @throws RepositoryException if a data access error occurs
+     */
+    List<Warning> getInBoxOfUser(Long userId, double minLat, double minLng, double maxLat, double maxLng, int limit);
+
+    /**
+     * Streams every warning in the database, in no particular order, without collecting them in memory.
+     *
+     * @param consumer receives the warnings one at a time
+     * @throws RepositoryException if a data access error occurs
+     */
+    void forEach(Consumer<Warning> consumer);
 }
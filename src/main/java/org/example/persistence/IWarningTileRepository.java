@@ -0,0 +1,30 @@
+package org.example.persistence;
+import org.example.domain.HeatmapTile;
+import java.util.List;
+
+/**
+ * Interface for the pre-aggregated warning counts per map tile.
+ */
+public interface IWarningTileRepository {
+    /**
+     * Adds the given counts to the stored counts of their tiles, creating tiles seen for the first time.
+     *
+     * @param deltas the tiles with the number of warnings to add to each
+     * @throws RepositoryException if a data access error occurs
+     */
+    void addCounts(List<HeatmapTile> deltas);
+
+    /**
+     * Retrieves the tiles of a zoom level inside a rectangle of tile indexes, bounds included.
+     * Tiles without warnings are not stored and therefore not returned.
+     *
+     * @param zoom the zoom level
+     * @param minX the westernmost column
+     * @param maxX the easternmost column
+     * @param minY the northernmost row
+     * @param maxY the southernmost row
+     * @return the tiles with at least one warning
+     * @throws RepositoryException if a data access error occurs
+     */
+    List<HeatmapTile> getTiles(int zoom, int minX, int maxX, int minY, int maxY);
+}
@@ -0,0 +1,147 @@
+package org.example.persistence;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out entity IDs from blocks reserved in the id_sequences table (hi-lo allocation).
+ * A block is reserved with one short transaction of its own, after which IDs are handed out
+ * from memory, so inserts do not need the database to generate keys and can be batched freely.
+ * Every node reserves disjoint blocks, so IDs stay unique across nodes; IDs left unused in
+ * a block when the node stops are simply skipped.
+ * <p>
+ * Each sequence is named after the table it numbers. The first time a sequence is used it is
+ * created starting after the highest ID already in that table.
+ */
+@Component
+public class IdAllocator {
+    public static final String REPORTS = "reports";
+    public static final String WARNINGS = "warnings";
+    public static final String USERS = "users";
+
+    private final DataSource dataSource;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * The range of IDs [next, end) currently reserved for a sequence.
+     */
+    private static final class Block {
+        long next;
+        long end;
+    }
+
+    @Autowired
+    public IdAllocator(DataSource dataSource, @Value("${ids.block-size:1000}") int blockSize) {
+        this.dataSource = dataSource;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next ID of the given sequence.
+     *
+     * @param sequence the sequence (table) name
+     * @return a new unique ID
+     * @throws RepositoryException if a block could not be reserved
+     */
+    public long next(String sequence) {
+        return next(sequence, 1);
+    }
+
+    /**
+     * Returns the first of {@code count} consecutive IDs of the given sequence.
+     *
+     * @param sequence the sequence (table) name
+     * @param count    how many IDs are needed
+     * @return the first ID of the range; the range is [first, first + count)
+     * @throws RepositoryException if a block could not be reserved
+     */
+    public long next(String sequence, int count) {
+        Block block = blocks.computeIfAbsent(sequence, s -> new Block());
+        synchronized (block) {
+            if (block.end - block.next < count) {
+                int size = Math.max(count, blockSize);
+                block.next = reserve(sequence, size);
+                block.end = block.next + size;
+            }
+            long first = block.next;
+            block.next += count;
+            return first;
+        }
+    }
+
+    /**
+     * Reserves {@code size} IDs in the database and returns the first one.
+     * The reservation uses a connection of its own rather than one bound to the caller's
+     * transaction, so the id_sequences row is locked only for this short transaction.
+     */
+    private long reserve(String sequence, int size) {
+        try {
+            try {
+                return reserveOnce(sequence, size);
+            } catch (SQLException e) {
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                    throw e;
+                }
+                // Another node created the sequence at the same time; it exists now
+                return reserveOnce(sequence, size);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("IdAllocator: Failed to reserve IDs for " + sequence, e);
+        }
+    }
+
+    private long reserveOnce(String sequence, int size) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long first = increment(connection, sequence, size);
+                connection.commit();
+                return first;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private long increment(Connection connection, String sequence, int size) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement("UPDATE id_sequences SET next_val = next_val + ? WHERE name = ?")) {
+            update.setLong(1, size);
+            update.setString(2, sequence);
+            if (update.executeUpdate() > 0) {
+                try (PreparedStatement select = connection.prepareStatement("SELECT next_val FROM id_sequences WHERE name = ?")) {
+                    select.setString(1, sequence);
+                    try (ResultSet rs = select.executeQuery()) {
+                        rs.next();
+                        return rs.getLong(1) - size;
+                    }
+                }
+            }
+        }
+
+        // First use of this sequence: start after the IDs already in the table
+        long start;
+        try (PreparedStatement max = connection.prepareStatement("SELECT COALESCE(MAX(id), 0) + 1 FROM " + sequence);
+             ResultSet rs = max.executeQuery()) {
+            rs.next();
+            start = rs.getLong(1);
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO id_sequences (name, next_val) VALUES (?, ?)")) {
+            insert.setString(1, sequence);
+            insert.setLong(2, start + size);
+            insert.executeUpdate();
+        }
+        return start;
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.persistence;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * DataSource sending the queries of read-only repository methods to a replica and everything else to the primary.
+ * Repositories mark their read-only methods by running them through readOnly; connections taken inside it come
+ * from the replica, all others from the primary.
+ * <p>
+ * A transaction keeps the connection it started with, so reads inside a write transaction still see its writes.
+ * Outside transactions, replica reads lag behind writes by the replica's delay. So that users still read their own
+ * writes, repositories record every write with recordWrite, and the reads of that user stay on the primary for a
+ * while after it. This only covers writes made through this instance; behind a load balancer, each user's
+ * requests must stick to one instance for the pinning to hold.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> false);
+
+    private final DataSource primary;
+    private final DataSource replica;
+    // Users who wrote within the pinning window, or null when pinning is disabled
+    private final Cache<Long, Boolean> recentWriters;
+
+    /**
+     * @param primary        the DataSource of the primary, which takes all writes
+     * @param replica        the DataSource of the replica
+     * @param pinAfterWrite  how long a user's reads stay on the primary after their last write; zero disables pinning
+     * @param maxPinnedUsers how many users are pinned at most; beyond that, the longest pinned are released early
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration pinAfterWrite, long maxPinnedUsers) {
+        this.primary = primary;
+        this.replica = replica;
+        this.recentWriters = pinAfterWrite.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(pinAfterWrite)
+                .maximumSize(maxPinnedUsers)
+                .build();
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs a read-only query; if the DataSource is a ReadWriteRoutingDataSource, its connections come from the
+     * replica, unless the calling thread is inside a transaction or the user wrote recently. With any other
+     * DataSource, the query simply runs on it.
+     *
+     * @param dataSource the DataSource of the calling repository
+     * @param userId     the ID of the user whose data is read, or null if it is not known
+     * @param query      the query, which must not write
+     * @return the result of the query
+     */
+    public static <T> T readOnly(DataSource dataSource, Long userId, Supplier<T> query) {
+        if (!(dataSource instanceof ReadWriteRoutingDataSource routing) || routing.isPinned(userId)) {
+            return query.get();
+        }
+
+        boolean previous = READ_ONLY.get();
+        READ_ONLY.set(true);
+        try {
+            return query.get();
+        } finally {
+            READ_ONLY.set(previous);
+        }
+    }
+
+    /**
+     * Records that data of a user was written, so their reads stay on the primary for the pinning window.
+     * Inside a transaction, the window starts again once the transaction ends.
+     * Does nothing unless the DataSource is a ReadWriteRoutingDataSource.
+     *
+     * @param dataSource the DataSource of the calling repository
+     * @param userId     the ID of the user whose data was written
+     */
+    public static void recordWrite(DataSource dataSource, Long userId) {
+        if (!(dataSource instanceof ReadWriteRoutingDataSource routing) || routing.recentWriters == null || userId == null) {
+            return;
+        }
+
+        routing.recentWriters.put(userId, Boolean.TRUE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    routing.recentWriters.put(userId, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    private boolean isPinned(Long userId) {
+        return userId != null && recentWriters != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return READ_ONLY.get() ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    /**
+     * Closes the connection pools of the primary and the replica when the application stops.
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataSource target : new DataSource[]{replica, primary}) {
+            if (target instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.persistence;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Replaces the application's DataSource with a ReadWriteRoutingDataSource once a read replica is configured
+ * with {@code spring.datasource.replica.url}. The primary is still configured by the spring.datasource properties;
+ * the replica's credentials and driver default to the primary's. After a write, the user's reads stay on the primary
+ * for {@code spring.datasource.replica.pin-after-write-ms}, which should exceed the usual replication delay.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * The only DataSource bean, so that repositories, transactions and Spring Boot's own users all share the routing.
+     */
+    @Bean
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties properties,
+                                                 @Value("${spring.datasource.replica.url}") String replicaUrl,
+                                                 @Value("${spring.datasource.replica.username:#{null}}") String replicaUsername,
+                                                 @Value("${spring.datasource.replica.password:#{null}}") String replicaPassword,
+                                                 @Value("${spring.datasource.replica.pin-after-write-ms:5000}") long pinAfterWriteMs,
+                                                 @Value("${spring.datasource.replica.max-pinned-users:100000}") long maxPinnedUsers) {
+        DataSource primary = properties.initializeDataSourceBuilder().build();
+        DataSource replica = DataSourceBuilder.create()
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername != null ? replicaUsername : properties.determineUsername())
+                .password(replicaPassword != null ? replicaPassword : properties.determinePassword())
+                .build();
+        return new ReadWriteRoutingDataSource(primary, replica, Duration.ofMillis(pinAfterWriteMs), maxPinnedUsers);
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.persistence;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.domain.DailyStats;
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for report inserts, enabled with {@code reports.group-commit.enabled=true}.
+ * Reports submitted by concurrent requests are collected for up to a few milliseconds and
+ * written together: one batched insert for all report rows, one for all their warnings,
+ * one batched update of their users' daily statistics and a single commit. Each caller's future completes with its own report and generated ID.
+ * If a group fails, its reports are retried one by one so a single bad report
+ * does not fail the reports it happened to be grouped with.
+ */
+@Component
+@ConditionalOnProperty(name = "reports.group-commit.enabled", havingValue = "true")
+public class ReportGroupCommitter {
+    private static final long IDLE_POLL_MILLIS = 200;
+
+    private final IReportRepository reportRepository;
+    private final IWarningRepository warningRepository;
+    private final IDailyStatsRepository dailyStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingReport> pending = new LinkedBlockingQueue<>();
+    private final long maxDelayNanos;
+    private final int maxGroupSize;
+    private final DistributionSummary groupSizes;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    /**
+     * A report waiting to be written, together with the future of its caller.
+     */
+    private record PendingReport(Report report, CompletableFuture<Report> future) {}
+
+    /**
+     * Creates the committer and starts its flusher thread.
+     *
+     * @param dataSource           the DataSource the repositories write to
+     * @param reportRepository     repository used for the batched report inserts
+     * @param warningRepository    repository used for the batched warning inserts
+     * @param dailyStatsRepository repository used for the batched daily statistics updates
+     * @param meterRegistry        registry for the group size metric
+     * @param maxDelayMillis       how long the first report of a group may wait for others
+     * @param maxGroupSize         maximum number of reports written in one transaction
+     */
+    public ReportGroupCommitter(DataSource dataSource,
+                                IReportRepository reportRepository,
+                                IWarningRepository warningRepository,
+                                IDailyStatsRepository dailyStatsRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${reports.group-commit.max-delay-ms:5}") long maxDelayMillis,
+                                @Value("${reports.group-commit.max-group-size:200}") int maxGroupSize) {
+        this.reportRepository = reportRepository;
+        this.warningRepository = warningRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.maxGroupSize = maxGroupSize;
+        this.groupSizes = meterRegistry.summary("reports.group-commit.size");
+
+        this.flusher = new Thread(this::run, "report-group-commit");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a validated report, with its warnings, for the next group commit.
+     *
+     * @param report the report to be saved, including its warnings
+     * @return a future completed with the saved report, or exceptionally with a RepositoryException
+     */
+    public CompletableFuture<Report> submit(Report report) {
+        CompletableFuture<Report> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new RepositoryException("ReportGroupCommitter: Shutting down"));
+            return future;
+        }
+        pending.add(new PendingReport(report, future));
+        return future;
+    }
+
+    /**
+     * Flusher loop: waits for a first report, then gathers more until the delay or group size limit is hit.
+     */
+    private void run() {
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingReport first = pending.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<PendingReport> group = new ArrayList<>();
+                group.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < maxGroupSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingReport next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+
+                flush(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes a group in one transaction; if that fails, falls back to one transaction per report.
+     */
+    private void flush(List<PendingReport> group) {
+        groupSizes.record(group.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(group));
+            group.forEach(p -> p.future().complete(p.report()));
+            return;
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).future().completeExceptionally(asRepositoryException(e));
+                return;
+            }
+        }
+
+        for (PendingReport p : group) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(List.of(p)));
+                p.future().complete(p.report());
+            } catch (RuntimeException e) {
+                p.future().completeExceptionally(asRepositoryException(e));
+            }
+        }
+    }
+
+    private void write(List<PendingReport> group) {
+        List<Report> reports = new ArrayList<>(group.size());
+        for (PendingReport p : group) {
+            reports.add(p.report());
+        }
+        reportRepository.addAll(reports);
+
+        List<Warning> warnings = new ArrayList<>();
+        for (Report report : reports) {
+            for (Warning warning : report.getWarnings()) {
+                warning.setReport_id(report.getId());
+                warnings.add(warning);
+            }
+        }
+        warningRepository.addAll(warnings);
+
+        List<DailyStats> stats = new ArrayList<>(reports.size());
+        for (Report report : reports) {
+            stats.add(DailyStats.ofReport(report, report.getWarnings().size()));
+        }
+        dailyStatsRepository.addAll(stats);
+    }
+
+    private static RepositoryException asRepositoryException(RuntimeException e) {
+        return e instanceof RepositoryException repositoryException
+                ? repositoryException
+                : new RepositoryException("ReportGroupCommitter: Failed to commit report", e);
+    }
+
+    /**
+     * Stops accepting reports and waits for the pending ones to be written.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Anything submitted while shutting down is failed rather than left hanging
+        PendingReport p;
+        while ((p = pending.poll()) != null) {
+            p.future().completeExceptionally(new RepositoryException("ReportGroupCommitter: Shutting down"));
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package org.example.persistence;
 import org.example.domain.Report;
+import org.example.domain.ReportSummary;
 import org.example.domain.Warning;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Repository class responsible for managing Report entities in the database.
@@ -18,19 +21,100 @@ import java.util.*;
  */
 @Component
 public class ReportRepository implements IReportRepository {
+    private static final String INSERT_SQL = "INSERT INTO reports (id, user_id, start_lat, start_lng, end_lat, end_lng, created_at) VALUES (?,?,?,?,?,?,?)";
+
+    // Reports joined with their warnings; callers append the WHERE and ORDER BY
+    private static final String JOINED_SELECT = "SELECT \n" +
+            "    R.id AS report_id, R.start_lat, R.start_lng, R.end_lat, R.end_lng, R.created_at as r_created_at, R.user_id,\n" +
+            "    W.id AS warning_id, W.type_code, W.lat, W.lng, W.created_at as w_created_at, W.report_id\n" +
+            "FROM reports R\n" +
+            "LEFT JOIN warnings W ON R.id = W.report_id\n";
+    // Reports of a user joined with their warnings; callers append the ORDER BY
+    private static final String JOINED_SQL = JOINED_SELECT + "WHERE R.user_id = ?\n";
+
+    // Report IDs per warnings query; SQL Server allows at most 2100 parameters per statement
+    private static final int IN_LIST_CHUNK = 500;
+
+    /**
+     * How getAllOfUser loads reports together with their warnings.
+     */
+    public enum FetchStrategy {
+        /** One LEFT JOIN query; report columns are repeated on every warning row. */
+        JOIN,
+        /** Report rows first, then their warnings with chunked IN-list queries. */
+        TWO_PHASE
+    }
 
     private final DataSource dataSource;
     private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    private final WarningTypeDictionary typeDictionary;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private FetchStrategy fetchStrategy = FetchStrategy.JOIN;
 
     @Autowired
-    public ReportRepository(DataSource dataSource) {
+    public ReportRepository(DataSource dataSource, IdAllocator idAllocator, WarningTypeDictionary typeDictionary) {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.idAllocator = idAllocator;
+        this.typeDictionary = typeDictionary;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(500);
+    }
+
+    /**
+     * Selects the fetch strategy of getAllOfUser from the reports.fetch-strategy property
+     * ("join" or "two-phase").
+     *
+     * @param fetchStrategy the name of the strategy
+     */
+    @Value("${reports.fetch-strategy:join}")
+    public void setFetchStrategy(String fetchStrategy) {
+        this.fetchStrategy = FetchStrategy.valueOf(fetchStrategy.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    /**
+     * Sets how many rows forEachOfUser asks the driver to fetch per round trip,
+     * from the reports.stream.fetch-size property.
+     *
+     * @param fetchSize the number of rows per fetch
+     */
+    @Value("${reports.stream.fetch-size:500}")
+    public void setStreamFetchSize(int fetchSize) {
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
     }
 
+    /**
+     * Finds a report together with its warnings in a single query, using the primary key of reports
+     * and the report_id index of warnings. With a read replica, a report not found there yet is looked up
+     * again on the primary; reports are not changed once written, so one found on the replica is current.
+     *
+     * @param aLong the ID of the report
+     * @return an Optional containing the report with its warnings, or empty if no such report exists
+     * @throws RepositoryException if a data access error occurs
+     */
     @Override
     public Optional<Report> findOne(Long aLong) {
-        return Optional.empty();
+        Optional<Report> found = ReadWriteRoutingDataSource.readOnly(dataSource, null, () -> find(aLong));
+        return found.isPresent() ? found : find(aLong);
+    }
+
+    /**
+     * Same as findOne, but always on the DataSource writes go to, e.g. to read a report about to be deleted.
+     */
+    private Optional<Report> find(Long aLong) {
+        String sql = JOINED_SELECT + "WHERE R.id = ?\n" +
+                "ORDER BY W.id";
+
+        try {
+            List<Report> found = new ArrayList<>(1);
+            ReportRowHandler handler = new ReportRowHandler(found::add);
+            jdbcTemplate.query(sql, handler, aLong);
+            handler.finish();
+            return found.stream().findFirst();
+        } catch (DataAccessException e) {
+            throw new RepositoryException("ReportRepository: Failed to find report", e);
+        }
     }
 
     @Override
@@ -38,45 +122,103 @@ public class ReportRepository implements IReportRepository {
         return null;
     }
 
+    /**
+     * Adds a new Report to the database.
+     * The ID is taken from the IdAllocator unless the report already carries a reserved one.
+     *
+     * @param entity the Report to be added
+     * @return an Optional containing the inserted Report with its ID, or empty if nothing was inserted
+     * @throws RepositoryException if a database access error occurs
+     */
     @Override
     public Optional<Report> add(Report entity) {
         try {
-            String sql = "INSERT INTO reports (user_id, start_lat, start_lng, end_lat, end_lng, created_at) VALUES (?,?,?,?,?,?)";
-
-            KeyHolder keyHolder = new GeneratedKeyHolder();
-
-            jdbcTemplate.update(connection -> {
-                PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-                ps.setLong(1, entity.getUser_id());
-                ps.setDouble(2, entity.getStart_lat());
-                ps.setDouble(3, entity.getStart_lng());
-                ps.setDouble(4, entity.getEnd_lat());
-                ps.setDouble(5, entity.getEnd_lng());
-                ps.setLong(6, entity.getCreated_at());
-                return ps;
-            }, keyHolder);
-
-            if (keyHolder.getKey() != null) {
-                entity.setId(keyHolder.getKey().longValue());
-                return Optional.of(entity);
-            } else {
-                return Optional.empty();
-            }
+            assignIds(List.of(entity));
+
+            int affectedRows = jdbcTemplate.update(INSERT_SQL, ps -> setParameters(ps, entity));
+            ReadWriteRoutingDataSource.recordWrite(dataSource, entity.getUser_id());
+
+            return affectedRows > 0 ? Optional.of(entity) : Optional.empty();
         } catch (DataAccessException e) {
             throw new RepositoryException("ReportRepository: Failed to add report", e);
         }
     }
 
+    @Override
+    public List<Report> addAll(List<Report> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+
+        try {
+            assignIds(entities);
+
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setParameters(ps, entities.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return entities.size();
+                }
+            });
+            for (Report entity : entities) {
+                ReadWriteRoutingDataSource.recordWrite(dataSource, entity.getUser_id());
+            }
+            return entities;
+        } catch (DataAccessException e) {
+            throw new RepositoryException("ReportRepository: Failed to add reports", e);
+        }
+    }
+
+    /**
+     * Gives every report without an ID one from a single contiguous range of the allocator.
+     */
+    private void assignIds(List<Report> entities) {
+        int missing = 0;
+        for (Report entity : entities) {
+            if (entity.getId() == null) {
+                missing++;
+            }
+        }
+        if (missing == 0) {
+            return;
+        }
+
+        long nextId = idAllocator.next(IdAllocator.REPORTS, missing);
+        for (Report entity : entities) {
+            if (entity.getId() == null) {
+                entity.setId(nextId++);
+            }
+        }
+    }
+
+    /**
+     * Binds the columns of a report insert.
+     */
+    private static void setParameters(PreparedStatement ps, Report entity) throws SQLException {
+        ps.setLong(1, entity.getId());
+        ps.setLong(2, entity.getUser_id());
+        ps.setDouble(3, entity.getStart_lat());
+        ps.setDouble(4, entity.getStart_lng());
+        ps.setDouble(5, entity.getEnd_lat());
+        ps.setDouble(6, entity.getEnd_lng());
+        ps.setLong(7, entity.getCreated_at());
+    }
+
     @Override
     public Optional<Report> delete(Long aLong) {
         try {
-            Optional<Report> entityOpt = findOne(aLong);
+            Optional<Report> entityOpt = find(aLong);
 
             if (entityOpt.isEmpty()) {
                 return Optional.empty();
             }
 
             int affectedRows = jdbcTemplate.update("DELETE FROM reports WHERE id = ?", aLong);
+            ReadWriteRoutingDataSource.recordWrite(dataSource, entityOpt.get().getUser_id());
 
             return affectedRows > 0 ? entityOpt : Optional.empty();
         } catch (DataAccessException e) {
@@ -89,14 +231,258 @@ public class ReportRepository implements IReportRepository {
         return Optional.empty();
     }
 
+    /**
+     * Returns one page of a user's reports, newest first, using keyset pagination on (created_at, id).
+     * Reports are read with a single index range scan on (user_id, created_at DESC, id DESC) and their
+     * warnings with one follow-up query, so the cost of a page does not depend on how deep it is.
+     *
+     * @param userId          the ID of the user
+     * @param cursorCreatedAt created_at of the last report of the previous page, or null for the first page
+     * @param cursorId        ID of the last report of the previous page, or null for the first page
+     * @param limit           maximum number of reports to return
+     * @return the reports of the page, including their warnings
+     * @throws RepositoryException if a data access error occurs
+     */
+    @Override
+    public List<Report> getPageOfUser(Long userId, Long cursorCreatedAt, Long cursorId, int limit) {
+        String columns = "SELECT id, user_id, start_lat, start_lng, end_lat, end_lng, created_at FROM reports\n";
+        String order = "ORDER BY created_at DESC, id DESC\n" +
+                "OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+
+        try {
+            List<Report> reports;
+            if (cursorCreatedAt == null || cursorId == null) {
+                reports = jdbcTemplate.query(columns +
+                        "WHERE user_id = ?\n" + order,
+                        (rs, rowNum) -> mapReport(rs), userId, limit);
+            } else {
+                reports = jdbcTemplate.query(columns +
+                        "WHERE user_id = ? AND (created_at < ? OR (created_at = ? AND id < ?))\n" + order,
+                        (rs, rowNum) -> mapReport(rs), userId, cursorCreatedAt, cursorCreatedAt, cursorId, limit);
+            }
+
+            loadWarnings(reports);
+            return reports;
+        } catch (DataAccessException e) {
+            throw new RepositoryException("ReportRepository: Failed to get page of reports of user", e);
+        }
+    }
+
+    /**
+     * Fills in the warnings of the given reports with IN-list queries of at most IN_LIST_CHUNK report IDs.
+     */
+    private void loadWarnings(List<Report> reports) {
+        if (reports.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Report> reportMap = new HashMap<>();
+        for (Report report : reports) {
+            report.setWarnings(new ArrayList<>());
+            reportMap.put(report.getId(), report);
+        }
+
+        List<Long> reportIds = new ArrayList<>(reportMap.keySet());
+        for (int from = 0; from < reportIds.size(); from += IN_LIST_CHUNK) {
+            List<Long> chunk = reportIds.subList(from, Math.min(from + IN_LIST_CHUNK, reportIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT id, report_id, type_code, lat, lng, created_at FROM warnings\n" +
+                    "WHERE report_id IN (" + placeholders + ")\n" +
+                    "ORDER BY report_id, id";
+
+            jdbcTemplate.query(sql, rs -> {
+                Warning warning = new Warning();
+                warning.setId(rs.getLong("id"));
+                warning.setReport_id(rs.getLong("report_id"));
+                warning.setText(typeDictionary.textOf(rs.getInt("type_code")));
+                warning.setLat(rs.getDouble("lat"));
+                warning.setLng(rs.getDouble("lng"));
+                warning.setCreated_at(rs.getLong("created_at"));
+                reportMap.get(warning.getReport_id()).getWarnings().add(warning);
+            }, chunk.toArray());
+        }
+    }
+
+    private static Report mapReport(ResultSet rs) throws SQLException {
+        Report report = new Report();
+        report.setId(rs.getLong("id"));
+        report.setUser_id(rs.getLong("user_id"));
+        report.setStart_lat(rs.getDouble("start_lat"));
+        report.setStart_lng(rs.getDouble("start_lng"));
+        report.setEnd_lat(rs.getDouble("end_lat"));
+        report.setEnd_lng(rs.getDouble("end_lng"));
+        report.setCreated_at(rs.getLong("created_at"));
+        return report;
+    }
+
+    /**
+     * Retrieves all reports of a user with their warnings, newest first,
+     * using the configured fetch strategy.
+     *
+     * @param userId the ID of the user
+     * @return the user's reports, including their warnings
+     * @throws RepositoryException if a data access error occurs
+     */
     @Override
     public List<Report> getAllOfUser(Long userId) {
-        String sql = "SELECT \n" +
-                "    R.id AS report_id, R.start_lat, R.start_lng, R.end_lat, R.end_lng, R.created_at as r_created_at, R.user_id,\n" +
-                "    W.id AS warning_id, W.text, W.lat, W.lng, W.created_at as w_created_at, W.report_id\n" +
+        return getAllOfUser(userId, null, null);
+    }
+
+    /**
+     * Retrieves the reports of a user created in [from, to) with their warnings, newest first,
+     * using the configured fetch strategy. The bounds are pushed down as created_at predicates
+     * on the (user_id, created_at, id) index, so only reports inside the window are read.
+     *
+     * @param userId the ID of the user
+     * @param from   inclusive lower bound of created_at, or null
+     * @param to     exclusive upper bound of created_at, or null
+     * @return the user's reports in the window, including their warnings
+     * @throws RepositoryException if a data access error occurs
+     */
+    @Override
+    public List<Report> getAllOfUser(Long userId, Long from, Long to) {
+        return ReadWriteRoutingDataSource.readOnly(dataSource, userId, () -> fetchStrategy == FetchStrategy.TWO_PHASE
+                ? getAllOfUserTwoPhase(userId, from, to)
+                : getAllOfUserJoined(userId, from, to));
+    }
+
+    @Override
+    public List<ReportSummary> getSummariesOfUser(Long userId) {
+        String sql = "SELECT R.id, R.user_id, R.start_lat, R.start_lng, R.end_lat, R.end_lng, R.created_at,\n" +
+                "    COUNT(W.id) AS warning_count\n" +
                 "FROM reports R\n" +
                 "LEFT JOIN warnings W ON R.id = W.report_id\n" +
                 "WHERE R.user_id = ?\n" +
+                "GROUP BY R.id, R.user_id, R.start_lat, R.start_lng, R.end_lat, R.end_lng, R.created_at\n" +
+                "ORDER BY R.created_at DESC, R.id DESC";
+
+        try {
+            return jdbcTemplate.query(sql, (rs, rowNum) -> {
+                ReportSummary summary = new ReportSummary();
+                summary.setId(rs.getLong("id"));
+                summary.setUser_id(rs.getLong("user_id"));
+                summary.setStart_lat(rs.getDouble("start_lat"));
+                summary.setStart_lng(rs.getDouble("start_lng"));
+                summary.setEnd_lat(rs.getDouble("end_lat"));
+                summary.setEnd_lng(rs.getDouble("end_lng"));
+                summary.setCreated_at(rs.getLong("created_at"));
+                summary.setWarning_count(rs.getLong("warning_count"));
+                return summary;
+            }, userId);
+        } catch (DataAccessException e) {
+            throw new RepositoryException("ReportRepository: Failed to get report summaries of user", e);
+        }
+    }
+
+    @Override
+    public boolean isOwnedBy(Long reportId, Long userId) {
+        try {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM reports WHERE id = ? AND user_id = ?", Integer.class, reportId, userId);
+            return count != null && count > 0;
+        } catch (DataAccessException e) {
+            throw new RepositoryException("ReportRepository: Failed to check report owner", e);
+        }
+    }
+
+    @Override
+    public long[] getCountAndMaxIdOfUser(Long userId) {
+        try {
+            return jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*), COALESCE(MAX(id), 0) FROM reports WHERE user_id = ?",
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, userId);
+        } catch (DataAccessException e) {
+            throw new RepositoryException("ReportRepository: Failed to get report version of user", e);
+        }
+    }
+
+    /**
+     * Passes each of a user's reports, with its warnings, to the consumer as soon as its rows have been read.
+     * Rows are ordered so that the rows of a report are contiguous, and only the current report is held in memory.
+     *
+     * @param userId   the ID of the user
+     * @param consumer receives the reports, newest first
+     * @throws RepositoryException if a data access error occurs
+     */
+    @Override
+    public void forEachOfUser(Long userId, Consumer<Report> consumer) {
+        String sql = JOINED_SQL + "ORDER BY R.created_at DESC, R.id DESC";
+
+        try {
+            ReportRowHandler handler = new ReportRowHandler(consumer);
+            streamingJdbcTemplate.query(sql, handler, userId);
+            handler.finish();
+        } catch (DataAccessException e) {
+            throw new RepositoryException("ReportRepository: Failed to stream reports of user", e);
+        }
+    }
+
+    /**
+     * Assembles reports from contiguous joined rows and hands each one over once its last row has been read.
+     */
+    private class ReportRowHandler implements RowCallbackHandler {
+        private final Consumer<Report> consumer;
+        private Report current;
+
+        private ReportRowHandler(Consumer<Report> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long reportId = rs.getLong("report_id");
+            if (current == null || current.getId() != reportId) {
+                finish();
+                current = new Report();
+                current.setId(reportId);
+                current.setUser_id(rs.getLong("user_id"));
+                current.setStart_lat(rs.getDouble("start_lat"));
+                current.setStart_lng(rs.getDouble("start_lng"));
+                current.setEnd_lat(rs.getDouble("end_lat"));
+                current.setEnd_lng(rs.getDouble("end_lng"));
+                current.setCreated_at(rs.getLong("r_created_at"));
+                current.setWarnings(new ArrayList<>());
+            }
+
+            long warningId = rs.getLong("warning_id");
+            if (!rs.wasNull()) {
+                Warning warning = new Warning();
+                warning.setId(warningId);
+                warning.setText(typeDictionary.textOf(rs.getInt("type_code")));
+                warning.setLat(rs.getDouble("lat"));
+                warning.setLng(rs.getDouble("lng"));
+                warning.setCreated_at(rs.getLong("w_created_at"));
+                warning.setReport_id(reportId);
+                current.getWarnings().add(warning);
+            }
+        }
+
+        private void finish() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+            }
+        }
+    }
+
+    private List<Report> getAllOfUserTwoPhase(Long userId, Long from, Long to) {
+        List<Object> args = new ArrayList<>(List.of(userId));
+        String sql = "SELECT id, user_id, start_lat, start_lng, end_lat, end_lng, created_at FROM reports\n" +
+                "WHERE user_id = ?" + CreatedAtRange.predicate("created_at", from, to, args) + "\n" +
+                "ORDER BY created_at DESC, id DESC";
+
+        try {
+            List<Report> reports = jdbcTemplate.query(sql, (rs, rowNum) -> mapReport(rs), args.toArray());
+            loadWarnings(reports);
+            return reports;
+        } catch (DataAccessException e) {
+            throw new RepositoryException("ReportRepository: Failed to get all reports of user", e);
+        }
+    }
+
+    private List<Report> getAllOfUserJoined(Long userId, Long from, Long to) {
+        List<Object> args = new ArrayList<>(List.of(userId));
+        String sql = JOINED_SELECT + "WHERE R.user_id = ?" + CreatedAtRange.predicate("R.created_at", from, to, args) + "\n" +
                 "ORDER BY R.created_at DESC";
 
         try {
@@ -124,7 +510,7 @@ public class ReportRepository implements IReportRepository {
                         if (!rs.wasNull()) {
                             Warning warning = new Warning();
                             warning.setId(warningId);
-                            warning.setText(rs.getString("text"));
+                            warning.setText(typeDictionary.textOf(rs.getInt("type_code")));
                             warning.setLat(rs.getDouble("lat"));
                             warning.setLng(rs.getDouble("lng"));
                             warning.setCreated_at(rs.getLong("w_created_at"));
@@ -134,7 +520,7 @@ public class ReportRepository implements IReportRepository {
                     }
                     return new ArrayList<>(reportMap.values());
                 }
-            }, userId);
+            }, args.toArray());
         } catch (DataAccessException e) {
             throw new RepositoryException("ReportRepository: Failed to get all reports of user", e);
         }
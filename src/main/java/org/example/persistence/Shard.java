@@ -0,0 +1,206 @@
+package org.example.persistence;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One database holding the reports and warnings of the users a ConsistentHashRing assigns to it.
+ * The shard's repositories take their IDs and warning types from the allocator and dictionary of the
+ * main database, so IDs are unique across shards and a user's rows can move between shards unchanged.
+ * <p>
+ * A shard database only needs the reports and warnings tables and their indexes; there are no foreign
+ * keys to Users or warning_types, which live in the main database.
+ */
+public final class Shard {
+    private final String name;
+    private final DataSource dataSource;
+    private final ReportRepository reports;
+    private final WarningRepository warnings;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceTransactionManager transactionManager;
+
+    public Shard(String name, DataSource dataSource, IdAllocator idAllocator, WarningTypeDictionary typeDictionary) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.reports = new ReportRepository(dataSource, idAllocator, typeDictionary);
+        this.warnings = new WarningRepository(dataSource, idAllocator, typeDictionary);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * The reports of this shard; callers join the calling transaction first, see joinCallerTransaction.
+     */
+    ReportRepository reports() {
+        return reports;
+    }
+
+    /**
+     * The warnings of this shard; callers join the calling transaction first, see joinCallerTransaction.
+     */
+    WarningRepository warnings() {
+        return warnings;
+    }
+
+    /**
+     * Makes the following statements of this thread on this shard part of the calling transaction, if there is one.
+     * The transaction's synchronization commits the shard right before the caller's own DataSource and rolls it
+     * back with the caller (best-effort one-phase commit): a failing shard commit rolls the caller back, but a
+     * failure of the caller's commit after the shard committed leaves the shard's writes in place.
+     * Nothing is done outside transactions, where every statement commits on its own.
+     */
+    void joinCallerTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(dataSource)) {
+            return;
+        }
+
+        // Bound like the connection of a transaction, so the repositories' JdbcTemplates use it and leave it open
+        ConnectionHolder holder = new ConnectionHolder(openTransactionalConnection(), true);
+        holder.setSynchronizedWithTransaction(true);
+        TransactionSynchronizationManager.bindResource(dataSource, holder);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committed;
+            private boolean released;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                try {
+                    holder.getConnection().commit();
+                    committed = true;
+                } catch (SQLException e) {
+                    released = true;
+                    release(holder, false);
+                    throw new RepositoryException("Shard " + name + ": Failed to commit", e);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!released) {
+                    released = true;
+                    release(holder, committed);
+                }
+            }
+        });
+    }
+
+    private Connection openTransactionalConnection() {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            return connection;
+        } catch (SQLException e) {
+            DataSourceUtils.releaseConnection(connection, null);
+            throw new RepositoryException("Shard " + name + ": Failed to open a transaction", e);
+        }
+    }
+
+    /**
+     * Rolls back the connection joined to the caller's transaction unless it was committed, then unbinds it and
+     * gives it back to the pool. Done on the connection itself: when afterCompletion runs, synchronization has
+     * been cleared, so the shard's transaction manager could no longer complete a transaction.
+     */
+    private void release(ConnectionHolder holder, boolean committed) {
+        Connection connection = holder.getConnection();
+        try {
+            if (!committed) {
+                connection.rollback();
+            }
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            throw new RepositoryException("Shard " + name + ": Failed to roll back", e);
+        } finally {
+            TransactionSynchronizationManager.unbindResourceIfPossible(dataSource);
+            holder.clear();
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Returns the owner of a report stored on this shard.
+     *
+     * @param reportId the ID of the report
+     * @return the ID of the report's user, or empty if the report is not on this shard
+     * @throws RepositoryException if a data access error occurs
+     */
+    Optional<Long> findUserOfReport(long reportId) {
+        try {
+            return jdbcTemplate.queryForList("SELECT user_id FROM reports WHERE id = ?", Long.class, reportId)
+                    .stream().findFirst();
+        } catch (DataAccessException e) {
+            throw new RepositoryException("Shard " + name + ": Failed to find owner of report", e);
+        }
+    }
+
+    /**
+     * Returns the IDs of the reports of a user stored on this shard.
+     *
+     * @throws RepositoryException if a data access error occurs
+     */
+    List<Long> getReportIdsOfUser(long userId) {
+        try {
+            return jdbcTemplate.queryForList("SELECT id FROM reports WHERE user_id = ?", Long.class, userId);
+        } catch (DataAccessException e) {
+            throw new RepositoryException("Shard " + name + ": Failed to list reports of user", e);
+        }
+    }
+
+    /**
+     * Returns the IDs of all users with reports on this shard.
+     *
+     * @throws RepositoryException if a data access error occurs
+     */
+    List<Long> getUsers() {
+        try {
+            return jdbcTemplate.queryForList("SELECT DISTINCT user_id FROM reports", Long.class);
+        } catch (DataAccessException e) {
+            throw new RepositoryException("Shard " + name + ": Failed to list users", e);
+        }
+    }
+
+    /**
+     * Deletes all reports of a user, and their warnings, from this shard.
+     *
+     * @throws RepositoryException if a data access error occurs
+     */
+    void deleteUser(long userId) {
+        try {
+            jdbcTemplate.update("DELETE FROM reports WHERE user_id = ?", userId);
+        } catch (DataAccessException e) {
+            throw new RepositoryException("Shard " + name + ": Failed to delete reports of user", e);
+        }
+    }
+
+    /**
+     * Returns a template running its callback in a transaction of this shard alone.
+     */
+    TransactionTemplate newTransactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
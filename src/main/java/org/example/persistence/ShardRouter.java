@@ -0,0 +1,364 @@
+package org.example.persistence;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.domain.Report;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Decides which Shard holds the data of a user, for ShardedReportRepository and ShardedWarningRepository.
+ * Users are assigned with a ConsistentHashRing; all reports of a user, and the warnings of those reports,
+ * are on the user's shard. Warnings only carry the ID of their report, so the owner of each report is kept
+ * in a bounded cache, filled as reports are written and read, and looked up on every shard on a miss.
+ * <p>
+ * A shard can be added while the application runs (addShard): the users the new ring assigns to it are
+ * moved one by one, and each user is routed to the new shard as soon as their data has been moved.
+ * Every access to a user's data holds a read lock of the user's lock stripe, for the whole calling
+ * transaction if there is one, and a user is only moved under the write lock, so no transaction sees a
+ * user half-moved. A move interrupted between copying a user and deleting the originals leaves rows of the user on
+ * a shard that no longer holds them; reads scanning every shard skip such leftovers and delete them, see
+ * discardIfLeftover. The ring is held by this process only: on a cluster, add the shard on one node while
+ * the others are stopped, and list it in reports.shards.urls before they start again.
+ */
+public class ShardRouter implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+    private static final int LOCK_STRIPES = 64;
+    private static final long SWITCH_LOCK_TIMEOUT_MILLIS = 100;
+
+    private final ReadWriteLock[] stripes = new ReadWriteLock[LOCK_STRIPES];
+    private final Cache<Long, Long> reportOwners;
+    private volatile ConsistentHashRing<Shard> ring;
+    private volatile Migration migration; // Null unless a shard is being added
+
+    /**
+     * The ring being moved to, and the users already moved to their shard on it.
+     */
+    private record Migration(ConsistentHashRing<Shard> target, Set<Long> moved) {
+    }
+
+    /**
+     * Creates a router over the given shards.
+     *
+     * @param shards          the shards, at least one, with distinct names
+     * @param virtualNodes    points per shard on the ring
+     * @param maxCachedOwners maximum number of report owners cached
+     */
+    public ShardRouter(List<Shard> shards, int virtualNodes, long maxCachedOwners) {
+        Map<String, Shard> byName = new LinkedHashMap<>();
+        for (Shard shard : shards) {
+            if (byName.put(shard.getName(), shard) != null) {
+                throw new IllegalArgumentException("Duplicate shard name " + shard.getName());
+            }
+        }
+        this.ring = new ConsistentHashRing<>(byName, virtualNodes);
+        this.reportOwners = Caffeine.newBuilder().maximumSize(maxCachedOwners).build();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Returns all shards, including one being added.
+     */
+    public Collection<Shard> getShards() {
+        Migration current = migration;
+        return (current != null ? current.target() : ring).shards().values();
+    }
+
+    /**
+     * Returns the shard currently holding the data of a user.
+     */
+    Shard shardOf(long userId) {
+        Migration current = migration;
+        if (current != null && current.moved().contains(userId)) {
+            return current.target().shardOf(userId);
+        }
+        return ring.shardOf(userId);
+    }
+
+    /**
+     * Runs an operation on the shard of a user, holding the user's lock stripe and within the calling transaction.
+     *
+     * @param userId    the ID of the user whose data is accessed
+     * @param operation the operation, given the user's shard
+     * @return the result of the operation
+     */
+    <T> T onShardOf(long userId, Function<Shard, T> operation) {
+        ReadWriteLock stripe = stripeOf(userId);
+        stripe.readLock().lock();
+        boolean heldByTransaction = holdUntilCompletion(stripe);
+        try {
+            Shard shard = shardOf(userId);
+            shard.joinCallerTransaction();
+            return operation.apply(shard);
+        } finally {
+            if (!heldByTransaction) {
+                stripe.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs an operation on the shards of several users at once, e.g. to write one batch per shard, holding the
+     * stripes of all the users and within the calling transaction.
+     *
+     * @param userIds   the IDs of the users whose data is accessed
+     * @param operation the operation, given the users grouped by their shard
+     * @return the result of the operation
+     */
+    <T> T onShardsOf(Collection<Long> userIds, Function<Map<Shard, List<Long>>, T> operation) {
+        List<ReadWriteLock> held = new ArrayList<>();
+        try {
+            Map<Shard, List<Long>> byShard = new LinkedHashMap<>();
+            for (long userId : new LinkedHashSet<>(userIds)) {
+                ReadWriteLock stripe = stripeOf(userId);
+                stripe.readLock().lock();
+                if (!holdUntilCompletion(stripe)) {
+                    held.add(stripe);
+                }
+                byShard.computeIfAbsent(shardOf(userId), shard -> new ArrayList<>()).add(userId);
+            }
+            for (Shard shard : byShard.keySet()) {
+                shard.joinCallerTransaction();
+            }
+            return operation.apply(byShard);
+        } finally {
+            for (ReadWriteLock stripe : held) {
+                stripe.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Keeps a read lock, acquired by the caller, until the calling transaction completes, so that none of the
+     * users it touches is moved before its writes are committed. Returns false outside transactions.
+     */
+    private boolean holdUntilCompletion(ReadWriteLock stripe) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stripe.readLock().unlock();
+            }
+        });
+        return true;
+    }
+
+    private ReadWriteLock stripeOf(long userId) {
+        return stripes[Math.floorMod(Long.hashCode(userId * 0x9e3779b97f4a7c15L), LOCK_STRIPES)];
+    }
+
+    /**
+     * Remembers the owners of reports written or read, so that their warnings can be routed without a lookup.
+     */
+    void rememberOwners(Collection<Report> reports) {
+        for (Report report : reports) {
+            if (report.getId() != null && report.getUser_id() != null) {
+                reportOwners.put(report.getId(), report.getUser_id());
+            }
+        }
+    }
+
+    void forgetOwner(long reportId) {
+        reportOwners.invalidate(reportId);
+    }
+
+    /**
+     * Returns the owner of a report, from the cache or else by asking every shard.
+     *
+     * @param reportId the ID of the report
+     * @return the ID of the report's user, or empty if no shard has the report
+     * @throws RepositoryException if a shard could not be queried
+     */
+    Optional<Long> ownerOf(long reportId) {
+        Long cached = reportOwners.getIfPresent(reportId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // A leftover of an interrupted move has the same owner, so any shard holding the report can answer
+        for (Shard shard : getShards()) {
+            Optional<Long> owner = shard.findUserOfReport(reportId);
+            if (owner.isPresent()) {
+                reportOwners.put(reportId, owner.get());
+                return owner;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Tells whether the reports of a user found on a shard by a read scanning every shard are a leftover of an
+     * interrupted move, to be skipped, and deletes them if the user's current shard is known to hold them.
+     * A move copies a user in one transaction of the target shard and deletes the originals afterwards, so a
+     * failure or crash in between leaves the reports on both shards, and a failed resume may leave a stale copy.
+     * The check holds the user's stripe, so a move in progress is never mistaken for a leftover.
+     *
+     * @param shard  the shard the user's reports were found on
+     * @param userId the ID of the user
+     * @return false if the shard is the user's current shard
+     */
+    boolean discardIfLeftover(Shard shard, long userId) {
+        ReadWriteLock stripe = stripeOf(userId);
+        stripe.readLock().lock();
+        try {
+            Shard current = shardOf(userId);
+            if (current == shard) {
+                return false;
+            }
+            // Reports are copied all at once, so the current shard holding one of them holds the whole copy
+            boolean copied = false;
+            for (long reportId : shard.getReportIdsOfUser(userId)) {
+                if (current.findUserOfReport(reportId).isPresent()) {
+                    copied = true;
+                    break;
+                }
+            }
+            if (copied) {
+                shard.deleteUser(userId);
+                log.info("Deleted leftover reports of user {} from shard {}", userId, shard.getName());
+            } else {
+                log.warn("Reports of user {} on shard {} are not on the user's shard {}, skipping them",
+                        userId, shard.getName(), current.getName());
+            }
+        } catch (RepositoryException e) {
+            log.warn("Could not delete leftover reports of user {} from shard {}", userId, shard.getName(), e);
+        } finally {
+            stripe.readLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Adds a shard and moves to it the users the extended ring assigns to it, while the application keeps
+     * serving. Users are moved one at a time: their reports and warnings are copied in one transaction of
+     * the new shard, then deleted from the old one, under the write lock of the user's stripe. A final pass
+     * with all stripes locked moves the users who wrote their first report meanwhile, then switches the ring.
+     * <p>
+     * If a move fails, the users moved so far stay on the new shard and the others on their old one;
+     * calling addShard again with the same shard resumes the move. Until then, the originals of a user whose
+     * delete failed are skipped by scanning reads, see discardIfLeftover.
+     *
+     * @param shard the new shard, whose tables must exist and be empty
+     * @throws IllegalArgumentException if a shard of that name exists already
+     * @throws IllegalStateException    if a different shard is being added
+     * @throws RepositoryException      if a user could not be moved
+     */
+    public synchronized void addShard(Shard shard) {
+        Migration started = migration;
+        if (started == null) {
+            started = new Migration(ring.with(shard.getName(), shard), ConcurrentHashMap.newKeySet());
+            migration = started;
+        } else if (started.target().shards().get(shard.getName()) != shard) {
+            throw new IllegalStateException("Shard " + shard.getName() + " cannot be added before the interrupted addition is resumed");
+        }
+
+        int moved = moveUsers(started);
+        lockAllStripes();
+        try {
+            moved += moveUsers(started);
+            ring = started.target();
+            migration = null;
+        } finally {
+            for (ReadWriteLock stripe : stripes) {
+                stripe.writeLock().unlock();
+            }
+        }
+        log.info("Added shard {}, moved {} users to it", shard.getName(), moved);
+    }
+
+    /**
+     * Moves every user stored on an old shard that the target ring assigns elsewhere and that was not moved yet.
+     */
+    private int moveUsers(Migration migration) {
+        int moved = 0;
+        for (Shard from : ring.shards().values()) {
+            for (long userId : from.getUsers()) {
+                Shard to = migration.target().shardOf(userId);
+                if (to == from) {
+                    continue;
+                }
+                if (migration.moved().contains(userId)) {
+                    from.deleteUser(userId); // Copied by an earlier attempt whose delete failed
+                } else {
+                    moveUser(userId, from, to, migration);
+                    moved++;
+                }
+            }
+        }
+        return moved;
+    }
+
+    private void moveUser(long userId, Shard from, Shard to, Migration migration) {
+        ReadWriteLock stripe = stripeOf(userId);
+        stripe.writeLock().lock(); // Reentrant during the final pass
+        try {
+            to.newTransactionTemplate().executeWithoutResult(status -> {
+                // Leftovers of an earlier, failed attempt are replaced
+                to.deleteUser(userId);
+                List<Report> reports = new ArrayList<>();
+                from.reports().forEachOfUser(userId, reports::add);
+                to.reports().addAll(reports);
+                for (Report report : reports) {
+                    to.warnings().addAll(report.getWarnings());
+                }
+            });
+            migration.moved().add(userId);
+            from.deleteUser(userId);
+        } finally {
+            stripe.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes the write lock of every stripe. A transaction holding one stripe may be waiting for another,
+     * so the locks are given up and taken again after a timeout instead of waiting for them in order.
+     */
+    private void lockAllStripes() {
+        while (true) {
+            int locked = 0;
+            try {
+                while (locked < LOCK_STRIPES
+                        && stripes[locked].writeLock().tryLock(SWITCH_LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    locked++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (int i = 0; i < locked; i++) {
+                    stripes[i].writeLock().unlock();
+                }
+                throw new RepositoryException("ShardRouter: Interrupted while switching to the new ring", e);
+            }
+            if (locked == LOCK_STRIPES) {
+                return;
+            }
+            for (int i = 0; i < locked; i++) {
+                stripes[i].writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Closes the connection pools of the shards when the application stops.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Shard shard : getShards()) {
+            if (shard.getDataSource() instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
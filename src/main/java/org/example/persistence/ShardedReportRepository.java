@@ -0,0 +1,123 @@
+package org.example.persistence;
+import org.example.domain.Report;
+import org.example.domain.ReportSummary;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Report repository spreading users over several databases: every method runs on the Shard that the
+ * ShardRouter assigns to the user, with that shard's ReportRepository. Writes join the calling transaction,
+ * see Shard.joinCallerTransaction. Reports looked up by ID are found through the owner of the report.
+ */
+public class ShardedReportRepository implements IReportRepository {
+    private final ShardRouter router;
+
+    public ShardedReportRepository(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Optional<Report> findOne(Long aLong) {
+        Optional<Long> owner = router.ownerOf(aLong);
+        if (owner.isEmpty()) {
+            return Optional.empty();
+        }
+        return router.onShardOf(owner.get(), shard -> shard.reports().findOne(aLong));
+    }
+
+    @Override
+    public Iterable<Report> getAll() {
+        return null;
+    }
+
+    @Override
+    public Optional<Report> add(Report entity) {
+        Optional<Report> added = router.onShardOf(entity.getUser_id(), shard -> shard.reports().add(entity));
+        added.ifPresent(report -> router.rememberOwners(List.of(report)));
+        return added;
+    }
+
+    /**
+     * Adds reports, possibly of several users, with one batch per shard.
+     *
+     * @param reports the reports to be added
+     * @return the same reports, with their IDs set
+     * @throws RepositoryException if a database access error occurs
+     */
+    @Override
+    public List<Report> addAll(List<Report> reports) {
+        Map<Long, List<Report>> byUser = new LinkedHashMap<>();
+        for (Report report : reports) {
+            byUser.computeIfAbsent(report.getUser_id(), user -> new ArrayList<>()).add(report);
+        }
+
+        router.onShardsOf(byUser.keySet(), byShard -> {
+            for (Map.Entry<Shard, List<Long>> shard : byShard.entrySet()) {
+                List<Report> batch = new ArrayList<>();
+                for (Long userId : shard.getValue()) {
+                    batch.addAll(byUser.get(userId));
+                }
+                shard.getKey().reports().addAll(batch);
+            }
+            return null;
+        });
+        router.rememberOwners(reports);
+        return reports;
+    }
+
+    @Override
+    public Optional<Report> delete(Long aLong) {
+        Optional<Long> owner = router.ownerOf(aLong);
+        if (owner.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Report> deleted = router.onShardOf(owner.get(), shard -> shard.reports().delete(aLong));
+        router.forgetOwner(aLong);
+        return deleted;
+    }
+
+    @Override
+    public Optional<Report> update(Report entity) {
+        return Optional.empty();
+    }
+
+    @Override
+    public List<Report> getAllOfUser(Long user) {
+        return getAllOfUser(user, null, null);
+    }
+
+    @Override
+    public List<Report> getAllOfUser(Long user, Long from, Long to) {
+        List<Report> reports = router.onShardOf(user, shard -> shard.reports().getAllOfUser(user, from, to));
+        router.rememberOwners(reports);
+        return reports;
+    }
+
+    @Override
+    public List<Report> getPageOfUser(Long user, Long cursorCreatedAt, Long cursorId, int limit) {
+        return router.onShardOf(user, shard -> shard.reports().getPageOfUser(user, cursorCreatedAt, cursorId, limit));
+    }
+
+    @Override
+    public void forEachOfUser(Long user, Consumer<Report> consumer) {
+        router.onShardOf(user, shard -> {
+            shard.reports().forEachOfUser(user, consumer);
+            return null;
+        });
+    }
+
+    @Override
+    public List<ReportSummary> getSummariesOfUser(Long user) {
+        return router.onShardOf(user, shard -> shard.reports().getSummariesOfUser(user));
+    }
+
+    @Override
+    public boolean isOwnedBy(Long reportId, Long user) {
+        return router.onShardOf(user, shard -> shard.reports().isOwnedBy(reportId, user));
+    }
+
+    @Override
+    public long[] getCountAndMaxIdOfUser(Long user) {
+        return router.onShardOf(user, shard -> shard.reports().getCountAndMaxIdOfUser(user));
+    }
+}
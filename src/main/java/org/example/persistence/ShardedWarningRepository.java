@@ -0,0 +1,127 @@
+package org.example.persistence;
+import org.example.domain.Warning;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Warning repository keeping every warning on the Shard of its report's user, next to the report, with that
+ * shard's WarningRepository. Warnings of a report are routed through the owner of the report, see
+ * ShardRouter.ownerOf; warnings looked up by their own ID are searched on every shard. Scanning reads skip
+ * the leftovers of interrupted moves, see ShardRouter.discardIfLeftover.
+ * <p>
+ * forEach reads the shards one after another; while a shard is being added, warnings of users moved
+ * meanwhile may be passed twice or not at all.
+ */
+public class ShardedWarningRepository implements IWarningRepository {
+    private final ShardRouter router;
+
+    public ShardedWarningRepository(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Optional<Warning> findOne(Long aLong) {
+        for (Shard shard : router.getShards()) {
+            Optional<Warning> found = shard.warnings().findOne(aLong);
+            if (found.isPresent() && !router.discardIfLeftover(shard, ownerOf(found.get().getReport_id()))) {
+                return found;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Iterable<Warning> getAll() {
+        return null;
+    }
+
+    @Override
+    public Optional<Warning> add(Warning entity) {
+        return router.onShardOf(ownerOf(entity.getReport_id()), shard -> shard.warnings().add(entity));
+    }
+
+    /**
+     * Adds warnings, possibly of reports of several users, with one batch per shard.
+     *
+     * @param warnings the warnings to be added
+     * @return the same warnings, with their IDs set
+     * @throws RepositoryException if the report of a warning does not exist or a database access error occurs
+     */
+    @Override
+    public List<Warning> addAll(List<Warning> warnings) {
+        Map<Long, List<Warning>> byUser = new LinkedHashMap<>();
+        Map<Long, Long> owners = new HashMap<>();
+        for (Warning warning : warnings) {
+            Long userId = owners.computeIfAbsent(warning.getReport_id(), this::ownerOf);
+            byUser.computeIfAbsent(userId, user -> new ArrayList<>()).add(warning);
+        }
+
+        router.onShardsOf(byUser.keySet(), byShard -> {
+            for (Map.Entry<Shard, List<Long>> shard : byShard.entrySet()) {
+                List<Warning> batch = new ArrayList<>();
+                for (Long userId : shard.getValue()) {
+                    batch.addAll(byUser.get(userId));
+                }
+                shard.getKey().warnings().addAll(batch);
+            }
+            return null;
+        });
+        return warnings;
+    }
+
+    private long ownerOf(Long reportId) {
+        return router.ownerOf(reportId)
+                .orElseThrow(() -> new RepositoryException("ShardedWarningRepository: No shard has report " + reportId));
+    }
+
+    @Override
+    public List<Warning> getAllOfReport(Long reportId) {
+        return getAllOfReport(reportId, null, null);
+    }
+
+    @Override
+    public List<Warning> getAllOfReport(Long reportId, Long from, Long to) {
+        Optional<Long> owner = router.ownerOf(reportId);
+        if (owner.isEmpty()) {
+            return List.of();
+        }
+        return router.onShardOf(owner.get(), shard -> shard.warnings().getAllOfReport(reportId, from, to));
+    }
+
+    @Override
+    public List<Warning> getInBoxOfUser(Long userId, double minLat, double minLng, double maxLat, double maxLng, int limit) {
+        return router.onShardOf(userId, shard -> shard.warnings().getInBoxOfUser(userId, minLat, minLng, maxLat, maxLng, limit));
+    }
+
+    @Override
+    public void forEach(Consumer<Warning> consumer) {
+        for (Shard shard : router.getShards()) {
+            Set<Long> leftovers = new HashSet<>();
+            for (long userId : shard.getUsers()) {
+                if (router.discardIfLeftover(shard, userId)) {
+                    // Empty unless the leftover could not be deleted
+                    leftovers.addAll(shard.getReportIdsOfUser(userId));
+                }
+            }
+            shard.warnings().forEach(leftovers.isEmpty() ? consumer : warning -> {
+                if (!leftovers.contains(warning.getReport_id())) {
+                    consumer.accept(warning);
+                }
+            });
+        }
+    }
+
+    @Override
+    public Optional<Warning> delete(Long aLong) {
+        Optional<Warning> found = findOne(aLong);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        return router.onShardOf(ownerOf(found.get().getReport_id()), shard -> shard.warnings().delete(aLong));
+    }
+
+    @Override
+    public Optional<Warning> update(Warning entity) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.persistence;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores reports and warnings on several databases, split by user, once {@code reports.shards.urls} lists them
+ * as {@code name=url} entries. Users, ID sequences, warning types and all aggregates stay in the main database
+ * configured by the spring.datasource properties; the shards' credentials and driver default to its own.
+ * <p>
+ * Users are assigned by shard name, so a shard keeps its name when its URL changes, and names are never reused.
+ * Each shard has its own connection pool, sized by the reports.shards.pool properties and closed with the router.
+ * <p>
+ * The shards have no read replicas: with spring.datasource.replica.url set as well, only the reads of the main
+ * database (users) go to the replica, while reports and warnings are always read from their shard, where they are
+ * visible as soon as they are committed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "reports.shards.urls")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardRouter shardRouter(DataSourceProperties properties,
+                                   IdAllocator idAllocator,
+                                   WarningTypeDictionary typeDictionary,
+                                   @Value("${reports.shards.urls}") List<String> urls,
+                                   @Value("${reports.shards.username:#{null}}") String username,
+                                   @Value("${reports.shards.password:#{null}}") String password,
+                                   @Value("${reports.shards.virtual-nodes:160}") int virtualNodes,
+                                   @Value("${reports.shards.max-cached-owners:100000}") long maxCachedOwners,
+                                   @Value("${reports.shards.pool.max-size:10}") int maxPoolSize,
+                                   @Value("${reports.shards.pool.min-idle:2}") int minIdle,
+                                   @Value("${reports.shards.pool.connection-timeout-ms:30000}") long connectionTimeoutMs,
+                                   @Value("${reports.fetch-strategy:join}") String fetchStrategy,
+                                   @Value("${reports.stream.fetch-size:500}") int streamFetchSize) {
+        List<Shard> shards = new ArrayList<>();
+        for (String entry : urls) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("reports.shards.urls entries must be name=url, got " + entry);
+            }
+            String name = entry.substring(0, separator).trim();
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(entry.substring(separator + 1).trim())
+                    .username(username != null ? username : properties.determineUsername())
+                    .password(password != null ? password : properties.determinePassword())
+                    .build();
+            dataSource.setPoolName("shard-" + name);
+            dataSource.setMaximumPoolSize(maxPoolSize);
+            dataSource.setMinimumIdle(minIdle);
+            dataSource.setConnectionTimeout(connectionTimeoutMs);
+            Shard shard = new Shard(name, dataSource, idAllocator, typeDictionary);
+            shard.reports().setFetchStrategy(fetchStrategy);
+            shard.reports().setStreamFetchSize(streamFetchSize);
+            shard.warnings().setStreamFetchSize(streamFetchSize);
+            shards.add(shard);
+        }
+        return new ShardRouter(shards, virtualNodes, maxCachedOwners);
+    }
+
+    /**
+     * Takes precedence over the ReportRepository of the main database.
+     */
+    @Bean
+    @Primary
+    public ShardedReportRepository shardedReportRepository(ShardRouter shardRouter) {
+        return new ShardedReportRepository(shardRouter);
+    }
+
+    /**
+     * Takes precedence over the WarningRepository of the main database.
+     */
+    @Bean
+    @Primary
+    public ShardedWarningRepository shardedWarningRepository(ShardRouter shardRouter) {
+        return new ShardedWarningRepository(shardRouter);
+    }
+}
@@ -5,11 +5,8 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 import javax.sql.DataSource;
-import java.sql.*;
 import java.util.Optional;
 
 /**
@@ -17,7 +14,9 @@ import java.util.Optional;
  */
 @Component
 public class UserRepository implements IUserRepository{
+    private final DataSource dataSource;
     private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
 
     private final RowMapper<User> userRowMapper = (rs, rowNum) -> {
         User user = new User();
@@ -29,12 +28,21 @@ public class UserRepository implements IUserRepository{
     };
 
     @Autowired
-    public UserRepository(DataSource dataSource) {
+    public UserRepository(DataSource dataSource, IdAllocator idAllocator) {
+        this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.idAllocator = idAllocator;
     }
 
     @Override
     public Optional<User> findOne(Long id) {
+        return ReadWriteRoutingDataSource.readOnly(dataSource, id, () -> find(id));
+    }
+
+    /**
+     * Same as findOne, but always on the DataSource writes go to, e.g. to read a user about to be deleted.
+     */
+    private Optional<User> find(Long id) {
         String sql = "SELECT * FROM users WHERE id = ?";
         try {
             // queryForObject is used when you expect exactly one result
@@ -49,6 +57,9 @@ public class UserRepository implements IUserRepository{
     }
 
 
+    /**
+     * Always runs on the primary: logins and the check for taken usernames must see users just created.
+     */
     @Override
     public Optional<User> findOneByUsername(String username) {
         String sql = "SELECT * FROM users WHERE username = ?";
@@ -76,19 +87,14 @@ public class UserRepository implements IUserRepository{
     @Override
     public Optional<User> add(User entity) {
         try {
-            String sql = "INSERT INTO users (username, password, name) VALUES (?,?,?)";
-            KeyHolder keyHolder = new GeneratedKeyHolder();
-
-            jdbcTemplate.update(connection -> {
-                PreparedStatement preparedStatement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-                preparedStatement.setString(1, entity.getUsername());
-                preparedStatement.setString(2, entity.getPassword());
-                preparedStatement.setString(3, entity.getName());
-                return preparedStatement;
-            }, keyHolder);
-
-            if (keyHolder.getKey() != null) {
-                entity.setId(keyHolder.getKey().longValue());
+            String sql = "INSERT INTO users (id, username, password, name) VALUES (?,?,?,?)";
+            long id = entity.getId() != null ? entity.getId() : idAllocator.next(IdAllocator.USERS);
+
+            int affectedRows = jdbcTemplate.update(sql, id, entity.getUsername(), entity.getPassword(), entity.getName());
+
+            if (affectedRows > 0) {
+                entity.setId(id);
+                ReadWriteRoutingDataSource.recordWrite(dataSource, id);
                 return Optional.of(entity);
             } else {
                 return Optional.empty();
@@ -101,13 +107,14 @@ public class UserRepository implements IUserRepository{
     @Override
     public Optional<User> delete(Long aLong) {
         try {
-            Optional<User> entityOpt = findOne(aLong);
+            Optional<User> entityOpt = find(aLong);
 
             if (entityOpt.isEmpty()) {
                 return Optional.empty();
             }
 
             int affectedRows = jdbcTemplate.update("DELETE FROM users where id=?", aLong);
+            ReadWriteRoutingDataSource.recordWrite(dataSource, aLong);
 
             return affectedRows > 0 ? entityOpt : Optional.empty();
         } catch (DataAccessException e) {
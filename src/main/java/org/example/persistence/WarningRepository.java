@@ -1,31 +1,71 @@
 package org.example.persistence;
 import org.example.domain.Warning;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository class for managing Report entities in the database.
  */
 @Component
 public class WarningRepository implements IWarningRepository{
+    private static final String SQL_WITH_TIMESTAMP = "INSERT INTO warnings (id, report_id, type_code, lat, lng, geohash, created_at) VALUES (?,?,?,?,?,?,?)";
+    private static final String SQL_WITHOUT_TIMESTAMP = "INSERT INTO warnings (id, report_id, type_code, lat, lng, geohash) VALUES (?,?,?,?,?,?)";
+
+    // Geohash prefixes per bounding-box query; fewer, larger cells mean fewer index ranges but more rows to filter
+    private static final int MAX_BOX_CELLS = 16;
 
     private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    private final WarningTypeDictionary typeDictionary;
+    private final JdbcTemplate streamingJdbcTemplate;
 
     @Autowired
-    public WarningRepository(DataSource dataSource) {
+    public WarningRepository(DataSource dataSource, IdAllocator idAllocator, WarningTypeDictionary typeDictionary) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.idAllocator = idAllocator;
+        this.typeDictionary = typeDictionary;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(500);
+    }
+
+    /**
+     * Sets how many rows forEach asks the driver to fetch per round trip,
+     * from the reports.stream.fetch-size property.
+     *
+     * @param fetchSize the number of rows per fetch
+     */
+    @Value("${reports.stream.fetch-size:500}")
+    public void setStreamFetchSize(int fetchSize) {
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
     }
 
+    /**
+     * Finds a warning by its ID.
+     *
+     * @param aLong the ID of the warning
+     * @return an Optional containing the warning, or empty if no such warning exists
+     * @throws RepositoryException if a database access error occurs
+     */
     @Override
     public Optional<Warning> findOne(Long aLong) {
-        return Optional.empty();
+        try {
+            return jdbcTemplate.query("SELECT id, report_id, type_code, lat, lng, created_at FROM warnings WHERE id = ?",
+                    (rs, rowNum) -> mapWarning(rs), aLong).stream().findFirst();
+        } catch (DataAccessException e) {
+            throw new RepositoryException("WarningRepository: Failed to find warning", e);
+        }
     }
 
     @Override
@@ -36,43 +76,215 @@ public class WarningRepository implements IWarningRepository{
     /**
      * Adds a new Warning entity to the database.
      * If the entity has a non-null created_at timestamp, it will be inserted; otherwise, it is omitted.
+     * The ID is taken from the IdAllocator unless the warning already carries one.
      *
      * @param entity the Warning to be added
-     * @return an Optional containing the inserted Warning with generated ID, or empty if insert failed
+     * @return an Optional containing the inserted Warning with its ID, or empty if insert failed
      * @throws RepositoryException if a database access error occurs
      */
     @Override
     public Optional<Warning> add(Warning entity) {
         try {
-            String sqlWithTimestamp = "INSERT INTO warnings (report_id, text, lat, lng, created_at) VALUES (?,?,?,?,?)";
-            String sqlWithoutTimestamp = "INSERT INTO warnings (report_id, text, lat, lng) VALUES (?,?,?,?)";
-            String sql = entity.getCreated_at() != null ? sqlWithTimestamp : sqlWithoutTimestamp;
-
-            KeyHolder keyHolder = new GeneratedKeyHolder();
-
-            jdbcTemplate.update(connection -> {
-                PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-                ps.setLong(1, entity.getReport_id());
-                ps.setString(2, entity.getText());
-                ps.setDouble(3, entity.getLat());
-                ps.setDouble(4, entity.getLng());
-                if (entity.getCreated_at() != null) {
-                    ps.setLong(5, entity.getCreated_at());
+            assignIds(List.of(entity));
+            String sql = entity.getCreated_at() != null ? SQL_WITH_TIMESTAMP : SQL_WITHOUT_TIMESTAMP;
+
+            int affectedRows = jdbcTemplate.update(sql, ps -> setParameters(ps, entity));
+
+            return affectedRows > 0 ? Optional.of(entity) : Optional.empty();
+        } catch (DataAccessException e) {
+            throw new RepositoryException("WarningRepository: Failed to add warning", e);
+        }
+    }
+
+    /**
+     * Adds a list of Warning entities to the database using JDBC batching.
+     * Warnings with and without a created_at timestamp are sent as two separate batches,
+     * so each batch costs a single round trip regardless of its size.
+     * IDs are taken from the IdAllocator as one contiguous range, in list order.
+     *
+     * @param entities the Warnings to be added
+     * @return the same Warnings, with their IDs set
+     * @throws RepositoryException if a database access error occurs
+     */
+    @Override
+    public List<Warning> addAll(List<Warning> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+
+        try {
+            assignIds(entities);
+
+            List<Warning> withTimestamp = new ArrayList<>();
+            List<Warning> withoutTimestamp = new ArrayList<>();
+            for (Warning warning : entities) {
+                if (warning.getCreated_at() != null) {
+                    withTimestamp.add(warning);
+                } else {
+                    withoutTimestamp.add(warning);
                 }
-                return ps;
-            }, keyHolder);
+            }
 
-            if (keyHolder.getKey() != null) {
-                entity.setId(keyHolder.getKey().longValue());
-                return Optional.of(entity);
-            } else {
-                return Optional.empty();
+            batchInsert(SQL_WITH_TIMESTAMP, withTimestamp);
+            batchInsert(SQL_WITHOUT_TIMESTAMP, withoutTimestamp);
+            return entities;
+        } catch (DataAccessException e) {
+            throw new RepositoryException("WarningRepository: Failed to add warnings", e);
+        }
+    }
+
+    /**
+     * Inserts the given warnings as one JDBC batch.
+     */
+    private void batchInsert(String sql, List<Warning> warnings) {
+        if (warnings.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setParameters(ps, warnings.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return warnings.size();
+            }
+        });
+    }
+
+    /**
+     * Gives every warning without an ID one from a single contiguous range of the allocator.
+     */
+    private void assignIds(List<Warning> entities) {
+        int missing = 0;
+        for (Warning entity : entities) {
+            if (entity.getId() == null) {
+                missing++;
             }
+        }
+        if (missing == 0) {
+            return;
+        }
+
+        long nextId = idAllocator.next(IdAllocator.WARNINGS, missing);
+        for (Warning entity : entities) {
+            if (entity.getId() == null) {
+                entity.setId(nextId++);
+            }
+        }
+    }
+
+    /**
+     * Binds the columns of a warning insert, including the code of its text and the geohash of its location;
+     * created_at is only bound when present.
+     */
+    private void setParameters(PreparedStatement ps, Warning entity) throws SQLException {
+        ps.setLong(1, entity.getId());
+        ps.setLong(2, entity.getReport_id());
+        ps.setInt(3, typeDictionary.codeOf(entity.getText()));
+        ps.setDouble(4, entity.getLat());
+        ps.setDouble(5, entity.getLng());
+        ps.setString(6, Geohash.encode(entity.getLat(), entity.getLng(), Geohash.STORED_PRECISION));
+        if (entity.getCreated_at() != null) {
+            ps.setLong(7, entity.getCreated_at());
+        }
+    }
+
+    @Override
+    public List<Warning> getAllOfReport(Long reportId) {
+        return getAllOfReport(reportId, null, null);
+    }
+
+    /**
+     * Retrieves the warnings of a report recorded in [from, to), in the order they were recorded.
+     * The bounds are pushed down as created_at predicates on the (report_id, created_at) index.
+     *
+     * @param reportId the ID of the report
+     * @param from     inclusive lower bound of created_at, or null
+     * @param to       exclusive upper bound of created_at, or null
+     * @return the warnings of the report in the window
+     * @throws RepositoryException if a database access error occurs
+     */
+    @Override
+    public List<Warning> getAllOfReport(Long reportId, Long from, Long to) {
+        List<Object> args = new ArrayList<>(List.of(reportId));
+        String sql = "SELECT id, report_id, type_code, lat, lng, created_at FROM warnings WHERE report_id = ?" +
+                CreatedAtRange.predicate("created_at", from, to, args) + " ORDER BY id";
+
+        try {
+            return jdbcTemplate.query(sql, (rs, rowNum) -> mapWarning(rs), args.toArray());
         } catch (DataAccessException e) {
-            throw new RepositoryException("WarningRepository: Failed to add warning", e);
+            throw new RepositoryException("WarningRepository: Failed to get warnings of report", e);
         }
     }
 
+    /**
+     * Retrieves the warnings of a user's reports located inside a bounding box.
+     * The box is covered by at most MAX_BOX_CELLS geohash cells, each matched as a prefix on the
+     * geohash index, and only the rows of those cells are checked against the exact box.
+     *
+     * @param userId the ID of the user owning the reports
+     * @param minLat southern edge of the box
+     * @param minLng western edge of the box
+     * @param maxLat northern edge of the box
+     * @param maxLng eastern edge of the box
+     * @param limit  maximum number of warnings to return
+     * @return the warnings inside the box, in the order they were recorded
+     * @throws RepositoryException if a database access error occurs
+     */
+    @Override
+    public List<Warning> getInBoxOfUser(Long userId, double minLat, double minLng, double maxLat, double maxLng, int limit) {
+        List<String> cells = Geohash.cover(minLat, minLng, maxLat, maxLng, MAX_BOX_CELLS);
+        List<Object> args = new ArrayList<>();
+        for (String cell : cells) {
+            args.add(cell + "%");
+        }
+        args.addAll(List.of(minLat, maxLat, minLng, maxLng, userId, limit));
+
+        String sql = "SELECT W.id, W.report_id, W.type_code, W.lat, W.lng, W.created_at FROM warnings W\n" +
+                "JOIN reports R ON R.id = W.report_id\n" +
+                "WHERE (" + String.join(" OR ", Collections.nCopies(cells.size(), "W.geohash LIKE ?")) + ")\n" +
+                "AND W.lat BETWEEN ? AND ? AND W.lng BETWEEN ? AND ?\n" +
+                "AND R.user_id = ?\n" +
+                "ORDER BY W.id\n" +
+                "OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+
+        try {
+            return jdbcTemplate.query(sql, (rs, rowNum) -> mapWarning(rs), args.toArray());
+        } catch (DataAccessException e) {
+            throw new RepositoryException("WarningRepository: Failed to get warnings in bounding box", e);
+        }
+    }
+
+    /**
+     * Passes every warning to the consumer as soon as its row has been read.
+     *
+     * @param consumer receives the warnings, in no particular order
+     * @throws RepositoryException if a data access error occurs
+     */
+    @Override
+    public void forEach(Consumer<Warning> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(mapWarning(rs));
+        try {
+            streamingJdbcTemplate.query("SELECT id, report_id, type_code, lat, lng, created_at FROM warnings", handler);
+        } catch (DataAccessException e) {
+            throw new RepositoryException("WarningRepository: Failed to stream warnings", e);
+        }
+    }
+
+    private Warning mapWarning(ResultSet rs) throws SQLException {
+        Warning warning = new Warning();
+        warning.setId(rs.getLong("id"));
+        warning.setReport_id(rs.getLong("report_id"));
+        warning.setText(typeDictionary.textOf(rs.getInt("type_code")));
+        warning.setLat(rs.getDouble("lat"));
+        warning.setLng(rs.getDouble("lng"));
+        warning.setCreated_at(rs.getLong("created_at"));
+        return warning;
+    }
+
     /**
      * Deletes the Warning with the given ID from the database.
      *
@@ -0,0 +1,101 @@
+package org.example.persistence;
+import org.example.domain.HeatmapTile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Repository for the warning_tiles table, which holds the number of warnings per (zoom, x, y) tile.
+ */
+@Component
+public class WarningTileRepository implements IWarningTileRepository {
+    private static final String UPDATE_SQL = "UPDATE warning_tiles SET warning_count = warning_count + ? WHERE zoom = ? AND x = ? AND y = ?";
+    private static final String INSERT_SQL = "INSERT INTO warning_tiles (zoom, x, y, warning_count) VALUES (?,?,?,?)";
+
+    // Tiles are always updated in key order, so concurrent flushes cannot deadlock on each other's rows
+    private static final Comparator<HeatmapTile> KEY_ORDER = Comparator.comparingInt(HeatmapTile::getZoom)
+            .thenComparingInt(HeatmapTile::getX)
+            .thenComparingInt(HeatmapTile::getY);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public WarningTileRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Adds the given counts with one batched UPDATE; tiles that do not exist yet are then inserted one by one.
+     * If another writer inserts the same tile first, the count is added to its row instead.
+     * Should run inside a transaction so that a failure does not leave the counts partially applied.
+     *
+     * @param deltas the tiles with the number of warnings to add to each
+     * @throws RepositoryException if a data access error occurs
+     */
+    @Override
+    public void addCounts(List<HeatmapTile> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<HeatmapTile> sorted = new ArrayList<>(deltas);
+        sorted.sort(KEY_ORDER);
+
+        try {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    HeatmapTile tile = sorted.get(i);
+                    ps.setLong(1, tile.getWarning_count());
+                    ps.setInt(2, tile.getZoom());
+                    ps.setInt(3, tile.getX());
+                    ps.setInt(4, tile.getY());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return sorted.size();
+                }
+            });
+
+            for (int i = 0; i < sorted.size(); i++) {
+                // Any other value, including SUCCESS_NO_INFO, means the row existed and was updated
+                if (updated[i] == 0) {
+                    insert(sorted.get(i));
+                }
+            }
+        } catch (DataAccessException e) {
+            throw new RepositoryException("WarningTileRepository: Failed to update tile counts", e);
+        }
+    }
+
+    private void insert(HeatmapTile tile) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, tile.getZoom(), tile.getX(), tile.getY(), tile.getWarning_count());
+        } catch (DuplicateKeyException e) {
+            // Created by another writer in the meantime
+            jdbcTemplate.update(UPDATE_SQL, tile.getWarning_count(), tile.getZoom(), tile.getX(), tile.getY());
+        }
+    }
+
+    @Override
+    public List<HeatmapTile> getTiles(int zoom, int minX, int maxX, int minY, int maxY) {
+        try {
+            return jdbcTemplate.query(
+                    "SELECT zoom, x, y, warning_count FROM warning_tiles WHERE zoom = ? AND x BETWEEN ? AND ? AND y BETWEEN ? AND ?",
+                    (rs, rowNum) -> new HeatmapTile(rs.getInt("zoom"), rs.getInt("x"), rs.getInt("y"), rs.getLong("warning_count")),
+                    zoom, minX, maxX, minY, maxY);
+        } catch (DataAccessException e) {
+            throw new RepositoryException("WarningTileRepository: Failed to get tiles", e);
+        }
+    }
+}
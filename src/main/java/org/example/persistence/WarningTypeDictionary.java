@@ -0,0 +1,246 @@
+package org.example.persistence;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of warning texts, stored in the warning_types table and cached in memory in both directions.
+ * Warnings store the small integer code of their text instead of the text itself; the lane-detection client
+ * only emits a handful of distinct messages, so the table stays tiny and every warning read shares the
+ * cached String of its text instead of allocating its own.
+ * <p>
+ * Texts are registered with registerAll before the transaction writing their warnings, each new one with a short
+ * transaction of its own that takes the next code from the warning_types row of id_sequences; that row is locked
+ * until the type is inserted, so nodes registering at the same time get distinct codes. Since the texts come from
+ * clients, at most {@code reports.warning-types.max-count} types are registered, after which new texts are refused.
+ * Writing a warning only looks its code up. Codes are never changed or removed, so cached entries stay valid;
+ * codes registered by other nodes are loaded on first use.
+ */
+@Component
+public class WarningTypeDictionary {
+    private static final String SEQUENCE = "warning_types";
+
+    private final DataSource dataSource;
+    private final int maxTypes;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] texts = new String[0]; // Indexed by code; replaced, never modified, once published
+
+    @Autowired
+    public WarningTypeDictionary(DataSource dataSource, @Value("${reports.warning-types.max-count:1000}") int maxTypes) {
+        this.dataSource = dataSource;
+        this.maxTypes = maxTypes;
+    }
+
+    /**
+     * Registers the texts that have no code yet, so that warnings with them can be written. Must be called
+     * before the transaction writing the warnings, as each new text is registered with a connection of its own.
+     *
+     * @param texts the texts of the warnings about to be written
+     * @return the texts that were refused because the dictionary is full; empty if all of them have a code
+     * @throws RepositoryException if a text could not be registered
+     */
+    public List<String> registerAll(Collection<String> texts) {
+        List<String> refused = new ArrayList<>();
+        for (String text : texts) {
+            if (!codes.containsKey(text) && !register(text)) {
+                refused.add(text);
+            }
+        }
+        return refused;
+    }
+
+    /**
+     * Returns the code of a registered warning text.
+     *
+     * @param text the text of a warning
+     * @return the code stored in place of the text
+     * @throws RepositoryException if the text was not registered with registerAll
+     */
+    public int codeOf(String text) {
+        Integer code = codes.get(text);
+        if (code == null) {
+            throw new RepositoryException("WarningTypeDictionary: Warning type was not registered: " + text);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the text of a code, as one String shared by all warnings with that text.
+     *
+     * @param code a code returned by codeOf on this or another node
+     * @return the text of the code
+     * @throws RepositoryException if the code is unknown or the dictionary could not be loaded
+     */
+    public String textOf(int code) {
+        String[] current = texts;
+        if (code >= 0 && code < current.length && current[code] != null) {
+            return current[code];
+        }
+        return load(code);
+    }
+
+    // New texts are rare, so registering them one at a time costs nothing
+    private synchronized boolean register(String text) {
+        if (codes.containsKey(text)) {
+            return true;
+        }
+
+        try {
+            Integer code;
+            try {
+                code = registerOnce(text);
+            } catch (SQLException e) {
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                    throw e;
+                }
+                // Another node created the sequence at the same time; it exists now
+                code = registerOnce(text);
+            }
+            if (code == null) {
+                return false;
+            }
+            cache(code, text);
+            return true;
+        } catch (SQLException e) {
+            throw new RepositoryException("WarningTypeDictionary: Failed to register warning type", e);
+        }
+    }
+
+    /**
+     * Returns the code of the text, inserting it with the next code of the sequence if it is not stored yet,
+     * or null if it is not stored and the dictionary is full.
+     */
+    private Integer registerOnce(String text) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                // Taken first, so that registrations of all nodes run one after another from here on
+                int next = nextCode(connection);
+                Integer code = find(connection, text);
+                if (code == null && count(connection) < maxTypes) {
+                    insert(connection, next, text);
+                    connection.commit();
+                    return next;
+                }
+                // Leaves the sequence unchanged
+                connection.rollback();
+                return code;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static int nextCode(Connection connection) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement("UPDATE id_sequences SET next_val = next_val + 1 WHERE name = ?")) {
+            update.setString(1, SEQUENCE);
+            if (update.executeUpdate() > 0) {
+                try (PreparedStatement select = connection.prepareStatement("SELECT next_val FROM id_sequences WHERE name = ?")) {
+                    select.setString(1, SEQUENCE);
+                    try (ResultSet rs = select.executeQuery()) {
+                        rs.next();
+                        return rs.getInt(1) - 1;
+                    }
+                }
+            }
+        }
+
+        // First registration: start after the codes already in the table
+        int start;
+        try (PreparedStatement max = connection.prepareStatement("SELECT COALESCE(MAX(code), 0) + 1 FROM warning_types");
+             ResultSet rs = max.executeQuery()) {
+            rs.next();
+            start = rs.getInt(1);
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO id_sequences (name, next_val) VALUES (?, ?)")) {
+            insert.setString(1, SEQUENCE);
+            insert.setLong(2, start + 1);
+            insert.executeUpdate();
+        }
+        return start;
+    }
+
+    private static Integer find(Connection connection, String text) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT code FROM warning_types WHERE text = ?")) {
+            select.setString(1, text);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    private static int count(Connection connection) throws SQLException {
+        try (PreparedStatement count = connection.prepareStatement("SELECT COUNT(*) FROM warning_types");
+             ResultSet rs = count.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void insert(Connection connection, int code, String text) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO warning_types (code, text) VALUES (?, ?)")) {
+            insert.setInt(1, code);
+            insert.setString(2, text);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * Loads every stored type, which also picks up codes registered by other nodes, and returns the text of the code.
+     */
+    private synchronized String load(int code) {
+        Map<Integer, String> stored = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement("SELECT code, text FROM warning_types");
+             ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                stored.put(rs.getInt("code"), rs.getString("text"));
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("WarningTypeDictionary: Failed to load warning types", e);
+        }
+
+        int length = texts.length;
+        for (int storedCode : stored.keySet()) {
+            length = Math.max(length, storedCode + 1);
+        }
+        String[] updated = Arrays.copyOf(texts, length);
+        for (Map.Entry<Integer, String> type : stored.entrySet()) {
+            // Texts already cached keep their String, which warnings read earlier share
+            if (updated[type.getKey()] == null) {
+                updated[type.getKey()] = type.getValue();
+                codes.put(type.getValue(), type.getKey());
+            }
+        }
+        texts = updated;
+
+        if (code < 0 || code >= updated.length || updated[code] == null) {
+            throw new RepositoryException("WarningTypeDictionary: Unknown warning type " + code, null);
+        }
+        return updated[code];
+    }
+
+    // Called with the lock held
+    private void cache(int code, String text) {
+        String[] updated = Arrays.copyOf(texts, Math.max(texts.length, code + 1));
+        updated[code] = text;
+        texts = updated;
+        codes.put(text, code);
+    }
+}
@@ -1,29 +1,73 @@
 package org.example.rest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.business.BatchItemResult;
+import org.example.business.HeatmapService;
+import org.example.business.HotspotService;
+import org.example.business.NearestWarningService;
+import org.example.business.ReportIngestionQueue;
+import org.example.business.ReportPage;
 import org.example.business.ReportService;
+import org.example.business.ReportStreamIngestor;
+import org.example.business.exception.InvalidCredentialsException;
+import org.example.domain.DailyStats;
+import org.example.domain.HeatmapTile;
+import org.example.domain.Hotspot;
+import org.example.domain.NearbyWarning;
 import org.example.domain.Report;
+import org.example.domain.ReportSummary;
+import org.example.domain.Warning;
+import org.example.web.ResponseAbortedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.*;
 
 /**
  * REST controller for handling report-related endpoints.
- * Provides endpoints to create reports and retrieve all reports of a user.
+ * Provides endpoints to create reports, singly or in batches, and retrieve the reports of a user,
+ * all at once, page by page, one by one or as summaries with their warnings loaded separately.
+ * Bodies are JSON by default; CBOR and Smile are negotiated through Content-Type and Accept.
  */
 @RestController
 @RequestMapping("/reports")
 public class ReportController {
     @Autowired
     private ReportService reportService;
+    @Autowired
+    private ReportStreamIngestor reportStreamIngestor;
+    @Autowired
+    private HeatmapService heatmapService;
+    @Autowired
+    private NearestWarningService nearestWarningService;
+    @Autowired
+    private HotspotService hotspotService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Only present when asynchronous ingestion is enabled (reports.ingestion.async=true)
+    @Autowired(required = false)
+    private ReportIngestionQueue ingestionQueue;
 
     /**
      * Creates a new report for the authenticated user.
+     * With asynchronous ingestion enabled, the report is validated and queued, and
+     * 202 Accepted is returned before it is written to the database.
      *
      * @param report  the report data (can be null)
      * @param request the HTTP request containing the user ID
-     * @return ResponseEntity with the created report and its location URI
+     * @return ResponseEntity with the created (or queued) report and its location URI
      */
     @RequestMapping(value = "/create", method = RequestMethod.POST)
     public ResponseEntity<?> create(@RequestBody(required = false) Report report, HttpServletRequest request){
@@ -33,6 +77,14 @@ public class ReportController {
         }
         report.setUser_id(userId);
 
+        if (ingestionQueue != null) {
+            Report acceptedReport = ingestionQueue.enqueue(report);
+            return ResponseEntity
+                    .accepted()
+                    .location(URI.create("/reports/" + acceptedReport.getId()))
+                    .body(acceptedReport);
+        }
+
         Report createdReport = reportService.create(report);
 
         URI location = URI.create("/reports/" + createdReport.getId());
@@ -42,16 +94,304 @@ public class ReportController {
                 .body(createdReport);
     }
 
+    /**
+     * Creates a new report for the authenticated user by streaming its body (JSON, CBOR or Smile).
+     * Meant for long trips: warnings are validated as they are read, and the upload is
+     * rejected as soon as it exceeds the size limits.
+     *
+     * @param request the HTTP request containing the user ID and the report as body
+     * @return ResponseEntity with the created report (without its warnings) and its location URI
+     * @throws IOException if the request body cannot be read
+     */
+    @RequestMapping(value = "/stream", method = RequestMethod.POST)
+    public ResponseEntity<?> createStreaming(HttpServletRequest request) throws IOException {
+        Long userId = (Long) request.getAttribute("user_id");
+        Report createdReport = reportStreamIngestor.ingest(userId, request.getInputStream(),
+                request.getContentType(), request.getContentLengthLong());
+
+        URI location = URI.create("/reports/" + createdReport.getId());
+
+        return ResponseEntity
+                .created(location)
+                .body(createdReport);
+    }
+
+    /**
+     * Creates several reports of the authenticated user in one request.
+     * Valid reports are saved together; invalid ones are rejected individually.
+     *
+     * @param reports the reports to be saved (can be null)
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with one result per submitted report, in request order
+     */
+    @RequestMapping(value = "/batch", method = RequestMethod.POST)
+    public ResponseEntity<?> createBatch(@RequestBody(required = false) List<Report> reports, HttpServletRequest request){
+        Long userId = (Long) request.getAttribute("user_id");
+        List<BatchItemResult> results = reportService.createAll(userId, reports);
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * Retrieves all reports created by the authenticated user.
+     * The response carries an ETag; when it is sent back in If-None-Match and no report was added since,
+     * 304 Not Modified is returned without loading or serializing the reports.
+     * With from and/or to, only reports created in [from, to) are returned, without an ETag.
      *
+     * @param from    inclusive lower bound of created_at in epoch milliseconds, absent for no bound
+     * @param to      exclusive upper bound of created_at in epoch milliseconds, absent for no bound
      * @param request the HTTP request containing the user ID
-     * @return ResponseEntity with a list of the user's reports
+     * @return ResponseEntity with a list of the user's reports, or 304 if the client's copy is current
      */
     @RequestMapping(value = "/getAll",method = RequestMethod.POST)
-    public ResponseEntity<?> get_all(HttpServletRequest request){
+    public ResponseEntity<?> get_all(@RequestParam(required = false) Long from,
+                                     @RequestParam(required = false) Long to,
+                                     HttpServletRequest request){
         Long user_id = (Long) request.getAttribute("user_id");
+        if (from != null || to != null) {
+            return ResponseEntity.ok(reportService.getAll(user_id, from, to));
+        }
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String etag = etag(reportService.getVersion(user_id));
+            if (matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .build();
+            }
+        }
+
         List<Report> reports = reportService.getAll(user_id);
-        return ResponseEntity.ok(reports);
+        return ResponseEntity.ok()
+                .eTag(etag(ReportService.versionOf(reports)))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(reports);
+    }
+
+    /**
+     * Weak, since the same reports are sent as JSON, CBOR or Smile and possibly gzip-encoded.
+     */
+    private static String etag(String version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Checks an If-None-Match header against an ETag using weak comparison.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        String opaqueTag = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves all reports created by the authenticated user, writing each report to the response
+     * as soon as it is read from the database instead of building the whole list first.
+     *
+     * If reading fails before anything has been sent, the response is reset and the error answered as usual;
+     * once part of the array has been sent, the response is aborted (see ResponseAbortedException), so a client
+     * never mistakes a truncated array for a complete one.
+     *
+     * @param request  the HTTP request containing the user ID
+     * @param response the HTTP response the JSON array is written to
+     * @throws IOException if writing the response fails
+     */
+    @RequestMapping(value = "/getAll/stream", method = RequestMethod.POST)
+    public void get_all_stream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Long user_id = (Long) request.getAttribute("user_id");
+        if (user_id == null) {
+            throw new InvalidCredentialsException("Missing or invalid token!\n");
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        // Flushing after every report would defeat response buffering and compression
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        // Closing the generator after a failure must not end the array
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        try {
+            generator.writeStartArray();
+            reportService.streamAll(user_id, report -> {
+                try {
+                    writer.writeValue(generator, report);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (RuntimeException | IOException e) {
+            // The generator is dropped unclosed, so nothing it still buffers reaches the client
+            if (response.isCommitted()) {
+                throw new ResponseAbortedException("Streaming reports failed after the response was committed", e);
+            }
+            response.reset();
+            throw e;
+        }
+        generator.close();
+    }
+
+    /**
+     * Retrieves one page of the authenticated user's reports, newest first.
+     * Pass the returned next_cursor to get the following page; it is null on the last page.
+     *
+     * @param cursor  the cursor of the page to fetch, absent for the first page
+     * @param limit   the maximum number of reports in the page, absent for the default
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with the page of reports and the cursor of the next page
+     */
+    @RequestMapping(value = "/page", method = RequestMethod.GET)
+    public ResponseEntity<?> getPage(@RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) Integer limit,
+                                     HttpServletRequest request){
+        Long user_id = (Long) request.getAttribute("user_id");
+        ReportPage page = reportService.getPage(user_id, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Retrieves summaries of all reports of the authenticated user, with warning counts instead of warnings.
+     *
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with the summaries, newest first
+     */
+    @RequestMapping(value = "/summaries", method = RequestMethod.GET)
+    public ResponseEntity<?> getSummaries(HttpServletRequest request){
+        Long user_id = (Long) request.getAttribute("user_id");
+        List<ReportSummary> summaries = reportService.getSummaries(user_id);
+        return ResponseEntity.ok(summaries);
+    }
+
+    /**
+     * Retrieves the authenticated user's number of trips and warnings per day, with the times of the first and last trip.
+     *
+     * @param from    the first day (UTC, yyyy-MM-dd), inclusive; no lower bound if absent
+     * @param to      the last day (UTC, yyyy-MM-dd), inclusive; no upper bound if absent
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with the statistics of each day with at least one trip, oldest first
+     */
+    @RequestMapping(value = "/stats", method = RequestMethod.GET)
+    public ResponseEntity<?> getStats(@RequestParam(required = false) String from,
+                                      @RequestParam(required = false) String to,
+                                      HttpServletRequest request){
+        Long user_id = (Long) request.getAttribute("user_id");
+        List<DailyStats> stats = reportService.getDailyStats(user_id, from, to);
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Retrieves the warnings of the authenticated user's reports inside a map viewport.
+     *
+     * @param minLat  the southern edge of the viewport
+     * @param minLng  the western edge of the viewport
+     * @param maxLat  the northern edge of the viewport
+     * @param maxLng  the eastern edge of the viewport
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with the warnings inside the viewport
+     */
+    @RequestMapping(value = "/warnings/box", method = RequestMethod.GET)
+    public ResponseEntity<?> getWarningsInBox(@RequestParam double minLat, @RequestParam double minLng,
+                                              @RequestParam double maxLat, @RequestParam double maxLng,
+                                              HttpServletRequest request){
+        Long user_id = (Long) request.getAttribute("user_id");
+        List<Warning> warnings = reportService.getWarningsInBox(user_id, minLat, minLng, maxLat, maxLng);
+        return ResponseEntity.ok(warnings);
+    }
+
+    /**
+     * Retrieves the past warnings of all drivers nearest to a location, e.g. to warn about them along a route.
+     *
+     * @param lat     the latitude of the location
+     * @param lng     the longitude of the location
+     * @param k       the number of warnings to return, 10 if absent
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with the warnings, nearest first
+     */
+    @RequestMapping(value = "/warnings/nearest", method = RequestMethod.GET)
+    public ResponseEntity<?> getNearestWarnings(@RequestParam double lat, @RequestParam double lng,
+                                                @RequestParam(defaultValue = "10") int k,
+                                                HttpServletRequest request){
+        Long user_id = (Long) request.getAttribute("user_id");
+        List<NearbyWarning> warnings = nearestWarningService.getNearest(user_id, lat, lng, k);
+        return ResponseEntity.ok(warnings);
+    }
+
+    /**
+     * Retrieves the warning density of all drivers inside a map viewport, as counts per tile of a zoom level.
+     *
+     * @param zoom    the zoom level of the tiles
+     * @param minLat  the southern edge of the viewport
+     * @param minLng  the western edge of the viewport
+     * @param maxLat  the northern edge of the viewport
+     * @param maxLng  the eastern edge of the viewport
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with the tiles of the viewport that contain warnings
+     */
+    @RequestMapping(value = "/heatmap", method = RequestMethod.GET)
+    public ResponseEntity<?> getHeatmap(@RequestParam int zoom,
+                                        @RequestParam double minLat, @RequestParam double minLng,
+                                        @RequestParam double maxLat, @RequestParam double maxLng,
+                                        HttpServletRequest request){
+        Long user_id = (Long) request.getAttribute("user_id");
+        List<HeatmapTile> tiles = heatmapService.getHeatmap(user_id, zoom, minLat, minLng, maxLat, maxLng);
+        return ResponseEntity.ok(tiles);
+    }
+
+    /**
+     * Retrieves the road stretches where the warnings of all drivers concentrate, largest first.
+     *
+     * @param limit   the maximum number of hotspots to return, all published ones if absent
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with the hotspots
+     */
+    @RequestMapping(value = "/hotspots", method = RequestMethod.GET)
+    public ResponseEntity<?> getHotspots(@RequestParam(required = false) Integer limit, HttpServletRequest request){
+        Long user_id = (Long) request.getAttribute("user_id");
+        List<Hotspot> hotspots = hotspotService.getHotspots(user_id, limit);
+        return ResponseEntity.ok(hotspots);
+    }
+
+    /**
+     * Retrieves one of the authenticated user's reports with its warnings; this is the location returned by create.
+     *
+     * @param id      the ID of the report
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with the report
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+    public ResponseEntity<?> getOne(@PathVariable Long id, HttpServletRequest request){
+        Long user_id = (Long) request.getAttribute("user_id");
+        Report report = reportService.getOne(user_id, id);
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Retrieves the warnings of one of the authenticated user's reports, optionally only those recorded in [from, to).
+     *
+     * @param id      the ID of the report
+     * @param from    inclusive lower bound of created_at in epoch milliseconds, absent for no bound
+     * @param to      exclusive upper bound of created_at in epoch milliseconds, absent for no bound
+     * @param request the HTTP request containing the user ID
+     * @return ResponseEntity with the warnings of the report
+     */
+    @RequestMapping(value = "/{id}/warnings", method = RequestMethod.GET)
+    public ResponseEntity<?> getWarnings(@PathVariable Long id,
+                                         @RequestParam(required = false) Long from,
+                                         @RequestParam(required = false) Long to,
+                                         HttpServletRequest request){
+        Long user_id = (Long) request.getAttribute("user_id");
+        List<Warning> warnings = reportService.getWarnings(user_id, id, from, to);
+        return ResponseEntity.ok(warnings);
     }
 }
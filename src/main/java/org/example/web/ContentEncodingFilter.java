@@ -0,0 +1,538 @@
+package org.example.web;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.example.business.exception.PayloadTooLargeException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Filter adding gzip Content-Encoding support to request and response bodies.
+ * Requests sent with "Content-Encoding: gzip" are decompressed transparently, up to a maximum
+ * decompressed size. Responses are gzip-compressed for clients sending "Accept-Encoding: gzip",
+ * but only once the body grows past a minimum size, so small payloads are not worth the CPU.
+ * Unlike the container's built-in compression, this also records the achieved compression ratio
+ * as the "http.compression.ratio" summary, tagged with the direction.
+ */
+public class ContentEncodingFilter extends OncePerRequestFilter {
+    private static final String GZIP = "gzip";
+
+    private final int minResponseSize;
+    private final int level;
+    private final long maxRequestSize;
+    private final DistributionSummary requestRatio;
+    private final DistributionSummary responseRatio;
+
+    /**
+     * Constructs a ContentEncodingFilter.
+     *
+     * @param meterRegistry   registry for the compression ratio metrics
+     * @param minResponseSize responses smaller than this many bytes are sent uncompressed
+     * @param level           deflate level used for responses, from 1 (fastest) to 9 (smallest)
+     * @param maxRequestSize  maximum decompressed size of a request body in bytes
+     */
+    public ContentEncodingFilter(MeterRegistry meterRegistry, int minResponseSize, int level, long maxRequestSize) {
+        this.minResponseSize = minResponseSize;
+        this.level = level;
+        this.maxRequestSize = maxRequestSize;
+        this.requestRatio = DistributionSummary.builder("http.compression.ratio")
+                .description("Uncompressed size divided by compressed size of a body")
+                .tag("direction", "request")
+                .register(meterRegistry);
+        this.responseRatio = DistributionSummary.builder("http.compression.ratio")
+                .description("Uncompressed size divided by compressed size of a body")
+                .tag("direction", "response")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        GzipRequest gzipRequest = null;
+        if (contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity")) {
+            if (!isGzip(contentEncoding.trim())) {
+                response.setHeader(HttpHeaders.ACCEPT_ENCODING, GZIP);
+                response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Unsupported Content-Encoding: " + contentEncoding);
+                return;
+            }
+            gzipRequest = new GzipRequest(request);
+            request = gzipRequest;
+        }
+
+        GzipResponse gzipResponse = null;
+        if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            gzipResponse = new GzipResponse(response);
+            response = gzipResponse;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException | Error failure) {
+            // A failed response must stay visibly broken: no gzip trailer after a truncated body
+            if (gzipResponse != null) {
+                gzipResponse.abandon();
+            }
+            throw failure;
+        } finally {
+            if (gzipRequest != null) {
+                gzipRequest.recordRatio();
+            }
+        }
+        if (gzipResponse != null) {
+            gzipResponse.finish();
+        }
+    }
+
+    private static boolean isGzip(String encoding) {
+        return encoding.equalsIgnoreCase(GZIP) || encoding.equalsIgnoreCase("x-gzip");
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header allows gzip, honouring "q=0" exclusions.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean accepted = false;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.trim().split(";");
+            String coding = parts[0].trim();
+            boolean excluded = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        excluded = Double.parseDouble(parameter.substring(2)) == 0.0;
+                    } catch (NumberFormatException e) {
+                        excluded = true;
+                    }
+                }
+            }
+            if (isGzip(coding)) {
+                return !excluded;
+            }
+            if (coding.equals("*")) {
+                accepted = !excluded;
+            }
+        }
+        return accepted;
+    }
+
+    private static void record(DistributionSummary ratio, long uncompressed, long compressed) {
+        if (uncompressed > 0 && compressed > 0) {
+            ratio.record((double) uncompressed / compressed);
+        }
+    }
+
+    /**
+     * Request whose body is decompressed on the fly. The decompressed length is unknown,
+     * so Content-Length and Content-Encoding are hidden from the rest of the chain.
+     */
+    private final class GzipRequest extends HttpServletRequestWrapper {
+        private CountingInputStream compressed;
+        private ServletInputStream decompressed;
+        private long decompressedBytes;
+
+        private GzipRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (decompressed == null) {
+                compressed = new CountingInputStream(super.getInputStream());
+                InputStream gzip = new GZIPInputStream(compressed);
+                decompressed = new DelegatingInputStream(gzip) {
+                    @Override
+                    protected void count(int n) {
+                        decompressedBytes += n;
+                        if (decompressedBytes > maxRequestSize) {
+                            throw new PayloadTooLargeException("Decompressed request body exceeds " + maxRequestSize + " bytes!\n");
+                        }
+                    }
+                };
+            }
+            return decompressed;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return hidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return hidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !hidden(name))
+                    .toList());
+        }
+
+        private boolean hidden(String name) {
+            return name.equalsIgnoreCase(HttpHeaders.CONTENT_ENCODING) || name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        private void recordRatio() {
+            if (compressed != null) {
+                record(requestRatio, decompressedBytes, compressed.count);
+            }
+        }
+    }
+
+    /**
+     * Response that buffers its body until it reaches the minimum size, then switches to gzip.
+     * Bodies that stay below the minimum are written uncompressed when the request completes.
+     */
+    private final class GzipResponse extends HttpServletResponseWrapper {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private CountingOutputStream compressedOut;
+        private LevelGzipOutputStream gzip;
+        private long uncompressedBytes;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean finished;
+
+        private GzipResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new DelegatingOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        GzipResponse.this.write(bytes, offset, length);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        // Nothing is sent before the compression decision has been made
+                        if (gzip != null) {
+                            gzip.flush();
+                        }
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (gzip != null) {
+                gzip.flush();
+                super.flushBuffer();
+            }
+        }
+
+        // Once compression has started, gzip framing has been sent or buffered for the client
+        @Override
+        public boolean isCommitted() {
+            return gzip != null || super.isCommitted();
+        }
+
+        /**
+         * Discards the buffered body along with the response's status and headers, e.g. to send an error instead.
+         *
+         * @throws IllegalStateException if compression has already started
+         */
+        @Override
+        public void reset() {
+            if (gzip != null) {
+                throw new IllegalStateException("Cannot reset a response whose compressed body has been started");
+            }
+            super.reset();
+            discardBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (gzip != null) {
+                throw new IllegalStateException("Cannot reset a response whose compressed body has been started");
+            }
+            super.resetBuffer();
+            discardBuffer();
+        }
+
+        private void discardBuffer() {
+            buffer.reset();
+            uncompressedBytes = 0;
+            // Characters still held by the writer belong to the discarded body
+            writer = null;
+        }
+
+        // The length of the body on the wire is decided by finish()
+        @Override
+        public void setContentLength(int length) {
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            uncompressedBytes += length;
+            if (gzip != null) {
+                gzip.write(bytes, offset, length);
+                return;
+            }
+            buffer.write(bytes, offset, length);
+            if (buffer.size() >= minResponseSize && !encodedByApplication()) {
+                startGzip();
+            }
+        }
+
+        private boolean encodedByApplication() {
+            return ((HttpServletResponse) getResponse()).containsHeader(HttpHeaders.CONTENT_ENCODING);
+        }
+
+        private void startGzip() throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            compressedOut = new CountingOutputStream(response.getOutputStream());
+            gzip = new LevelGzipOutputStream(compressedOut, level);
+            buffer.writeTo(gzip);
+            buffer.reset();
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (writer != null) {
+                writer.flush();
+            }
+            if (gzip != null) {
+                gzip.finish();
+                record(responseRatio, uncompressedBytes, compressedOut.count);
+            } else if (buffer.size() > 0) {
+                getResponse().setContentLength(buffer.size());
+                buffer.writeTo(getResponse().getOutputStream());
+            }
+        }
+
+        /**
+         * Ends a response whose request failed: the buffered body is dropped, and a started gzip stream
+         * is left without its trailer, so the client cannot mistake the truncated body for a complete one.
+         */
+        private void abandon() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            buffer.reset();
+            if (gzip != null) {
+                gzip.discard();
+            }
+        }
+    }
+
+    /**
+     * Syncing gzip stream with a configurable deflate level, which can be dropped without writing its trailer.
+     */
+    private static final class LevelGzipOutputStream extends GZIPOutputStream {
+        private LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192, true);
+            def.setLevel(level);
+        }
+
+        private void discard() {
+            def.end();
+        }
+    }
+
+    /**
+     * Counts the bytes read from the compressed request body.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Counts the bytes of the compressed response body.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+    }
+
+    /**
+     * Blocking ServletInputStream over a plain InputStream, reporting every chunk read to count().
+     */
+    private abstract static class DelegatingInputStream extends ServletInputStream {
+        private final InputStream in;
+        private boolean finished;
+
+        private DelegatingInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        protected abstract void count(int n);
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                finished = true;
+            } else {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = in.read(buffer, offset, length);
+            if (n < 0) {
+                finished = true;
+            } else if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Asynchronous reads are not supported for compressed requests");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Blocking ServletOutputStream; subclasses decide where the bytes go.
+     */
+    private abstract static class DelegatingOutputStream extends ServletOutputStream {
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("Asynchronous writes are not supported for compressed responses");
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.web;
+
+/**
+ * Thrown by handlers that fail after part of their response has been sent. No error body can be written any
+ * more, so GlobalExceptionHandler leaves it to the servlet container, which closes the connection of a
+ * committed response that fails; the client then sees an incomplete response instead of a truncated one
+ * that looks complete.
+ */
+public class ResponseAbortedException extends RuntimeException {
+    public ResponseAbortedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
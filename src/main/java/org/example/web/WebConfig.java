@@ -0,0 +1,69 @@
+package org.example.web;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Web configuration for the HTTP layer that is not related to security:
+ * body compression and the binary wire formats.
+ */
+@Configuration
+public class WebConfig {
+
+    /**
+     * Registers gzip request decoding and response encoding for the report endpoints,
+     * enabled unless {@code reports.compression.enabled=false}.
+     *
+     * @param meterRegistry   registry for the compression ratio metrics
+     * @param minResponseSize responses smaller than this many bytes are sent uncompressed
+     * @param level           deflate level used for responses
+     * @param maxRequestSize  maximum decompressed size of a request body in bytes
+     * @return FilterRegistrationBean for the content encoding filter
+     */
+    @Bean
+    @ConditionalOnProperty(name = "reports.compression.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<ContentEncodingFilter> contentEncodingFilterRegistration(
+            MeterRegistry meterRegistry,
+            @Value("${reports.compression.min-response-size:1024}") int minResponseSize,
+            @Value("${reports.compression.level:5}") int level,
+            @Value("${reports.compression.max-request-size:52428800}") long maxRequestSize) {
+        FilterRegistrationBean<ContentEncodingFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new ContentEncodingFilter(meterRegistry, minResponseSize, level, maxRequestSize));
+        registrationBean.addUrlPatterns("/reports/*");
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 1); // after CORS, before JWT
+        return registrationBean;
+    }
+
+    /**
+     * Lets report endpoints read and write CBOR (application/cbor) as a compact binary
+     * alternative to JSON, chosen by the client through Content-Type and Accept.
+     * Uses the same mapper settings as JSON, so the domain model is shared.
+     *
+     * @param builder the application's object mapper builder
+     * @return message converter for CBOR
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Lets report endpoints read and write Smile (application/x-jackson-smile), Jackson's binary JSON.
+     *
+     * @param builder the application's object mapper builder
+     * @return message converter for Smile
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
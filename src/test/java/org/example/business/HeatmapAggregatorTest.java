@@ -0,0 +1,90 @@
+package org.example.business;
+
+import org.example.domain.HeatmapTile;
+import org.example.domain.Warning;
+import org.example.persistence.IWarningTileRepository;
+import org.example.persistence.RepositoryException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class HeatmapAggregatorTest {
+
+    @Mock
+    private IWarningTileRepository mockTileRepository;
+
+    private HeatmapAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        // Flushes are triggered by the tests only
+        aggregator = new HeatmapAggregator(mockTileRepository, TransactionOperations.withoutTransaction(), 3, 10, 3_600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        aggregator.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<HeatmapTile> flushedTiles() {
+        ArgumentCaptor<List<HeatmapTile>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockTileRepository).addCounts(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void flush_shouldWriteCountsForEveryZoomLevel() {
+        // --- ARRANGE ---
+        aggregator.record(List.of(
+                new Warning(1L, "Lane departure", 45.65, 25.60, null),
+                new Warning(1L, "Lane departure", 45.65, 25.60, null),
+                new Warning(2L, "Lane departure", -33.9, 151.2, null)));
+
+        // --- ACT ---
+        aggregator.flush();
+
+        // --- ASSERT ---
+        List<HeatmapTile> tiles = flushedTiles();
+        assertThat(tiles).hasSize(2 * 8);
+        assertThat(tiles).filteredOn(tile -> tile.getZoom() == 10 && tile.getX() == 584 && tile.getY() == 365)
+                .singleElement().extracting(HeatmapTile::getWarning_count).isEqualTo(2L);
+        assertThat(tiles).filteredOn(tile -> tile.getZoom() == 3 && tile.getX() == 4 && tile.getY() == 2)
+                .singleElement().extracting(HeatmapTile::getWarning_count).isEqualTo(2L);
+    }
+
+    @Test
+    void flush_shouldDoNothing_whenNoWarningsWereRecorded() {
+        aggregator.flush();
+
+        verifyNoMoreInteractions(mockTileRepository);
+    }
+
+    @Test
+    void flush_shouldKeepCounts_whenWritingFails() {
+        // --- ARRANGE ---
+        aggregator.record(List.of(new Warning(1L, "Lane departure", 45.65, 25.60, null)));
+        doThrow(new RepositoryException("DB connection failed")).doNothing().when(mockTileRepository).addCounts(anyList());
+
+        // --- ACT ---
+        aggregator.flush();
+        aggregator.flush();
+
+        // --- ASSERT ---
+        verify(mockTileRepository, times(2)).addCounts(anyList());
+        aggregator.flush();
+        verifyNoMoreInteractions(mockTileRepository);
+    }
+}
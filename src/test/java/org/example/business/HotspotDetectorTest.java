@@ -0,0 +1,153 @@
+package org.example.business;
+
+import org.example.business.exception.ServiceUnavailableException;
+import org.example.domain.Hotspot;
+import org.example.domain.HotspotCell;
+import org.example.domain.Warning;
+import org.example.persistence.IHotspotCellRepository;
+import org.example.persistence.IWarningRepository;
+import org.example.persistence.RepositoryException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class HotspotDetectorTest {
+    private static final double EPS_METERS = 25;
+
+    @Mock
+    private IHotspotCellRepository mockCellRepository;
+    @Mock
+    private IWarningRepository mockWarningRepository;
+
+    private HotspotDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        // Snapshots are triggered by the tests only
+        detector = new HotspotDetector(mockCellRepository, mockWarningRepository, TransactionOperations.withoutTransaction(),
+                EPS_METERS, 20, 3_600_000, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        detector.shutdown();
+    }
+
+    private static List<Warning> warningsAt(double lat, double lng, int count) {
+        return new ArrayList<>(Collections.nCopies(count, new Warning(1L, "Lane departure", lat, lng, null)));
+    }
+
+    private void stubStoredCells(HotspotCell... cells) {
+        doAnswer(invocation -> {
+            Consumer<HotspotCell> consumer = invocation.getArgument(0);
+            for (HotspotCell cell : cells) {
+                consumer.accept(cell);
+            }
+            return null;
+        }).when(mockCellRepository).forEach(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<HotspotCell>> writtenCells() {
+        ArgumentCaptor<List<HotspotCell>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockCellRepository, atLeastOnce()).addCells(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void load_shouldRebuildHotspotsFromStoredCells() {
+        // --- ARRANGE ---
+        HotspotGrid grid = new HotspotGrid(EPS_METERS);
+        int row = grid.row(45.65);
+        stubStoredCells(new HotspotCell(row, grid.column(row, 25.60), 25, 25 * 45.65, 25 * 25.60));
+
+        // --- ACT ---
+        detector.load();
+
+        // --- ASSERT ---
+        List<Hotspot> hotspots = detector.getHotspots();
+        assertThat(hotspots).hasSize(1);
+        assertThat(hotspots.get(0).getWarning_count()).isEqualTo(25);
+        assertThat(hotspots.get(0).getLat()).isCloseTo(45.65, within(1e-9));
+        verifyNoMoreInteractions(mockWarningRepository);
+    }
+
+    @Test
+    void load_shouldComputeCellsFromWarnings_whenNoneAreStored() {
+        // --- ARRANGE ---
+        stubStoredCells();
+        doAnswer(invocation -> {
+            Consumer<Warning> consumer = invocation.getArgument(0);
+            warningsAt(45.65, 25.60, 30).forEach(consumer);
+            return null;
+        }).when(mockWarningRepository).forEach(any());
+
+        // --- ACT ---
+        detector.load();
+
+        // --- ASSERT ---
+        assertThat(writtenCells().get(0)).singleElement().extracting(HotspotCell::getWarning_count).isEqualTo(30L);
+        assertThat(detector.getHotspots()).singleElement().extracting(Hotspot::getWarning_count).isEqualTo(30L);
+    }
+
+    @Test
+    void snapshot_shouldPublishAndWriteRecordedWarnings() {
+        // --- ARRANGE ---
+        stubStoredCells();
+        detector.load();
+        List<Warning> warnings = warningsAt(45.65, 25.60, 15);
+        // 10 m further north: an adjacent cell, so the two cells are dense together
+        warnings.addAll(warningsAt(45.65009, 25.60, 5));
+        warnings.addAll(warningsAt(44.0, 22.0, 3));
+
+        // --- ACT ---
+        detector.record(warnings);
+        List<Hotspot> beforeSnapshot = detector.getHotspots();
+        detector.snapshot();
+
+        // --- ASSERT ---
+        assertThat(beforeSnapshot).isEmpty();
+        assertThat(detector.getHotspots()).singleElement().extracting(Hotspot::getWarning_count).isEqualTo(20L);
+        List<HotspotCell> written = writtenCells().get(writtenCells().size() - 1);
+        assertThat(written).extracting(HotspotCell::getWarning_count).containsExactlyInAnyOrder(15L, 5L, 3L);
+    }
+
+    @Test
+    void snapshot_shouldKeepCells_whenWritingFails() {
+        // --- ARRANGE ---
+        stubStoredCells(new HotspotCell(1, 1, 1, 0, 0));
+        detector.load();
+        detector.record(warningsAt(45.65, 25.60, 1));
+        doThrow(new RepositoryException("DB connection failed")).doNothing().when(mockCellRepository).addCells(anyList());
+
+        // --- ACT ---
+        detector.snapshot();
+        detector.snapshot();
+
+        // --- ASSERT ---
+        verify(mockCellRepository, times(2)).addCells(anyList());
+    }
+
+    @Test
+    void getHotspots_shouldBeUnavailable_untilLoaded() {
+        assertThatThrownBy(() -> detector.getHotspots()).isInstanceOf(ServiceUnavailableException.class);
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.business;
+
+import org.example.business.exception.ServiceUnavailableException;
+import org.example.domain.NearbyWarning;
+import org.example.domain.Warning;
+import org.example.persistence.IWarningRepository;
+import org.example.persistence.RepositoryException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+public class NearestWarningIndexTest {
+
+    @Mock
+    private IWarningRepository mockWarningRepository;
+
+    private NearestWarningIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NearestWarningIndex(mockWarningRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    private static Warning warning(long id, double lat, double lng) {
+        Warning warning = new Warning(1L, "Warning " + id, lat, lng, 1000L + id);
+        warning.setId(id);
+        return warning;
+    }
+
+    private static List<Warning> randomWarnings(Random random, long firstId, int count) {
+        List<Warning> warnings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            warnings.add(warning(firstId + i, 45 + random.nextDouble(), 25 + random.nextDouble()));
+        }
+        return warnings;
+    }
+
+    private void stubTable(List<Warning> warnings) {
+        doAnswer(invocation -> {
+            Consumer<Warning> consumer = invocation.getArgument(0);
+            warnings.forEach(consumer);
+            return null;
+        }).when(mockWarningRepository).forEach(any());
+    }
+
+    /**
+     * Texts of the k warnings nearest to the location, found by comparing the location with every warning.
+     */
+    private static List<String> bruteForce(List<Warning> warnings, double lat, double lng, int k) {
+        double[] query = WarningPoints.unitVector(lat, lng);
+        return warnings.stream()
+                .sorted(Comparator.comparingDouble(w -> {
+                    double[] point = WarningPoints.unitVector(w.getLat(), w.getLng());
+                    double dx = point[0] - query[0], dy = point[1] - query[1], dz = point[2] - query[2];
+                    return dx * dx + dy * dy + dz * dz;
+                }))
+                .limit(k)
+                .map(Warning::getText)
+                .toList();
+    }
+
+    @Test
+    void nearest_shouldMatchBruteForce_acrossLoadedAndAddedWarnings() {
+        // --- ARRANGE ---
+        Random random = new Random(42);
+        List<Warning> all = new ArrayList<>(randomWarnings(random, 1, 20_000));
+        stubTable(all);
+        index.load();
+        // Enough to trigger a rebuild in the background; queries stay exact while it runs
+        List<Warning> added = randomWarnings(random, 100_001, 5_000);
+        index.add(added);
+        all.addAll(added);
+
+        // --- ACT & ASSERT ---
+        for (int q = 0; q < 100; q++) {
+            double lat = 45 + random.nextDouble();
+            double lng = 25 + random.nextDouble();
+            List<NearbyWarning> nearest = index.nearest(lat, lng, 10);
+            assertThat(nearest).extracting(NearbyWarning::getText).containsExactlyElementsOf(bruteForce(all, lat, lng, 10));
+        }
+        assertThat(index.size()).isEqualTo(25_000);
+    }
+
+    @Test
+    void nearest_shouldReturnLocationAndDistance() {
+        // --- ARRANGE ---
+        stubTable(List.of(warning(1, 45.0, 25.0), warning(2, 45.01, 25.0)));
+        index.load();
+
+        // --- ACT ---
+        List<NearbyWarning> nearest = index.nearest(45.0, 25.0, 5);
+
+        // --- ASSERT ---
+        assertThat(nearest).hasSize(2);
+        assertThat(nearest.get(0).getLat()).isCloseTo(45.0, within(1e-9));
+        assertThat(nearest.get(0).getLng()).isCloseTo(25.0, within(1e-9));
+        assertThat(nearest.get(0).getCreated_at()).isEqualTo(1001L);
+        assertThat(nearest.get(0).getDistance_m()).isCloseTo(0.0, within(1e-3));
+        // 0.01 degrees of latitude are about 1112 m
+        assertThat(nearest.get(1).getDistance_m()).isCloseTo(1112.0, within(1.0));
+    }
+
+    @Test
+    void nearest_shouldIgnoreWarningHeldTwice() {
+        // --- ARRANGE ---
+        stubTable(List.of(warning(1, 45.0, 25.0)));
+        index.load();
+        index.add(List.of(warning(1, 45.0, 25.0), warning(2, 45.5, 25.5)));
+
+        // --- ACT ---
+        List<NearbyWarning> nearest = index.nearest(45.0, 25.0, 2);
+
+        // --- ASSERT ---
+        assertThat(nearest).extracting(NearbyWarning::getText).containsExactly("Warning 1", "Warning 2");
+    }
+
+    @Test
+    void nearest_shouldBeUnavailable_untilLoaded() {
+        // --- ARRANGE ---
+        doThrow(new RepositoryException("down", null)).when(mockWarningRepository).forEach(any());
+
+        // --- ACT ---
+        index.load();
+
+        // --- ASSERT ---
+        assertThat(index.isLoaded()).isFalse();
+        assertThatThrownBy(() -> index.nearest(45.0, 25.0, 1))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+}
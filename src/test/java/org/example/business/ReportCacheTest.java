@@ -0,0 +1,79 @@
+package org.example.business;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<Report> load(Long user_id, int warnings) {
+        loads.incrementAndGet();
+        Report report = new Report(user_id, 45.0, 25.0, 46.0, 26.0, 1000L);
+        List<Warning> list = new ArrayList<>();
+        for (int i = 0; i < warnings; i++) {
+            list.add(new Warning(null, "Lane departure", 45.1, 25.1, 1000L + i));
+        }
+        report.setWarnings(list);
+        return List.of(report);
+    }
+
+    @Test
+    void get_shouldLoadOnce_andCountHitsAndMisses() {
+        ReportCache cache = new ReportCache(meterRegistry, 1000, 60);
+
+        cache.get(1L, id -> load(id, 1));
+        cache.get(1L, id -> load(id, 1));
+        cache.get(1L, id -> load(id, 1));
+
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "reports").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "reports").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void onReportsChanged_shouldDropOnlyThatUsersEntry() {
+        ReportCache cache = new ReportCache(meterRegistry, 1000, 60);
+        cache.get(1L, id -> load(id, 1));
+        cache.get(2L, id -> load(id, 1));
+
+        cache.onReportsChanged(new ReportsChangedEvent(1L, List.of()));
+        cache.get(1L, id -> load(id, 1));
+        cache.get(2L, id -> load(id, 1));
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void onReportsChanged_shouldDropTheEntryAgain_whenTheTransactionEnds() {
+        ReportCache cache = new ReportCache(meterRegistry, 1000, 60);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.onReportsChanged(new ReportsChangedEvent(1L, List.of()));
+            // Loaded before the reports are committed
+            cache.get(1L, id -> load(id, 1));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        cache.get(1L, id -> load(id, 1));
+
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.business;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.business.exception.ServiceUnavailableException;
+import org.example.business.exception.ValidationException;
+import org.example.domain.Report;
+import org.example.persistence.IdAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportIngestionQueueTest {
+
+    @Mock
+    private ReportService mockReportService;
+    @Mock
+    private IdAllocator mockIdAllocator;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReportIngestionQueue ingestionQueue;
+
+    @AfterEach
+    void tearDown() {
+        if (ingestionQueue != null) {
+            ingestionQueue.shutdown();
+        }
+    }
+
+    @Test
+    void enqueue_shouldPersistReportInBackground() {
+        ingestionQueue = new ReportIngestionQueue(mockReportService, mockIdAllocator, meterRegistry, 10, 1, 5);
+        Report report = new Report();
+        when(mockIdAllocator.next(IdAllocator.REPORTS)).thenReturn(42L);
+
+        Report accepted = ingestionQueue.enqueue(report);
+
+        assertThat(accepted.getId()).isEqualTo(42L);
+        verify(mockReportService).validate(report);
+        verify(mockReportService, timeout(2000)).create(report);
+        assertThat(meterRegistry.counter("reports.ingestion.accepted").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void enqueue_shouldRejectInvalidReportWithoutQueueing() {
+        ingestionQueue = new ReportIngestionQueue(mockReportService, mockIdAllocator, meterRegistry, 10, 1, 5);
+        Report report = new Report();
+        doThrow(new ValidationException("Invalid data")).when(mockReportService).validate(report);
+
+        assertThatThrownBy(() -> ingestionQueue.enqueue(report))
+                .isInstanceOf(ValidationException.class);
+        assertThat(ingestionQueue.depth()).isZero();
+        verify(mockReportService, never()).create(any(Report.class));
+    }
+
+    @Test
+    void enqueue_shouldThrowServiceUnavailable_whenQueueIsFull() throws InterruptedException {
+        // --- ARRANGE ---
+        // The single writer blocks on the first report, so the queue (capacity 1) fills up behind it.
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockReportService.create(any(Report.class))).thenAnswer(invocation -> {
+            writerBusy.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        ingestionQueue = new ReportIngestionQueue(mockReportService, mockIdAllocator, meterRegistry, 1, 1, 7);
+
+        ingestionQueue.enqueue(new Report());
+        assertThat(writerBusy.await(2, TimeUnit.SECONDS)).isTrue();
+        ingestionQueue.enqueue(new Report());
+
+        // --- ACT & ASSERT ---
+        assertThatThrownBy(() -> ingestionQueue.enqueue(new Report()))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .extracting(e -> ((ServiceUnavailableException) e).getRetryAfterSeconds())
+                .isEqualTo(7L);
+        assertThat(meterRegistry.counter("reports.ingestion.rejected").count()).isEqualTo(1.0);
+
+        release.countDown();
+        verify(mockReportService, timeout(2000).times(2)).create(any(Report.class));
+    }
+}
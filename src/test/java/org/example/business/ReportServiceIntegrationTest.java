@@ -94,4 +94,19 @@ public class ReportServiceIntegrationTest {
         List<Report> reportsFromDb = reportRepository.getAllOfUser(testUser.getId());
         assertThat(reportsFromDb).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAll_shouldIncludeNewReport_afterCachedRead() {
+        // --- ARRANGE ---
+        // The first read puts the (empty) list of the user into the report cache
+        assertThat(reportService.getAll(testUser.getId())).isEmpty();
+        Report newReport = new Report(testUser.getId(), 45.0, 25.0, 46.0, 26.0, null);
+        newReport.setWarnings(List.of(new Warning(null, "Warning 1", 45.1, 25.1, null)));
+
+        // --- ACT ---
+        reportService.create(newReport);
+
+        // --- ASSERT ---
+        assertThat(reportService.getAll(testUser.getId())).containsExactly(newReport);
+    }
+}
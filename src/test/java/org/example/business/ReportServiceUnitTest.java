@@ -1,28 +1,41 @@
 package org.example.business;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.example.business.exception.DataAccessException;
+import org.example.business.exception.ResourceNotFoundException;
 import org.example.business.exception.ValidationException;
+import org.example.domain.DailyStats;
 import org.example.domain.Report;
 import org.example.domain.Warning;
 import org.example.domain.validators.ReportValidator;
 import org.example.domain.validators.WarningValidator;
+import org.example.persistence.IDailyStatsRepository;
 import org.example.persistence.IReportRepository;
 import org.example.persistence.IWarningRepository;
 import org.example.persistence.RepositoryException;
+import org.example.persistence.WarningTypeDictionary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +45,10 @@ public class ReportServiceUnitTest {
     private IReportRepository mockReportRepository;
     @Mock
     private IWarningRepository mockWarningRepository;
+    @Mock
+    private IDailyStatsRepository mockDailyStatsRepository;
+    @Mock
+    private WarningTypeDictionary mockWarningTypes;
 
     @InjectMocks
     private ReportService reportService;
@@ -80,7 +97,7 @@ public class ReportServiceUnitTest {
             r.setId(100L);
             return Optional.of(r);
         });
-        when(mockWarningRepository.add(any(Warning.class))).thenThrow(new RepositoryException("DB connection failed for warning"));
+        when(mockWarningRepository.addAll(anyList())).thenThrow(new RepositoryException("DB connection failed for warning"));
 
         // --- ACT & ASSERT ---
         assertThatThrownBy(() -> reportService.create(validReport))
@@ -99,4 +116,280 @@ public class ReportServiceUnitTest {
         assertThatThrownBy(() -> reportService.create(invalidReport))
                 .isInstanceOf(ValidationException.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    void create_shouldRegisterWarningTypesBeforeWriting() {
+        // --- ARRANGE ---
+        Report validReport = createFullyValidReport();
+        when(mockReportRepository.add(any(Report.class))).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        // --- ACT ---
+        reportService.create(validReport);
+
+        // --- ASSERT ---
+        InOrder inOrder = inOrder(mockWarningTypes, mockReportRepository, mockWarningRepository);
+        inOrder.verify(mockWarningTypes).registerAll(Set.of("A valid warning"));
+        inOrder.verify(mockReportRepository).add(validReport);
+        inOrder.verify(mockWarningRepository).addAll(validReport.getWarnings());
+    }
+
+    @Test
+    void create_shouldThrowValidationException_whenNoMoreWarningTypesCanBeRegistered() {
+        // --- ARRANGE ---
+        Report validReport = createFullyValidReport();
+        when(mockWarningTypes.registerAll(Set.of("A valid warning"))).thenReturn(List.of("A valid warning"));
+
+        // --- ACT & ASSERT ---
+        assertThatThrownBy(() -> reportService.create(validReport))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("Unknown warning type A valid warning");
+        verifyNoMoreInteractions(mockReportRepository, mockWarningRepository);
+    }
+
+    @Test
+    void create_shouldSaveAllWarningsInOneBatch() {
+        // --- ARRANGE ---
+        Report validReport = createFullyValidReport();
+        when(mockReportRepository.add(any(Report.class))).thenAnswer(invocation -> {
+            Report r = invocation.getArgument(0);
+            r.setId(100L);
+            return Optional.of(r);
+        });
+        when(mockWarningRepository.addAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // --- ACT ---
+        reportService.create(validReport);
+
+        // --- ASSERT ---
+        verify(mockWarningRepository, times(1)).addAll(validReport.getWarnings());
+        verify(mockWarningRepository, never()).add(any(Warning.class));
+        assertThat(validReport.getWarnings().get(0).getReport_id()).isEqualTo(100L);
+    }
+
+    @Test
+    void createAll_shouldSaveValidReportsTogether_andRejectInvalidOnes() {
+        // --- ARRANGE ---
+        Report first = createFullyValidReport();
+        Report invalid = new Report();
+        invalid.setWarnings(List.of()); // Fails "No warnings found!" validation
+        Report second = createFullyValidReport();
+        when(mockReportRepository.addAll(anyList())).thenAnswer(invocation -> {
+            List<Report> reports = invocation.getArgument(0);
+            long id = 100L;
+            for (Report r : reports) {
+                r.setId(id++);
+            }
+            return reports;
+        });
+        when(mockWarningRepository.addAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        List<Object> events = new ArrayList<>();
+        ReflectionTestUtils.setField(reportService, "eventPublisher", (ApplicationEventPublisher) events::add);
+
+        // --- ACT ---
+        List<BatchItemResult> results = reportService.createAll(1L, Arrays.asList(first, invalid, second));
+
+        // --- ASSERT ---
+        verify(mockReportRepository, times(1)).addAll(List.of(first, second));
+        verify(mockWarningRepository, times(1)).addAll(List.of(first.getWarnings().get(0), second.getWarnings().get(0)));
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsExactly(BatchItemResult.CREATED, BatchItemResult.REJECTED, BatchItemResult.CREATED);
+        assertThat(results).extracting(BatchItemResult::getId).containsExactly(100L, null, 101L);
+        assertThat(results.get(1).getError()).contains("No warnings found!");
+        assertThat(second.getWarnings().get(0).getReport_id()).isEqualTo(101L);
+        verify(mockDailyStatsRepository, times(1)).addAll(argThat(stats -> stats.size() == 2));
+        // One announcement carries the warnings of every saved report
+        assertThat(events).hasSize(1);
+        List<Warning> announced = new ArrayList<>();
+        ((ReportsChangedEvent) events.get(0)).warnings().forEach(announced::addAll);
+        assertThat(announced).containsExactly(first.getWarnings().get(0), second.getWarnings().get(0));
+    }
+
+    @Test
+    void createInChunks_shouldWriteEveryChunk_andAnnounceThemOnce() {
+        // --- ARRANGE ---
+        Report report = createFullyValidReport();
+        report.setCreated_at(1000L);
+        report.setWarnings(null);
+        List<List<Warning>> chunks = List.of(
+                List.of(new Warning(null, "A valid warning", 45.1, 25.1, null), new Warning(null, "A valid warning", 45.2, 25.2, null)),
+                List.of(new Warning(null, "A valid warning", 45.3, 25.3, null)));
+        WarningChunks warnings = chunks::forEach;
+        when(mockReportRepository.add(any(Report.class))).thenAnswer(invocation -> {
+            Report r = invocation.getArgument(0);
+            r.setId(100L);
+            return Optional.of(r);
+        });
+        when(mockWarningRepository.addAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        List<Object> events = new ArrayList<>();
+        ReflectionTestUtils.setField(reportService, "eventPublisher", (ApplicationEventPublisher) events::add);
+
+        // --- ACT ---
+        Report created = reportService.createInChunks(report, 3, warnings);
+
+        // --- ASSERT ---
+        assertThat(created.getId()).isEqualTo(100L);
+        verify(mockWarningRepository, times(1)).addAll(chunks.get(0));
+        verify(mockWarningRepository, times(1)).addAll(chunks.get(1));
+        assertThat(chunks.get(1).get(0).getReport_id()).isEqualTo(100L);
+        verify(mockDailyStatsRepository, times(1)).addAll(argThat(stats -> stats.get(0).getWarning_count() == 3));
+        assertThat(events).hasSize(1);
+        List<Warning> announced = new ArrayList<>();
+        ((ReportsChangedEvent) events.get(0)).warnings().forEach(announced::addAll);
+        assertThat(announced).hasSize(3).allMatch(w -> w.getReport_id().equals(100L));
+    }
+
+    @Test
+    void createAll_shouldThrowValidationException_whenBatchIsTooLarge() {
+        // --- ARRANGE ---
+        ReflectionTestUtils.setField(reportService, "maxBatchSize", 1);
+        List<Report> reports = List.of(createFullyValidReport(), createFullyValidReport());
+
+        // --- ACT & ASSERT ---
+        assertThatThrownBy(() -> reportService.createAll(1L, reports))
+                .isInstanceOf(ValidationException.class);
+        verifyNoMoreInteractions(mockReportRepository, mockWarningRepository);
+    }
+
+    @Test
+    void createAll_shouldThrowDataAccessException_whenSaveFails() {
+        // --- ARRANGE ---
+        List<Report> reports = List.of(createFullyValidReport(), createFullyValidReport());
+        when(mockReportRepository.addAll(anyList())).thenThrow(new RepositoryException("DB connection failed"));
+        List<Object> events = new ArrayList<>();
+        ReflectionTestUtils.setField(reportService, "eventPublisher", (ApplicationEventPublisher) events::add);
+
+        // --- ACT & ASSERT ---
+        assertThatThrownBy(() -> reportService.createAll(1L, reports))
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("Error while creating reports!");
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void getPage_shouldReturnCursor_whenMoreReportsExist() {
+        // --- ARRANGE ---
+        Report newer = new Report(1L, 45.0, 25.0, 46.0, 26.0, 2000L);
+        newer.setId(2L);
+        Report older = new Report(1L, 45.0, 25.0, 46.0, 26.0, 1000L);
+        older.setId(1L);
+        when(mockReportRepository.getPageOfUser(1L, null, null, 2)).thenReturn(List.of(newer, older));
+        when(mockReportRepository.getPageOfUser(1L, 2000L, 2L, 2)).thenReturn(List.of(older));
+
+        // --- ACT ---
+        ReportPage first = reportService.getPage(1L, null, 1);
+        ReportPage second = reportService.getPage(1L, first.getNext_cursor(), 1);
+
+        // --- ASSERT ---
+        assertThat(first.getReports()).containsExactly(newer);
+        assertThat(first.getNext_cursor()).isNotNull();
+        assertThat(second.getReports()).containsExactly(older);
+        assertThat(second.getNext_cursor()).isNull();
+    }
+
+    @Test
+    void getPage_shouldThrowValidationException_forInvalidCursorOrLimit() {
+        assertThatThrownBy(() -> reportService.getPage(1L, "not a cursor", 10))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> reportService.getPage(1L, null, 101))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> reportService.getPage(1L, null, 0))
+                .isInstanceOf(ValidationException.class);
+        verifyNoMoreInteractions(mockReportRepository);
+    }
+
+    @Test
+    void getOne_shouldReturnReport_whenItBelongsToUser() {
+        // --- ARRANGE ---
+        Report report = createFullyValidReport();
+        report.setId(5L);
+        when(mockReportRepository.findOne(5L)).thenReturn(Optional.of(report));
+
+        // --- ACT & ASSERT ---
+        assertThat(reportService.getOne(1L, 5L)).isSameAs(report);
+    }
+
+    @Test
+    void getOne_shouldThrowResourceNotFound_whenReportIsMissingOrBelongsToAnotherUser() {
+        // --- ARRANGE ---
+        Report report = createFullyValidReport();
+        report.setId(5L);
+        when(mockReportRepository.findOne(5L)).thenReturn(Optional.of(report));
+        when(mockReportRepository.findOne(6L)).thenReturn(Optional.empty());
+
+        // --- ACT & ASSERT ---
+        assertThatThrownBy(() -> reportService.getOne(2L, 5L))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> reportService.getOne(1L, 6L))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void getWarningsInBox_shouldThrowValidationException_forNonFiniteCoordinates() {
+        assertThatThrownBy(() -> reportService.getWarningsInBox(1L, Double.NaN, 25.0, 46.0, 26.0))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> reportService.getWarningsInBox(1L, 45.0, 25.0, 46.0, Double.POSITIVE_INFINITY))
+                .isInstanceOf(ValidationException.class);
+        verifyNoMoreInteractions(mockWarningRepository);
+    }
+
+    @Test
+    void getAll_shouldQueryWindow_andRejectReversedRange() {
+        // --- ARRANGE ---
+        Report report = createFullyValidReport();
+        when(mockReportRepository.getAllOfUser(1L, 1000L, 2000L)).thenReturn(List.of(report));
+
+        // --- ACT & ASSERT ---
+        assertThat(reportService.getAll(1L, 1000L, 2000L)).containsExactly(report);
+        assertThatThrownBy(() -> reportService.getAll(1L, 2000L, 1000L))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> reportService.getWarnings(1L, 5L, 2000L, 1000L))
+                .isInstanceOf(ValidationException.class);
+        verify(mockReportRepository, never()).isOwnedBy(any(), any());
+    }
+
+    @Test
+    void getDailyStats_shouldQueryDays_andRejectMalformedOrReversedDays() {
+        // --- ARRANGE ---
+        DailyStats day = new DailyStats(1L, "2024-03-01", 2, 5, 1000L, 2000L);
+        when(mockDailyStatsRepository.getOfUser(1L, LocalDate.of(2024, 3, 1), null)).thenReturn(List.of(day));
+
+        // --- ACT & ASSERT ---
+        assertThat(reportService.getDailyStats(1L, "2024-03-01", null)).containsExactly(day);
+        assertThatThrownBy(() -> reportService.getDailyStats(1L, "2024-03-02", "2024-03-01"))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> reportService.getDailyStats(1L, "1709251200000", null))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void getWarnings_shouldThrowResourceNotFound_whenReportBelongsToAnotherUser() {
+        // --- ARRANGE ---
+        when(mockReportRepository.isOwnedBy(5L, 1L)).thenReturn(false);
+
+        // --- ACT & ASSERT ---
+        assertThatThrownBy(() -> reportService.getWarnings(1L, 5L))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(mockWarningRepository, never()).getAllOfReport(any(), any(), any());
+    }
+
+    @Test
+    void getAll_shouldUseCache_andCreateShouldInvalidateIt() {
+        // --- ARRANGE ---
+        ReportCache cache = new ReportCache(new SimpleMeterRegistry(), 1000, 60);
+        ReflectionTestUtils.setField(reportService, "reportCache", cache);
+        ReflectionTestUtils.setField(reportService, "eventPublisher",
+                (ApplicationEventPublisher) event -> cache.onReportsChanged((ReportsChangedEvent) event));
+        Report validReport = createFullyValidReport();
+        when(mockReportRepository.getAllOfUser(1L)).thenReturn(List.of()).thenReturn(List.of(validReport));
+        when(mockReportRepository.add(any(Report.class))).thenReturn(Optional.of(validReport));
+
+        // --- ACT & ASSERT ---
+        assertThat(reportService.getAll(1L)).isEmpty();
+        assertThat(reportService.getAll(1L)).isEmpty();
+        verify(mockReportRepository, times(1)).getAllOfUser(1L);
+
+        reportService.create(validReport);
+        assertThat(reportService.getAll(1L)).containsExactly(validReport);
+        verify(mockReportRepository, times(2)).getAllOfUser(1L);
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.example.business.exception.PayloadTooLargeException;
+import org.example.business.exception.ValidationException;
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportStreamIngestorTest {
+
+    @Mock
+    private ReportService mockReportService;
+
+    private ReportStreamIngestor newIngestor(long maxBytes, int maxWarnings) {
+        return newIngestor(500, maxBytes, maxWarnings);
+    }
+
+    private ReportStreamIngestor newIngestor(int chunkSize, long maxBytes, int maxWarnings) {
+        return new ReportStreamIngestor(new ObjectMapper(), mockReportService, chunkSize, maxBytes, maxWarnings);
+    }
+
+    /**
+     * Warnings handed to the service, read from its chunks while the stub runs.
+     */
+    private final List<Warning> createdWarnings = new ArrayList<>();
+    private int createdWarningCount;
+    private int largestChunk;
+
+    private void stubReportService() {
+        when(mockReportService.createInChunks(any(Report.class), anyInt(), any(WarningChunks.class))).thenAnswer(invocation -> {
+            Report r = invocation.getArgument(0);
+            createdWarningCount = invocation.getArgument(1);
+            WarningChunks chunks = invocation.getArgument(2);
+            chunks.forEach(chunk -> {
+                largestChunk = Math.max(largestChunk, chunk.size());
+                createdWarnings.addAll(chunk);
+            });
+            r.setId(100L);
+            return r;
+        });
+    }
+
+    private Report createdReport() {
+        ArgumentCaptor<Report> captor = ArgumentCaptor.forClass(Report.class);
+        verify(mockReportService).createInChunks(captor.capture(), anyInt(), any());
+        return captor.getValue();
+    }
+
+    private static String warningsJson(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"text\":\"Lane departure\",\"lat\":45.1,\"lng\":25.1,\"created_at\":").append(1000 + i).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ingest_shouldCreateTheParsedReportThroughTheReportService() {
+        // --- ARRANGE ---
+        stubReportService();
+        String json = "{\"start_lat\":45.0,\"start_lng\":25.0,\"end_lat\":46.0,\"end_lng\":26.0,\"warnings\":" + warningsJson(5) + "}";
+
+        // --- ACT ---
+        Report report = newIngestor(10_000, 100).ingest(1L, body(json), null, -1);
+
+        // --- ASSERT ---
+        assertThat(report.getId()).isEqualTo(100L);
+        assertThat(report.getWarnings()).isNull();
+        Report created = createdReport();
+        assertThat(created.getUser_id()).isEqualTo(1L);
+        assertThat(created.getEnd_lng()).isEqualTo(26.0);
+        assertThat(createdWarnings).hasSize(5);
+        assertThat(createdWarnings.get(4).getCreated_at()).isEqualTo(1004L);
+        assertThat(createdWarningCount).isEqualTo(5);
+        verify(mockReportService).registerWarningTypes(Set.of("Lane departure"));
+    }
+
+    @Test
+    void ingest_shouldHandOutWarnings_inChunksOfAtMostTheChunkSize() {
+        // --- ARRANGE ---
+        stubReportService();
+        String json = "{\"start_lat\":45.0,\"start_lng\":25.0,\"end_lat\":46.0,\"end_lng\":26.0,\"warnings\":" + warningsJson(95) + "}";
+
+        // --- ACT ---
+        newIngestor(10, 100_000, 1_000).ingest(1L, body(json), null, -1);
+
+        // --- ASSERT ---
+        assertThat(largestChunk).isEqualTo(10);
+        assertThat(createdWarnings).hasSize(95);
+        assertThat(createdWarnings.get(94).getCreated_at()).isEqualTo(1094L);
+    }
+
+    @Test
+    void ingest_shouldReadTheWholeBody_beforeCreatingTheReport() {
+        // --- ARRANGE ---
+        String json = "{\"start_lat\":45.0,\"start_lng\":25.0,\"end_lat\":46.0,\"end_lng\":26.0,\"warnings\":" + warningsJson(50) + "}";
+        ByteArrayInputStream body = (ByteArrayInputStream) body(json);
+        when(mockReportService.createInChunks(any(Report.class), anyInt(), any(WarningChunks.class))).thenAnswer(invocation -> {
+            assertThat(body.available()).isZero();
+            ((WarningChunks) invocation.getArgument(2)).forEach(createdWarnings::addAll);
+            return invocation.getArgument(0);
+        });
+
+        // --- ACT ---
+        newIngestor(10_000, 100).ingest(1L, body, null, -1);
+
+        // --- ASSERT ---
+        assertThat(createdWarnings).hasSize(50);
+    }
+
+    @Test
+    void ingest_shouldAcceptReportFields_afterTheWarnings() {
+        // --- ARRANGE ---
+        stubReportService();
+        String json = "{\"warnings\":" + warningsJson(3) + ",\"start_lat\":45.0,\"start_lng\":25.0,\"end_lat\":46.0,\"end_lng\":26.0}";
+
+        // --- ACT ---
+        newIngestor(10_000, 100).ingest(1L, body(json), null, -1);
+
+        // --- ASSERT ---
+        Report created = createdReport();
+        assertThat(created.getStart_lat()).isEqualTo(45.0);
+        assertThat(createdWarnings).hasSize(3);
+    }
+
+    @Test
+    void ingest_shouldRejectInvalidWarning() {
+        // --- ARRANGE ---
+        String json = "{\"start_lat\":45.0,\"start_lng\":25.0,\"end_lat\":46.0,\"end_lng\":26.0,"
+                + "\"warnings\":[{\"text\":\"\",\"lat\":200.0,\"lng\":25.1}]}";
+
+        // --- ACT & ASSERT ---
+        assertThatThrownBy(() -> newIngestor(10_000, 100).ingest(1L, body(json), null, -1))
+                .isInstanceOf(ValidationException.class);
+        verify(mockReportService, never()).createInChunks(any(), anyInt(), any());
+    }
+
+    @Test
+    void ingest_shouldRejectMalformedJson() {
+        assertThatThrownBy(() -> newIngestor(10_000, 100).ingest(1L, body("{\"start_lat\":45.0,"), null, -1))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("Malformed report");
+        verify(mockReportService, never()).createInChunks(any(), anyInt(), any());
+    }
+
+    @Test
+    void ingest_shouldRejectTooManyWarnings() {
+        // --- ARRANGE ---
+        String json = "{\"start_lat\":45.0,\"start_lng\":25.0,\"end_lat\":46.0,\"end_lng\":26.0,\"warnings\":" + warningsJson(5) + "}";
+
+        // --- ACT & ASSERT ---
+        assertThatThrownBy(() -> newIngestor(10_000, 3).ingest(1L, body(json), null, -1))
+                .isInstanceOf(PayloadTooLargeException.class);
+        verify(mockReportService, never()).createInChunks(any(), anyInt(), any());
+    }
+
+    @Test
+    void ingest_shouldReadCbor_whenContentTypeIsCbor() throws Exception {
+        // --- ARRANGE ---
+        stubReportService();
+        Report report = new Report(1L, 45.0, 25.0, 46.0, 26.0, 1000L);
+        report.setWarnings(List.of(
+                new Warning(null, "Lane departure", 45.1, 25.1, 1000L),
+                new Warning(null, "Lane departure", 45.2, 25.2, 1001L)));
+        byte[] cbor = new CBORMapper().writeValueAsBytes(report);
+
+        // --- ACT ---
+        Report created = newIngestor(10_000, 100).ingest(1L, new ByteArrayInputStream(cbor), "application/cbor", cbor.length);
+
+        // --- ASSERT ---
+        assertThat(created.getStart_lat()).isEqualTo(45.0);
+        assertThat(created.getCreated_at()).isEqualTo(1000L);
+        assertThat(createdWarnings).hasSize(2);
+    }
+
+    @Test
+    void ingest_shouldRejectOversizedUpload_beforeReadingIt() {
+        assertThatThrownBy(() -> newIngestor(100, 100).ingest(1L, body("{}"), null, 101))
+                .isInstanceOf(PayloadTooLargeException.class);
+        verifyNoMoreInteractions(mockReportService);
+    }
+
+    @Test
+    void ingest_shouldRejectOversizedUpload_withoutContentLength() {
+        // --- ARRANGE ---
+        String json = "{\"start_lat\":45.0,\"start_lng\":25.0,\"end_lat\":46.0,\"end_lng\":26.0,\"warnings\":" + warningsJson(200) + "}";
+
+        // --- ACT & ASSERT ---
+        assertThatThrownBy(() -> newIngestor(1_000, 10_000).ingest(1L, body(json), null, -1))
+                .isInstanceOf(PayloadTooLargeException.class);
+        verify(mockReportService, never()).createInChunks(any(), anyInt(), any());
+    }
+}
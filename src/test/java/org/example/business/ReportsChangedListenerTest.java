@@ -0,0 +1,65 @@
+package org.example.business;
+
+import org.example.domain.Warning;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportsChangedListenerTest {
+
+    @Mock
+    private HeatmapAggregator mockHeatmapAggregator;
+    @Mock
+    private NearestWarningIndex mockNearestWarningIndex;
+    @Mock
+    private HotspotDetector mockHotspotDetector;
+
+    @InjectMocks
+    private ReportsChangedListener listener;
+
+    private final List<Warning> warnings = List.of(
+            new Warning(1L, "Lane departure", 45.1, 25.1, 1000L),
+            new Warning(1L, "Too close", 45.2, 25.2, 1001L));
+
+    @Test
+    void onReportsChanged_shouldFeedTheWarningsToEveryComponent() {
+        // --- ACT ---
+        listener.onReportsChanged(new ReportsChangedEvent(1L, warnings));
+
+        // --- ASSERT ---
+        verify(mockHeatmapAggregator).record(warnings);
+        verify(mockNearestWarningIndex).add(warnings);
+        verify(mockHotspotDetector).record(warnings);
+    }
+
+    @Test
+    void onReportsChanged_shouldSkipDisabledComponents() {
+        // --- ARRANGE ---
+        ReflectionTestUtils.setField(listener, "heatmapAggregator", null);
+        ReflectionTestUtils.setField(listener, "hotspotDetector", null);
+
+        // --- ACT ---
+        listener.onReportsChanged(new ReportsChangedEvent(1L, warnings));
+
+        // --- ASSERT ---
+        verify(mockNearestWarningIndex).add(warnings);
+        verifyNoMoreInteractions(mockHeatmapAggregator, mockHotspotDetector);
+    }
+
+    @Test
+    void onReportsChanged_shouldDoNothing_withoutWarnings() {
+        // --- ACT ---
+        listener.onReportsChanged(new ReportsChangedEvent(1L, List.of()));
+
+        // --- ASSERT ---
+        verifyNoMoreInteractions(mockHeatmapAggregator, mockNearestWarningIndex, mockHotspotDetector);
+    }
+}
@@ -44,6 +44,19 @@ public class WarningValidatorTest {
         assertTrue(exception.getMessage().contains("Invalid lat/lng coordinates!"));
     }
 
+    @Test
+    public void testValidateWithNonFiniteCoordinates() {
+        for (double value : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            warning.setLat(value);
+            warning.setLng(25.0);
+            assertThrows(ValidationException.class, () -> validator.validate(warning), "lat " + value);
+
+            warning.setLat(45.0);
+            warning.setLng(value);
+            assertThrows(ValidationException.class, () -> validator.validate(warning), "lng " + value);
+        }
+    }
+
     @Test
     public void testValidateWithNullText() {
         warning.setText(null); // Null text
@@ -0,0 +1,72 @@
+package org.example.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+    private static final int KEYS = 20_000;
+
+    private static ConsistentHashRing<String> ringOf(String... names) {
+        Map<String, String> shards = new LinkedHashMap<>();
+        for (String name : names) {
+            shards.put(name, name);
+        }
+        return new ConsistentHashRing<>(shards, 160);
+    }
+
+    @Test
+    public void testKeysSpreadEvenlyOverTheShards() {
+        ConsistentHashRing<String> ring = ringOf("s0", "s1", "s2", "s3");
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (long key = 1; key <= KEYS; key++) {
+            counts.merge(ring.shardOf(key), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > KEYS / 4 * 0.75 && count < KEYS / 4 * 1.25, "Uneven shard: " + counts);
+        }
+    }
+
+    @Test
+    public void testAddingAShardOnlyMovesKeysToIt() {
+        ConsistentHashRing<String> ring = ringOf("s0", "s1", "s2");
+        ConsistentHashRing<String> extended = ring.with("s3", "s3");
+
+        int moved = 0;
+        for (long key = 1; key <= KEYS; key++) {
+            String before = ring.shardOf(key);
+            String after = extended.shardOf(key);
+            if (!before.equals(after)) {
+                assertEquals("s3", after, "Key " + key + " moved between old shards");
+                moved++;
+            }
+        }
+
+        assertTrue(moved > KEYS / 4 * 0.75 && moved < KEYS / 4 * 1.25, "Moved " + moved + " of " + KEYS);
+        assertEquals(3, ring.shards().size(), "The original ring is unchanged");
+    }
+
+    @Test
+    public void testAssignmentDependsOnlyOnShardNames() {
+        ConsistentHashRing<String> ring = ringOf("s0", "s1", "s2");
+        ConsistentHashRing<String> reordered = ringOf("s2", "s0", "s1");
+
+        for (long key = 1; key <= KEYS; key++) {
+            assertEquals(ring.shardOf(key), reordered.shardOf(key));
+        }
+    }
+
+    @Test
+    public void testAddingAnExistingNameFails() {
+        ConsistentHashRing<String> ring = ringOf("s0", "s1");
+
+        assertThrows(IllegalArgumentException.class, () -> ring.with("s1", "other"));
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.persistence;
+
+import org.example.domain.DailyStats;
+import org.example.domain.Report;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@ContextConfiguration(classes = {DailyStatsRepository.class})
+@Sql(scripts = {"/schema.sql"})
+public class DailyStatsRepositoryTest {
+
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    private DailyStatsRepository statsRepository;
+
+    @BeforeEach
+    public void setup() {
+        statsRepository = new DailyStatsRepository(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO Users (id, username, password, name) VALUES (?, ?, ?, ?)", 1L, "testuser1", "pass", "Test User 1");
+        jdbcTemplate.update("INSERT INTO Users (id, username, password, name) VALUES (?, ?, ?, ?)", 2L, "testuser2", "pass", "Test User 2");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void testAddAllCreatesAndIncrementsDays() {
+        statsRepository.addAll(List.of(
+                new DailyStats(1L, "2024-03-01", 1, 3, 5000L, 5000L),
+                new DailyStats(1L, "2024-03-01", 1, 2, 3000L, 3000L),
+                new DailyStats(2L, "2024-03-01", 1, 1, 4000L, 4000L)));
+        statsRepository.addAll(List.of(
+                new DailyStats(1L, "2024-03-01", 1, 4, 9000L, 9000L),
+                new DailyStats(1L, "2024-03-02", 1, 1, 90000000L, 90000000L)));
+
+        List<DailyStats> days = statsRepository.getOfUser(1L, null, null);
+
+        assertEquals(2, days.size());
+        DailyStats first = days.get(0);
+        assertEquals(1L, first.getUser_id());
+        assertEquals("2024-03-01", first.getDay());
+        assertEquals(3, first.getTrip_count());
+        assertEquals(9, first.getWarning_count());
+        assertEquals(3000L, first.getFirst_at());
+        assertEquals(9000L, first.getLast_at());
+        assertEquals("2024-03-02", days.get(1).getDay());
+        assertEquals(1, statsRepository.getOfUser(2L, null, null).size());
+    }
+
+    @Test
+    public void testGetOfUserLimitsDaysInclusively() {
+        statsRepository.addAll(List.of(
+                new DailyStats(1L, "2024-03-01", 1, 1, 1000L, 1000L),
+                new DailyStats(1L, "2024-03-02", 1, 1, 2000L, 2000L),
+                new DailyStats(1L, "2024-03-03", 1, 1, 3000L, 3000L)));
+
+        List<DailyStats> days = statsRepository.getOfUser(1L, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 3));
+
+        assertEquals(List.of("2024-03-02", "2024-03-03"), days.stream().map(DailyStats::getDay).toList());
+        assertTrue(statsRepository.getOfUser(1L, LocalDate.of(2024, 3, 4), null).isEmpty());
+    }
+
+    @Test
+    public void testOfReportUsesUtcDay() {
+        Report report = new Report(1L, 45.0, 25.0, 46.0, 26.0, 1709337599999L);
+
+        DailyStats stats = DailyStats.ofReport(report, 4);
+
+        // 2024-03-01T23:59:59.999Z
+        assertEquals("2024-03-01", stats.getDay());
+        assertEquals(1, stats.getTrip_count());
+        assertEquals(4, stats.getWarning_count());
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeohashTest {
+
+    @Test
+    public void testEncodeKnownLocations() {
+        assertEquals("ezs42", Geohash.encode(42.6, -5.6, 5));
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("u4pru", Geohash.encode(57.64911, 10.40744, 5));
+    }
+
+    @Test
+    public void testCoverContainsEveryPointOfTheBox() {
+        double minLat = 45.60, minLng = 25.55, maxLat = 45.68, maxLng = 25.65;
+
+        List<String> cells = Geohash.cover(minLat, minLng, maxLat, maxLng, 16);
+
+        assertTrue(cells.size() <= 16);
+        for (double lat = minLat; lat <= maxLat; lat += 0.005) {
+            for (double lng = minLng; lng <= maxLng; lng += 0.005) {
+                String hash = Geohash.encode(lat, lng, Geohash.STORED_PRECISION);
+                assertTrue(cells.stream().anyMatch(hash::startsWith), "No cell covers " + lat + "," + lng);
+            }
+        }
+    }
+
+    @Test
+    public void testCoverOfWholeWorldUsesTopLevelCells() {
+        List<String> cells = Geohash.cover(-90, -180, 90, 180, 16);
+
+        assertEquals(32, cells.size());
+        assertTrue(cells.stream().allMatch(cell -> cell.length() == 1));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.persistence;
+
+import org.example.domain.HotspotCell;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@ContextConfiguration(classes = {HotspotCellRepository.class})
+@Sql(scripts = {"/schema.sql"})
+public class HotspotCellRepositoryTest {
+
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    private HotspotCellRepository cellRepository;
+
+    @BeforeEach
+    public void setup() {
+        cellRepository = new HotspotCellRepository(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void testAddCellsCreatesAndIncrementsCells() {
+        cellRepository.addCells(List.of(new HotspotCell(100, 7, 2, 91.3, 51.2), new HotspotCell(100, 8, 1, 45.6, 25.7)));
+        cellRepository.addCells(List.of(new HotspotCell(100, 7, 1, 45.65, 25.6), new HotspotCell(101, 7, 4, 182.8, 102.4)));
+
+        List<HotspotCell> cells = new ArrayList<>();
+        cellRepository.forEach(cells::add);
+        cells.sort(Comparator.comparingInt(HotspotCell::getRow_index).thenComparingInt(HotspotCell::getColumn_index));
+
+        assertEquals(3, cells.size());
+        assertEquals(7, cells.get(0).getColumn_index());
+        assertEquals(3, cells.get(0).getWarning_count());
+        assertEquals(136.95, cells.get(0).getLat_sum(), 1e-9);
+        assertEquals(76.8, cells.get(0).getLng_sum(), 1e-9);
+        assertEquals(1, cells.get(1).getWarning_count());
+        assertEquals(101, cells.get(2).getRow_index());
+    }
+
+    @Test
+    public void testForEachOnEmptyTable() {
+        List<HotspotCell> cells = new ArrayList<>();
+        cellRepository.forEach(cells::add);
+
+        assertTrue(cells.isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@ContextConfiguration(classes = {IdAllocator.class})
+@Sql(scripts = {"/schema.sql"})
+// The allocator reserves blocks on its own connection, so test data must be committed
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IdAllocatorTest {
+
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void testSequenceStartsAfterExistingRows() {
+        jdbcTemplate.update("INSERT INTO Users (id, username, password, name) VALUES (?, ?, ?, ?)", 41L, "existing", "pass", "Existing User");
+
+        IdAllocator idAllocator = new IdAllocator(dataSource, 10);
+
+        assertEquals(42L, idAllocator.next(IdAllocator.USERS));
+        assertEquals(43L, idAllocator.next(IdAllocator.USERS));
+    }
+
+    @Test
+    public void testOneReservationPerBlock() {
+        IdAllocator idAllocator = new IdAllocator(dataSource, 10);
+
+        for (int i = 0; i < 10; i++) {
+            idAllocator.next(IdAllocator.REPORTS);
+        }
+        assertEquals(11L, jdbcTemplate.queryForObject("SELECT next_val FROM id_sequences WHERE name = ?", Long.class, IdAllocator.REPORTS));
+
+        idAllocator.next(IdAllocator.REPORTS);
+        assertEquals(21L, jdbcTemplate.queryForObject("SELECT next_val FROM id_sequences WHERE name = ?", Long.class, IdAllocator.REPORTS));
+    }
+
+    @Test
+    public void testRangesLargerThanABlock() {
+        IdAllocator idAllocator = new IdAllocator(dataSource, 10);
+
+        long first = idAllocator.next(IdAllocator.WARNINGS, 25);
+        long next = idAllocator.next(IdAllocator.WARNINGS);
+
+        assertEquals(first + 25, next, "A large range should be reserved as one contiguous block");
+    }
+
+    @Test
+    public void testAllocatorsOnDifferentNodesNeverOverlap() {
+        IdAllocator node1 = new IdAllocator(dataSource, 10);
+        IdAllocator node2 = new IdAllocator(dataSource, 10);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(ids.add(node1.next(IdAllocator.WARNINGS)));
+            assertTrue(ids.add(node2.next(IdAllocator.WARNINGS)));
+        }
+    }
+}
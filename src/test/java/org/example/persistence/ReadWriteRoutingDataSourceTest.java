@@ -0,0 +1,153 @@
+package org.example.persistence;
+
+import org.example.domain.Report;
+import org.example.domain.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two H2 databases stand in for a primary and its replica. Nothing replicates between them,
+ * so each test can tell which database a repository method used by what it finds.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReadWriteRoutingDataSource dataSource;
+
+    private UserRepository userRepository;
+    private ReportRepository reportRepository;
+
+    private static EmbeddedDatabase newDatabase() {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+    }
+
+    @BeforeEach
+    public void setup() {
+        primary = newDatabase();
+        replica = newDatabase();
+        useRouting(Duration.ofMinutes(1));
+    }
+
+    private void useRouting(Duration pinAfterWrite) {
+        dataSource = new ReadWriteRoutingDataSource(primary, replica, pinAfterWrite, 1000);
+        IdAllocator idAllocator = new IdAllocator(dataSource, 100);
+        userRepository = new UserRepository(dataSource, idAllocator);
+        reportRepository = new ReportRepository(dataSource, idAllocator, new WarningTypeDictionary(dataSource, 1000));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private static void insertUser(EmbeddedDatabase database, long id, String username) {
+        new JdbcTemplate(database).update("INSERT INTO Users (id, username, password, name) VALUES (?, ?, ?, ?)",
+                id, username, "pass", "Test User");
+    }
+
+    private static void insertReport(EmbeddedDatabase database, long id, long userId) {
+        new JdbcTemplate(database).update("INSERT INTO reports (id, user_id, start_lat, start_lng, end_lat, end_lng, created_at) VALUES (?,?,?,?,?,?,?)",
+                id, userId, 45.0, 25.0, 46.0, 26.0, 1000L);
+    }
+
+    private static List<Long> idsOf(List<Report> reports) {
+        return reports.stream().map(Report::getId).toList();
+    }
+
+    @Test
+    public void testWritesGoToThePrimary() {
+        User user = userRepository.add(new User("writer", "pass", "Writer")).orElseThrow();
+
+        assertEquals(1, new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM Users", Integer.class));
+        assertEquals(0, new JdbcTemplate(replica).queryForObject("SELECT COUNT(*) FROM Users", Integer.class));
+        assertTrue(userRepository.delete(user.getId()).isPresent(), "Deletes should find the row on the primary");
+    }
+
+    @Test
+    public void testReadOnlyMethodsReadTheReplica() {
+        insertUser(replica, 1L, "replicated");
+        insertReport(replica, 10L, 1L);
+
+        assertTrue(userRepository.findOne(1L).isPresent());
+        assertTrue(reportRepository.findOne(10L).isPresent());
+        assertEquals(List.of(10L), idsOf(reportRepository.getAllOfUser(1L)));
+        assertEquals(List.of(10L), idsOf(reportRepository.getAllOfUser(1L, null, 2000L)));
+    }
+
+    @Test
+    public void testUsernameLookupsReadThePrimary() {
+        insertUser(replica, 1L, "replicated");
+        insertUser(primary, 2L, "signed-up");
+
+        assertTrue(userRepository.findOneByUsername("replicated").isEmpty());
+        assertTrue(userRepository.findOneByUsername("signed-up").isPresent(), "Login right after signup");
+    }
+
+    @Test
+    public void testReportsNotYetReplicatedAreFoundOnThePrimary() {
+        insertUser(primary, 1L, "writer");
+        insertReport(primary, 10L, 1L);
+
+        assertEquals(Long.valueOf(1L), reportRepository.findOne(10L).orElseThrow().getUser_id());
+        assertTrue(reportRepository.findOne(11L).isEmpty());
+    }
+
+    @Test
+    public void testWritersReadThePrimaryAfterTheirWrites() {
+        insertUser(primary, 1L, "writer");
+        insertUser(primary, 2L, "reader");
+        insertUser(replica, 2L, "reader");
+        insertReport(replica, 20L, 2L);
+
+        Report written = reportRepository.add(new Report(1L, 45.0, 25.0, 46.0, 26.0, 1000L)).orElseThrow();
+
+        assertEquals(List.of(written.getId()), idsOf(reportRepository.getAllOfUser(1L)));
+        assertEquals(List.of(written.getId()), idsOf(reportRepository.getAllOfUser(1L, null, 2000L)));
+        assertEquals(List.of(20L), idsOf(reportRepository.getAllOfUser(2L, null, 2000L)), "Other users still read the replica");
+
+        useRouting(Duration.ZERO);
+        reportRepository.add(new Report(1L, 45.0, 25.0, 46.0, 26.0, 1000L));
+        assertTrue(reportRepository.getAllOfUser(1L, null, 2000L).isEmpty(), "Without pinning the replica is read");
+    }
+
+    @Test
+    public void testWritersAreReleasedOnceThePinningWindowEnds() throws InterruptedException {
+        useRouting(Duration.ofMillis(50));
+        insertUser(primary, 1L, "writer");
+        reportRepository.add(new Report(1L, 45.0, 25.0, 46.0, 26.0, 1000L));
+
+        Thread.sleep(200);
+
+        assertTrue(reportRepository.getAllOfUser(1L, null, 2000L).isEmpty());
+    }
+
+    @Test
+    public void testReadsInsideATransactionUseThePrimary() {
+        insertUser(primary, 1L, "primary-only");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        Optional<User> found = transactionTemplate.execute(status -> userRepository.findOne(1L));
+
+        assertTrue(found.isPresent());
+        assertTrue(userRepository.findOne(1L).isEmpty(), "Outside a transaction the replica is read");
+    }
+}
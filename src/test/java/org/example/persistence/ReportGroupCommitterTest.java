@@ -0,0 +1,114 @@
+package org.example.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The committer writes on its own thread and connection, so it runs against a database of its own
+ * where test data is committed, with every collaborator constructed here.
+ */
+public class ReportGroupCommitterTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReportGroupCommitter groupCommitter;
+    private long userId;
+
+    @BeforeEach
+    public void setup() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        IdAllocator idAllocator = new IdAllocator(database, 100);
+        WarningTypeDictionary typeDictionary = new WarningTypeDictionary(database, 1000);
+        // Registered by ReportService before submitting
+        typeDictionary.registerAll(List.of("Lane departure left", "Lane departure right"));
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO Users (id, username, password, name) VALUES (?, ?, ?, ?)", 1L, "testuser1", "pass", "Test User 1");
+        userId = 1L;
+
+        meterRegistry = new SimpleMeterRegistry();
+        groupCommitter = new ReportGroupCommitter(database,
+                new ReportRepository(database, idAllocator, typeDictionary),
+                new WarningRepository(database, idAllocator, typeDictionary),
+                new DailyStatsRepository(database),
+                meterRegistry, 50, 200);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        groupCommitter.shutdown();
+        database.shutdown();
+    }
+
+    private Report newReport(long user) {
+        Report report = new Report(user, 45.0, 25.0, 46.0, 26.0, System.currentTimeMillis());
+        report.setWarnings(List.of(
+                new Warning(null, "Lane departure left", 45.1, 25.1, System.currentTimeMillis()),
+                new Warning(null, "Lane departure right", 45.2, 25.2, System.currentTimeMillis())));
+        return report;
+    }
+
+    @Test
+    public void testConcurrentReportsAreCommittedTogether() {
+        List<CompletableFuture<Report>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(groupCommitter.submit(newReport(userId)));
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (CompletableFuture<Report> future : futures) {
+            Report saved = future.join();
+            assertNotNull(saved.getId());
+            ids.add(saved.getId());
+            for (Warning warning : saved.getWarnings()) {
+                assertEquals(saved.getId(), warning.getReport_id(), "Warnings should point to their own report");
+            }
+        }
+        assertEquals(20, ids.size(), "Each caller should receive its own report ID");
+
+        assertEquals(20, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports", Integer.class));
+        assertEquals(40, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM warnings", Integer.class));
+        assertEquals(20, jdbcTemplate.queryForObject("SELECT SUM(trip_count) FROM user_daily_stats", Integer.class));
+        assertEquals(40, jdbcTemplate.queryForObject("SELECT SUM(warning_count) FROM user_daily_stats", Integer.class));
+        assertTrue(meterRegistry.summary("reports.group-commit.size").count() < 20,
+                "Reports submitted together should share commits");
+    }
+
+    @Test
+    public void testFailingReportDoesNotFailItsGroup() {
+        CompletableFuture<Report> good1 = groupCommitter.submit(newReport(userId));
+        CompletableFuture<Report> bad = groupCommitter.submit(newReport(999L)); // no such user
+        CompletableFuture<Report> good2 = groupCommitter.submit(newReport(userId));
+
+        assertNotNull(good1.join().getId());
+        assertNotNull(good2.join().getId());
+        CompletionException exception = assertThrows(CompletionException.class, bad::join);
+        assertInstanceOf(RepositoryException.class, exception.getCause());
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports", Integer.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM warnings", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT SUM(trip_count) FROM user_daily_stats", Integer.class));
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.persistence;
 
 import org.example.domain.Report;
+import org.example.domain.ReportSummary;
 import org.example.domain.User;
 import org.example.domain.Warning;
 import org.junit.jupiter.api.AfterEach;
@@ -13,18 +14,21 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.jdbc.Sql;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
-@ContextConfiguration(classes = {ReportRepository.class})
+@ContextConfiguration(classes = {IdAllocator.class, WarningTypeDictionary.class, ReportRepository.class})
 @Sql(scripts = {"/schema.sql"})
 public class ReportRepositoryTest {
 
     @Autowired
     private DataSource dataSource;
+    private IdAllocator idAllocator;
+    private WarningTypeDictionary typeDictionary;
 
     private ReportRepository reportRepository;
     private JdbcTemplate jdbcTemplate;
@@ -37,7 +41,9 @@ public class ReportRepositoryTest {
 
     @BeforeEach
     public void setup() {
-        reportRepository = new ReportRepository(dataSource);
+        idAllocator = new IdAllocator(dataSource, 100);
+        typeDictionary = new WarningTypeDictionary(dataSource, 1000);
+        reportRepository = new ReportRepository(dataSource, idAllocator, typeDictionary);
         jdbcTemplate = new JdbcTemplate(dataSource);
 
         // Create and save users
@@ -56,6 +62,19 @@ public class ReportRepositoryTest {
         jdbcTemplate.execute("DROP ALL OBJECTS");
     }
 
+    private int codeOf(String text) {
+        typeDictionary.registerAll(List.of(text));
+        return typeDictionary.codeOf(text);
+    }
+
+    /**
+     * Inserts a warning row directly, with an ID from the IdAllocator like the repositories use.
+     */
+    private void insertWarning(Long reportId, String text, double lat, double lng, long createdAt) {
+        jdbcTemplate.update("INSERT INTO warnings (id, report_id, type_code, lat, lng, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                idAllocator.next(IdAllocator.WARNINGS), reportId, codeOf(text), lat, lng, createdAt);
+    }
+
     @Test
     public void testAddReport() {
         Report newReport = new Report(testUser1.getId(), 45.0, 25.0, 46.0, 26.0, System.currentTimeMillis());
@@ -83,11 +102,35 @@ public class ReportRepositoryTest {
         assertTrue(addedReportOpt.isPresent());
         Long reportId = addedReportOpt.get().getId();
 
-        // The findOne method is not implemented, so we can't use it to verify existence before deletion
-        // We'll rely on the row count from the delete operation
+        Optional<Report> deleted = reportRepository.delete(reportId);
+        assertTrue(deleted.isPresent(), "The deleted report should be returned");
+        assertTrue(reportRepository.findOne(reportId).isEmpty(), "Report should not be found after deletion");
+    }
+
+    @Test
+    public void testFindOneWithWarnings() {
+        Report report = new Report(testUser1.getId(), 45.5, 25.5, 46.5, 26.5, System.currentTimeMillis());
+        reportRepository.add(report);
+        insertWarning(report.getId(), "Warning 1", 45.6, 25.6, System.currentTimeMillis());
+        insertWarning(report.getId(), "Warning 2", 45.7, 25.7, System.currentTimeMillis());
+
+        Report found = reportRepository.findOne(report.getId()).orElseThrow();
+
+        assertEquals(testUser1.getId(), found.getUser_id());
+        assertEquals(45.5, found.getStart_lat());
+        assertEquals(List.of("Warning 1", "Warning 2"), found.getWarnings().stream().map(Warning::getText).toList());
+        assertTrue(reportRepository.findOne(-1L).isEmpty());
+    }
+
+    @Test
+    public void testFindOneWithoutWarnings() {
+        Report report = new Report(testUser1.getId(), 45.8, 25.8, 46.8, 26.8, System.currentTimeMillis());
+        reportRepository.add(report);
+
+        Report found = reportRepository.findOne(report.getId()).orElseThrow();
 
-        int affectedRows = jdbcTemplate.update("DELETE FROM reports WHERE id = ?", reportId);
-        assertEquals(1, affectedRows, "One row should be deleted");
+        assertNotNull(found.getWarnings());
+        assertTrue(found.getWarnings().isEmpty(), "Warnings list should be empty");
     }
 
     @Test
@@ -121,10 +164,8 @@ public class ReportRepositoryTest {
         Long reportId = addedReportOpt.get().getId();
 
         // Add warnings to the report
-        jdbcTemplate.update("INSERT INTO warnings (report_id, text, lat, lng, created_at) VALUES (?, ?, ?, ?, ?)",
-                reportId, "Warning 1", 45.6, 25.6, System.currentTimeMillis());
-        jdbcTemplate.update("INSERT INTO warnings (report_id, text, lat, lng, created_at) VALUES (?, ?, ?, ?, ?)",
-                reportId, "Warning 2", 45.7, 25.7, System.currentTimeMillis());
+        insertWarning(reportId, "Warning 1", 45.6, 25.6, System.currentTimeMillis());
+        insertWarning(reportId, "Warning 2", 45.7, 25.7, System.currentTimeMillis());
 
         List<Report> reports = reportRepository.getAllOfUser(testUser1.getId());
         assertEquals(1, reports.size());
@@ -156,4 +197,168 @@ public class ReportRepositoryTest {
         assertNotNull(reports.get(0).getWarnings());
         assertTrue(reports.get(0).getWarnings().isEmpty(), "Warnings list should be empty");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddAllReports() {
+        Report report1 = new Report(testUser1.getId(), 45.1, 25.1, 46.1, 26.1, System.currentTimeMillis());
+        Report report2 = new Report(testUser2.getId(), 47.0, 27.0, 48.0, 28.0, System.currentTimeMillis());
+
+        List<Report> added = reportRepository.addAll(List.of(report1, report2));
+
+        assertEquals(2, added.size());
+        assertNotNull(report1.getId(), "Every batched report should receive a generated ID");
+        assertNotNull(report2.getId(), "Every batched report should receive a generated ID");
+        assertEquals(1, reportRepository.getAllOfUser(testUser1.getId()).size());
+        assertEquals(report2.getId(), reportRepository.getAllOfUser(testUser2.getId()).get(0).getId());
+    }
+
+    @Test
+    public void testGetPageOfUser() {
+        long now = System.currentTimeMillis();
+        // Two reports share a timestamp, so the page boundary must be broken by ID
+        Report oldest = new Report(testUser1.getId(), 45.1, 25.1, 46.1, 26.1, now);
+        Report middle = new Report(testUser1.getId(), 45.2, 25.2, 46.2, 26.2, now + 1000);
+        Report newest = new Report(testUser1.getId(), 45.3, 25.3, 46.3, 26.3, now + 1000);
+        reportRepository.addAll(List.of(oldest, middle, newest));
+        reportRepository.add(new Report(testUser2.getId(), 47.0, 27.0, 48.0, 28.0, now + 2000));
+
+        insertWarning(middle.getId(), "Warning 1", 45.6, 25.6, now);
+
+        List<Report> firstPage = reportRepository.getPageOfUser(testUser1.getId(), null, null, 2);
+        assertEquals(List.of(newest.getId(), middle.getId()), firstPage.stream().map(Report::getId).toList());
+        assertTrue(firstPage.get(0).getWarnings().isEmpty());
+        assertEquals("Warning 1", firstPage.get(1).getWarnings().get(0).getText());
+
+        Report last = firstPage.get(1);
+        List<Report> secondPage = reportRepository.getPageOfUser(testUser1.getId(), last.getCreated_at(), last.getId(), 2);
+        assertEquals(List.of(oldest.getId()), secondPage.stream().map(Report::getId).toList());
+
+        List<Report> emptyPage = reportRepository.getPageOfUser(testUser1.getId(), oldest.getCreated_at(), oldest.getId(), 2);
+        assertTrue(emptyPage.isEmpty());
+    }
+
+    @Test
+    public void testGetAllOfUserTwoPhaseMatchesJoin() {
+        long now = System.currentTimeMillis();
+        Report report1 = new Report(testUser1.getId(), 45.1, 25.1, 46.1, 26.1, now);
+        Report report2 = new Report(testUser1.getId(), 45.2, 25.2, 46.2, 26.2, now + 1000);
+        Report withoutWarnings = new Report(testUser1.getId(), 45.3, 25.3, 46.3, 26.3, now + 2000);
+        reportRepository.addAll(List.of(report1, report2, withoutWarnings));
+        for (Report report : List.of(report1, report2)) {
+            for (int i = 0; i < 3; i++) {
+                insertWarning(report.getId(), "Warning " + i, 45.6, 25.6, now + i);
+            }
+        }
+
+        List<Report> joined = reportRepository.getAllOfUser(testUser1.getId());
+        reportRepository.setFetchStrategy("two-phase");
+        List<Report> twoPhase = reportRepository.getAllOfUser(testUser1.getId());
+
+        assertEquals(joined.stream().map(Report::getId).toList(), twoPhase.stream().map(Report::getId).toList());
+        for (int i = 0; i < joined.size(); i++) {
+            assertEquals(joined.get(i).getWarnings().stream().map(Warning::getId).sorted().toList(),
+                    twoPhase.get(i).getWarnings().stream().map(Warning::getId).toList());
+        }
+        assertTrue(twoPhase.get(0).getWarnings().isEmpty(), "A report without warnings should have an empty list");
+        assertEquals(3, twoPhase.get(1).getWarnings().size());
+    }
+
+    @Test
+    public void testGetAllOfUserInTimeWindow() {
+        Report before = new Report(testUser1.getId(), 45.1, 25.1, 46.1, 26.1, 1000L);
+        Report first = new Report(testUser1.getId(), 45.2, 25.2, 46.2, 26.2, 2000L);
+        Report second = new Report(testUser1.getId(), 45.3, 25.3, 46.3, 26.3, 2500L);
+        Report atUpperBound = new Report(testUser1.getId(), 45.4, 25.4, 46.4, 26.4, 3000L);
+        Report otherUser = new Report(testUser2.getId(), 47.0, 27.0, 48.0, 28.0, 2000L);
+        reportRepository.addAll(List.of(before, first, second, atUpperBound, otherUser));
+        insertWarning(first.getId(), "Warning 1", 45.6, 25.6, 2001L);
+
+        for (String strategy : List.of("join", "two-phase")) {
+            reportRepository.setFetchStrategy(strategy);
+
+            List<Report> window = reportRepository.getAllOfUser(testUser1.getId(), 2000L, 3000L);
+            assertEquals(List.of(second.getId(), first.getId()), window.stream().map(Report::getId).toList(), strategy);
+            assertEquals(1, window.get(1).getWarnings().size(), strategy);
+
+            assertEquals(List.of(atUpperBound.getId(), second.getId(), first.getId()),
+                    reportRepository.getAllOfUser(testUser1.getId(), 2000L, null).stream().map(Report::getId).toList(), strategy);
+            assertEquals(List.of(before.getId()),
+                    reportRepository.getAllOfUser(testUser1.getId(), null, 2000L).stream().map(Report::getId).toList(), strategy);
+        }
+    }
+
+    @Test
+    public void testUnknownFetchStrategyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> reportRepository.setFetchStrategy("three-phase"));
+    }
+
+    @Test
+    public void testForEachOfUserStreamsCompleteReports() {
+        long now = System.currentTimeMillis();
+        Report older = new Report(testUser1.getId(), 45.1, 25.1, 46.1, 26.1, now);
+        Report newer = new Report(testUser1.getId(), 45.2, 25.2, 46.2, 26.2, now + 1000);
+        Report withoutWarnings = new Report(testUser1.getId(), 45.3, 25.3, 46.3, 26.3, now + 1000);
+        reportRepository.addAll(List.of(older, newer, withoutWarnings));
+        reportRepository.add(new Report(testUser2.getId(), 47.0, 27.0, 48.0, 28.0, now));
+        for (Report report : List.of(older, newer)) {
+            for (int i = 0; i < 2; i++) {
+                insertWarning(report.getId(), "Warning " + i, 45.6, 25.6, now + i);
+            }
+        }
+
+        List<Report> streamed = new ArrayList<>();
+        reportRepository.forEachOfUser(testUser1.getId(), streamed::add);
+
+        // Newest first; reports with the same timestamp are ordered by ID
+        assertEquals(List.of(withoutWarnings.getId(), newer.getId(), older.getId()),
+                streamed.stream().map(Report::getId).toList());
+        assertTrue(streamed.get(0).getWarnings().isEmpty());
+        assertEquals(2, streamed.get(1).getWarnings().size());
+        assertEquals(2, streamed.get(2).getWarnings().size());
+    }
+
+    @Test
+    public void testGetSummariesOfUser() {
+        long now = System.currentTimeMillis();
+        Report withWarnings = new Report(testUser1.getId(), 45.1, 25.1, 46.1, 26.1, now);
+        Report withoutWarnings = new Report(testUser1.getId(), 45.2, 25.2, 46.2, 26.2, now + 1000);
+        reportRepository.addAll(List.of(withWarnings, withoutWarnings));
+        reportRepository.add(new Report(testUser2.getId(), 47.0, 27.0, 48.0, 28.0, now));
+        for (int i = 0; i < 3; i++) {
+            insertWarning(withWarnings.getId(), "Warning " + i, 45.6, 25.6, now + i);
+        }
+
+        List<ReportSummary> summaries = reportRepository.getSummariesOfUser(testUser1.getId());
+
+        assertEquals(2, summaries.size());
+        assertEquals(withoutWarnings.getId(), summaries.get(0).getId());
+        assertEquals(0L, summaries.get(0).getWarning_count());
+        assertEquals(withWarnings.getId(), summaries.get(1).getId());
+        assertEquals(3L, summaries.get(1).getWarning_count());
+        assertEquals(46.1, summaries.get(1).getEnd_lat());
+    }
+
+    @Test
+    public void testIsOwnedBy() {
+        Report report = new Report(testUser1.getId(), 45.1, 25.1, 46.1, 26.1, System.currentTimeMillis());
+        reportRepository.add(report);
+
+        assertTrue(reportRepository.isOwnedBy(report.getId(), testUser1.getId()));
+        assertFalse(reportRepository.isOwnedBy(report.getId(), testUser2.getId()));
+        assertFalse(reportRepository.isOwnedBy(-1L, testUser1.getId()));
+    }
+
+    @Test
+    public void testGetCountAndMaxIdOfUser() {
+        assertArrayEquals(new long[]{0, 0}, reportRepository.getCountAndMaxIdOfUser(testUser1.getId()));
+
+        Report first = new Report(testUser1.getId(), 45.1, 25.1, 46.1, 26.1, System.currentTimeMillis());
+        Report second = new Report(testUser1.getId(), 45.2, 25.2, 46.2, 26.2, System.currentTimeMillis());
+        reportRepository.addAll(List.of(first, second));
+        reportRepository.add(new Report(testUser2.getId(), 47.0, 27.0, 48.0, 28.0, System.currentTimeMillis()));
+
+        long[] countAndMaxId = reportRepository.getCountAndMaxIdOfUser(testUser1.getId());
+        assertEquals(2, countAndMaxId[0]);
+        assertEquals(Math.max(first.getId(), second.getId()), countAndMaxId[1]);
+    }
+}
@@ -0,0 +1,299 @@
+package org.example.persistence;
+
+import org.example.domain.Report;
+import org.example.domain.Warning;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A main H2 database with users, ID sequences and warning types, and one H2 database per shard.
+ */
+public class ShardedRepositoryTest {
+    private static final int USERS = 60;
+
+    private EmbeddedDatabase main;
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+    private IdAllocator idAllocator;
+    private WarningTypeDictionary typeDictionary;
+    private List<Shard> shards;
+    private ShardRouter router;
+
+    private ShardedReportRepository reportRepository;
+    private ShardedWarningRepository warningRepository;
+    private volatile boolean failingDeletes;
+
+    private EmbeddedDatabase newDatabase(String script) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript(script)
+                .build();
+        databases.add(database);
+        return database;
+    }
+
+    private Shard newShard(String name) {
+        return new Shard(name, newDatabase("classpath:shard-schema.sql"), idAllocator, typeDictionary);
+    }
+
+    /**
+     * A shard whose deletes of a user's reports fail while failingDeletes is set.
+     */
+    private Shard newShardFailingDeletes(String name) {
+        DataSource dataSource = new DelegatingDataSource(newDatabase("classpath:shard-schema.sql")) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                        (proxy, method, args) -> {
+                            if (failingDeletes && method.getName().equals("prepareStatement")
+                                    && ((String) args[0]).startsWith("DELETE FROM reports WHERE user_id")) {
+                                throw new SQLException("Delete failed");
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+        return new Shard(name, dataSource, idAllocator, typeDictionary);
+    }
+
+    @BeforeEach
+    public void setup() {
+        main = newDatabase("classpath:schema.sql");
+        idAllocator = new IdAllocator(main, 100);
+        typeDictionary = new WarningTypeDictionary(main, 1000);
+        typeDictionary.registerAll(List.of("Lane departure", "Too close"));
+        shards = List.of(newShard("s0"), newShard("s1"), newShard("s2"));
+        router = new ShardRouter(shards, 160, 1000);
+        reportRepository = new ShardedReportRepository(router);
+        warningRepository = new ShardedWarningRepository(router);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (EmbeddedDatabase database : databases) {
+            database.shutdown();
+        }
+    }
+
+    private Report addReportWithWarnings(long userId) {
+        Report report = reportRepository.add(new Report(userId, 45.0, 25.0, 46.0, 26.0, 1000L)).orElseThrow();
+        warningRepository.addAll(List.of(
+                new Warning(report.getId(), "Lane departure", 45.1, 25.1, 1100L),
+                new Warning(report.getId(), "Too close", 45.2, 25.2, 1200L)));
+        return report;
+    }
+
+    private static int count(Shard shard, String sql, Object... args) {
+        return new JdbcTemplate(shard.getDataSource()).queryForObject(sql, Integer.class, args);
+    }
+
+    /**
+     * Names of the shards holding reports of the user.
+     */
+    private Set<String> locationOf(long userId, Collection<Shard> candidates) {
+        Set<String> names = new TreeSet<>();
+        for (Shard shard : candidates) {
+            if (count(shard, "SELECT COUNT(*) FROM reports WHERE user_id = ?", userId) > 0) {
+                names.add(shard.getName());
+            }
+        }
+        return names;
+    }
+
+    private int totalCount(Collection<Shard> candidates, String table) {
+        int total = 0;
+        for (Shard shard : candidates) {
+            total += count(shard, "SELECT COUNT(*) FROM " + table);
+        }
+        return total;
+    }
+
+    @Test
+    public void testEachUserIsStoredOnOneShardWithTheWarningsOfTheirReports() {
+        for (long userId = 1; userId <= USERS; userId++) {
+            addReportWithWarnings(userId);
+            addReportWithWarnings(userId);
+        }
+
+        Set<String> used = new HashSet<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            Set<String> location = locationOf(userId, shards);
+            assertEquals(1, location.size(), "User " + userId + " is spread over " + location);
+            used.addAll(location);
+
+            List<Report> reports = reportRepository.getAllOfUser(userId);
+            assertEquals(2, reports.size());
+            assertTrue(reports.stream().allMatch(report -> report.getWarnings().size() == 2));
+        }
+        assertEquals(Set.of("s0", "s1", "s2"), used, "Every shard should get users");
+        // Warnings can only be inserted next to their report, by the foreign key of each shard
+        assertEquals(USERS * 4, totalCount(shards, "warnings"));
+    }
+
+    @Test
+    public void testReportsAreFoundByIdWithoutCachedOwners() {
+        Report report = addReportWithWarnings(7L);
+
+        ShardRouter restarted = new ShardRouter(shards, 160, 1000);
+        ShardedReportRepository reports = new ShardedReportRepository(restarted);
+        ShardedWarningRepository warnings = new ShardedWarningRepository(restarted);
+
+        assertEquals(Long.valueOf(7L), reports.findOne(report.getId()).orElseThrow().getUser_id());
+        assertEquals(2, warnings.getAllOfReport(report.getId()).size());
+        assertTrue(reports.findOne(-1L).isEmpty());
+        assertTrue(warnings.getAllOfReport(-1L).isEmpty());
+    }
+
+    @Test
+    public void testShardWritesFollowTheCallersTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(main));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            addReportWithWarnings(1L);
+            addReportWithWarnings(2L);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, totalCount(shards, "reports"));
+        assertEquals(0, totalCount(shards, "warnings"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            addReportWithWarnings(1L);
+            addReportWithWarnings(2L);
+        });
+        assertEquals(2, totalCount(shards, "reports"));
+        assertEquals(4, totalCount(shards, "warnings"));
+    }
+
+    @Test
+    public void testBatchesOfSeveralUsersAreSplitByShard() {
+        List<Report> reports = new ArrayList<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            reports.add(new Report(userId, 45.0, 25.0, 46.0, 26.0, 1000L));
+        }
+        reportRepository.addAll(reports);
+
+        List<Warning> warnings = new ArrayList<>();
+        for (Report report : reports) {
+            warnings.add(new Warning(report.getId(), "Lane departure", 45.1, 25.1, 1100L));
+        }
+        warningRepository.addAll(warnings);
+
+        assertEquals(USERS, totalCount(shards, "reports"));
+        assertEquals(USERS, totalCount(shards, "warnings"));
+        for (Report report : reports) {
+            assertEquals(Set.of(router.shardOf(report.getUser_id()).getName()), locationOf(report.getUser_id(), shards));
+        }
+    }
+
+    @Test
+    public void testAddingAShardMovesOnlyTheUsersItTakesOver() {
+        Map<Long, Set<Long>> reportIds = new HashMap<>();
+        Map<Long, Set<String>> before = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            reportIds.put(userId, Set.of(addReportWithWarnings(userId).getId(), addReportWithWarnings(userId).getId()));
+            before.put(userId, locationOf(userId, shards));
+        }
+
+        Shard added = newShard("s3");
+        router.addShard(added);
+
+        List<Shard> all = List.of(shards.get(0), shards.get(1), shards.get(2), added);
+        int moved = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            Set<String> after = locationOf(userId, all);
+            if (!after.equals(before.get(userId))) {
+                assertEquals(Set.of("s3"), after, "User " + userId + " moved between old shards");
+                moved++;
+            }
+
+            List<Report> reports = reportRepository.getAllOfUser(userId);
+            assertEquals(reportIds.get(userId), new HashSet<>(reports.stream().map(Report::getId).toList()));
+            assertTrue(reports.stream().allMatch(report -> report.getWarnings().size() == 2));
+        }
+        assertTrue(moved > 0, "The new shard should take over some users");
+        assertEquals(USERS * 2, totalCount(all, "reports"));
+        assertEquals(USERS * 4, totalCount(all, "warnings"));
+
+        long movedUser = -1;
+        for (long userId = 1; userId <= USERS && movedUser < 0; userId++) {
+            if (locationOf(userId, all).equals(Set.of("s3"))) {
+                movedUser = userId;
+            }
+        }
+        addReportWithWarnings(movedUser);
+        assertEquals(3, count(added, "SELECT COUNT(*) FROM reports WHERE user_id = ?", movedUser),
+                "New reports of a moved user go to the new shard");
+    }
+
+    @Test
+    public void testLeftoversOfAnInterruptedMoveAreSkippedAndDeleted() {
+        shards = List.of(newShardFailingDeletes("s0"), newShardFailingDeletes("s1"), newShardFailingDeletes("s2"));
+        router = new ShardRouter(shards, 160, 1000);
+        reportRepository = new ShardedReportRepository(router);
+        warningRepository = new ShardedWarningRepository(router);
+        for (long userId = 1; userId <= USERS; userId++) {
+            addReportWithWarnings(userId);
+        }
+
+        // The first user moved is copied to the new shard, then deleting the originals fails
+        Shard added = newShard("s3");
+        failingDeletes = true;
+        assertThrows(RepositoryException.class, () -> router.addShard(added));
+
+        List<Shard> all = List.of(shards.get(0), shards.get(1), shards.get(2), added);
+        long movedUser = -1;
+        for (long userId = 1; userId <= USERS; userId++) {
+            if (locationOf(userId, all).size() > 1) {
+                assertEquals(-1, movedUser, "Only one user should be on two shards");
+                movedUser = userId;
+            }
+        }
+        assertTrue(movedUser > 0, "The interrupted move should leave a user on two shards");
+        assertEquals(Set.of("s3"), Set.of(router.shardOf(movedUser).getName()));
+
+        // Scanning reads skip the leftover, also while it cannot be deleted
+        List<Long> warningIds = new ArrayList<>();
+        warningRepository.forEach(warning -> warningIds.add(warning.getId()));
+        assertEquals(USERS * 2, warningIds.size());
+        assertEquals(USERS * 2, new HashSet<>(warningIds).size());
+
+        Warning deleted = warningRepository.getAllOfReport(reportRepository.getAllOfUser(movedUser).get(0).getId()).get(0);
+        assertTrue(warningRepository.delete(deleted.getId()).isPresent());
+        assertTrue(warningRepository.findOne(deleted.getId()).isEmpty(), "Only the copy on the user's shard counts");
+
+        // Once deletes work again, the next scan deletes the leftover and resuming completes the move
+        failingDeletes = false;
+        warningRepository.forEach(warning -> { });
+        assertEquals(Set.of("s3"), locationOf(movedUser, all));
+
+        router.addShard(added);
+        for (long userId = 1; userId <= USERS; userId++) {
+            assertEquals(1, locationOf(userId, all).size(), "User " + userId + " is spread over " + locationOf(userId, all));
+            assertEquals(1, reportRepository.getAllOfUser(userId).size());
+        }
+        assertEquals(USERS, totalCount(all, "reports"));
+        assertEquals(USERS * 2 - 1, totalCount(all, "warnings"));
+    }
+}
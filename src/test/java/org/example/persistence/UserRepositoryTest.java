@@ -18,19 +18,21 @@ import java.util.stream.StreamSupport;
 import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
-@ContextConfiguration(classes = {UserRepository.class})
+@ContextConfiguration(classes = {IdAllocator.class, UserRepository.class})
 @Sql(scripts = {"/schema.sql"})
 public class UserRepositoryTest {
 
     @Autowired
     private DataSource dataSource;
+    private IdAllocator idAllocator;
 
     private UserRepository userRepository;
     private JdbcTemplate jdbcTemplate;
 
     @BeforeEach
     public void setup() {
-        userRepository = new UserRepository(dataSource);
+        idAllocator = new IdAllocator(dataSource, 100);
+        userRepository = new UserRepository(dataSource, idAllocator);
         jdbcTemplate = new JdbcTemplate(dataSource);
     }
 
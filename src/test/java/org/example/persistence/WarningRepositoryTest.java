@@ -13,17 +13,21 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.jdbc.Sql;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
-@ContextConfiguration(classes = {WarningRepository.class, ReportRepository.class, UserRepository.class})
+@ContextConfiguration(classes = {IdAllocator.class, WarningTypeDictionary.class, WarningRepository.class, ReportRepository.class, UserRepository.class})
 @Sql(scripts = {"/schema.sql"})
 public class WarningRepositoryTest {
 
     @Autowired
     private DataSource dataSource;
+    private IdAllocator idAllocator;
+    private WarningTypeDictionary typeDictionary;
     private JdbcTemplate jdbcTemplate;
 
     private WarningRepository warningRepository;
@@ -35,10 +39,12 @@ public class WarningRepositoryTest {
 
     @BeforeEach
     public void setup() {
+        idAllocator = new IdAllocator(dataSource, 100);
         // Instantiate repositories
-        warningRepository = new WarningRepository(dataSource);
-        reportRepository = new ReportRepository(dataSource);
-        userRepository = new UserRepository(dataSource);
+        typeDictionary = new WarningTypeDictionary(dataSource, 10);
+        warningRepository = new WarningRepository(dataSource, idAllocator, typeDictionary);
+        reportRepository = new ReportRepository(dataSource, idAllocator, typeDictionary);
+        userRepository = new UserRepository(dataSource, idAllocator);
         jdbcTemplate = new JdbcTemplate(dataSource);
 
         // Create prerequisite data
@@ -54,10 +60,23 @@ public class WarningRepositoryTest {
         jdbcTemplate.execute("DROP ALL OBJECTS");
     }
 
+    /**
+     * Registers the text first, as ReportService does before its transaction.
+     */
+    private Optional<Warning> add(Warning warning) {
+        typeDictionary.registerAll(List.of(warning.getText()));
+        return warningRepository.add(warning);
+    }
+
+    private List<Warning> addAll(List<Warning> warnings) {
+        typeDictionary.registerAll(warnings.stream().map(Warning::getText).toList());
+        return warningRepository.addAll(warnings);
+    }
+
     @Test
     public void testAddWarning() {
         Warning newWarning = new Warning(testReport.getId(), "Road closed ahead", 45.5, 25.5, System.currentTimeMillis());
-        Optional<Warning> addedWarningOpt = warningRepository.add(newWarning);
+        Optional<Warning> addedWarningOpt = add(newWarning);
 
         assertTrue(addedWarningOpt.isPresent(), "Warning should be added successfully");
         assertNotNull(addedWarningOpt.get().getId(), "Added warning should have a non-null ID");
@@ -68,7 +87,7 @@ public class WarningRepositoryTest {
     @Test
     public void testAddWarningWithoutTimestamp() {
         Warning newWarning = new Warning(testReport.getId(), "Accident", 45.2, 25.2, null);
-        Optional<Warning> addedWarningOpt = warningRepository.add(newWarning);
+        Optional<Warning> addedWarningOpt = add(newWarning);
 
         assertTrue(addedWarningOpt.isPresent(), "Warning should be added successfully without a timestamp");
         assertNotNull(addedWarningOpt.get().getId());
@@ -79,23 +98,169 @@ public class WarningRepositoryTest {
         Warning newWarning = new Warning(999L, "This should fail", 45.0, 25.0, System.currentTimeMillis());
 
         assertThrows(RepositoryException.class, () -> {
-            warningRepository.add(newWarning);
+            add(newWarning);
         }, "Adding a warning for a non-existent report should throw an exception");
     }
 
     @Test
     public void testDeleteWarning() {
         Warning newWarning = new Warning(testReport.getId(), "Police checkpoint", 45.7, 25.7, System.currentTimeMillis());
-        Warning addedWarning = warningRepository.add(newWarning).orElseThrow();
+        Warning addedWarning = add(newWarning).orElseThrow();
         Long warningId = addedWarning.getId();
 
-        // The findOne method is not implemented, so we can't use it directly in the delete method.
-        // We'll manually verify deletion by trying to find it with a direct JDBC call.
-
-        int affectedRows = jdbcTemplate.update("DELETE FROM warnings WHERE id = ?", warningId);
-        assertEquals(1, affectedRows, "One row should have been deleted");
+        Optional<Warning> deleted = warningRepository.delete(warningId);
+        assertTrue(deleted.isPresent(), "The deleted warning should be returned");
+        assertEquals("Police checkpoint", deleted.get().getText());
 
         Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM warnings WHERE id = ?", Integer.class, warningId);
         assertEquals(0, count, "Warning should not be found after deletion");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddAllWarnings() {
+        Warning first = new Warning(testReport.getId(), "Lane departure left", 45.1, 25.1, System.currentTimeMillis());
+        Warning second = new Warning(testReport.getId(), "Lane departure right", 45.2, 25.2, null);
+        Warning third = new Warning(testReport.getId(), "Lane departure left", 45.3, 25.3, System.currentTimeMillis());
+
+        List<Warning> added = addAll(List.of(first, second, third));
+
+        assertEquals(3, added.size());
+        for (Warning warning : added) {
+            assertNotNull(warning.getId(), "Every batched warning should receive a generated ID");
+        }
+        assertTrue(first.getId() < third.getId(), "IDs should follow insertion order within a batch");
+
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM warnings WHERE report_id = ?", Integer.class, testReport.getId());
+        assertEquals(3, count);
+        String text = jdbcTemplate.queryForObject("SELECT T.text FROM warnings W JOIN warning_types T ON T.code = W.type_code WHERE W.id = ?", String.class, second.getId());
+        assertEquals("Lane departure right", text);
+    }
+
+    @Test
+    public void testAddAllWarningsFailsForNonExistentReport() {
+        Warning valid = new Warning(testReport.getId(), "Valid", 45.0, 25.0, System.currentTimeMillis());
+        Warning invalid = new Warning(999L, "This should fail", 45.0, 25.0, System.currentTimeMillis());
+
+        assertThrows(RepositoryException.class, () -> {
+            addAll(List.of(valid, invalid));
+        }, "A batch containing a warning for a non-existent report should throw an exception");
+    }
+
+    @Test
+    public void testGetAllOfReport() {
+        Report otherReport = new Report(testUser.getId(), 47.0, 27.0, 48.0, 28.0, System.currentTimeMillis());
+        reportRepository.add(otherReport);
+        addAll(List.of(
+                new Warning(testReport.getId(), "First", 45.1, 25.1, System.currentTimeMillis()),
+                new Warning(testReport.getId(), "Second", 45.2, 25.2, System.currentTimeMillis()),
+                new Warning(otherReport.getId(), "Other report", 47.1, 27.1, System.currentTimeMillis())));
+
+        List<Warning> warnings = warningRepository.getAllOfReport(testReport.getId());
+
+        assertEquals(List.of("First", "Second"), warnings.stream().map(Warning::getText).toList());
+        assertTrue(warningRepository.getAllOfReport(-1L).isEmpty());
+    }
+
+    @Test
+    public void testFindOne() {
+        Warning warning = add(
+                new Warning(testReport.getId(), "Road closed ahead", 45.5, 25.5, 1000L)).orElseThrow();
+
+        Warning found = warningRepository.findOne(warning.getId()).orElseThrow();
+
+        assertEquals(testReport.getId(), found.getReport_id());
+        assertEquals("Road closed ahead", found.getText());
+        assertEquals(1000L, found.getCreated_at());
+        assertTrue(warningRepository.findOne(-1L).isEmpty());
+    }
+
+    @Test
+    public void testGetAllOfReportInTimeWindow() {
+        addAll(List.of(
+                new Warning(testReport.getId(), "Before", 45.1, 25.1, 1000L),
+                new Warning(testReport.getId(), "Inside", 45.2, 25.2, 2000L),
+                new Warning(testReport.getId(), "At upper bound", 45.3, 25.3, 3000L),
+                new Warning(testReport.getId(), "Without timestamp", 45.4, 25.4, null)));
+
+        List<Warning> window = warningRepository.getAllOfReport(testReport.getId(), 2000L, 3000L);
+
+        assertEquals(List.of("Inside"), window.stream().map(Warning::getText).toList());
+        assertEquals(List.of("Inside", "At upper bound"),
+                warningRepository.getAllOfReport(testReport.getId(), 1500L, null).stream().map(Warning::getText).toList());
+        assertEquals(4, warningRepository.getAllOfReport(testReport.getId(), null, null).size());
+    }
+
+    @Test
+    public void testGetInBoxOfUser() {
+        User otherUser = new User("otheruser", "pass", "Other User");
+        userRepository.add(otherUser);
+        Report otherReport = new Report(otherUser.getId(), 45.0, 25.0, 46.0, 26.0, System.currentTimeMillis());
+        reportRepository.add(otherReport);
+        Warning inside = new Warning(testReport.getId(), "Inside", 45.65, 25.60, 1000L);
+        addAll(List.of(
+                inside,
+                new Warning(testReport.getId(), "Outside", 45.75, 25.60, 1001L),
+                new Warning(otherReport.getId(), "Other user", 45.65, 25.60, 1002L)));
+
+        List<Warning> warnings = warningRepository.getInBoxOfUser(testUser.getId(), 45.6, 25.55, 45.7, 25.65, 100);
+
+        assertEquals(List.of(inside.getId()), warnings.stream().map(Warning::getId).toList());
+        String geohash = jdbcTemplate.queryForObject("SELECT geohash FROM warnings WHERE id = ?", String.class, inside.getId());
+        assertEquals(Geohash.encode(45.65, 25.60, Geohash.STORED_PRECISION), geohash);
+    }
+
+    @Test
+    public void testForEach_streamsEveryWarning() {
+        List<Warning> added = addAll(List.of(
+                new Warning(testReport.getId(), "First", 45.1, 25.1, 1000L),
+                new Warning(testReport.getId(), "Second", 45.2, 25.2, 1001L)));
+
+        List<Warning> streamed = new ArrayList<>();
+        warningRepository.forEach(streamed::add);
+
+        assertEquals(added.stream().map(Warning::getId).sorted().toList(),
+                streamed.stream().map(Warning::getId).sorted().toList());
+        assertTrue(streamed.stream().anyMatch(w -> w.getText().equals("Second") && w.getLat() == 45.2));
+    }
+
+    @Test
+    public void testWarningsWithTheSameTextShareOneTypeAndString() {
+        addAll(List.of(
+                new Warning(testReport.getId(), "Lane departure", 45.1, 25.1, 1000L),
+                new Warning(testReport.getId(), "Lane departure", 45.2, 25.2, 1001L),
+                new Warning(testReport.getId(), "Police checkpoint", 45.3, 25.3, 1002L)));
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM warning_types", Integer.class));
+        // A fresh dictionary, as on another node, loads the codes registered by this one
+        WarningRepository otherNode = new WarningRepository(dataSource, idAllocator, new WarningTypeDictionary(dataSource, 10));
+        List<Warning> read = otherNode.getAllOfReport(testReport.getId());
+
+        assertEquals(List.of("Lane departure", "Lane departure", "Police checkpoint"), read.stream().map(Warning::getText).toList());
+        assertSame(read.get(0).getText(), read.get(1).getText());
+    }
+
+    @Test
+    public void testAddingAWarningDoesNotRegisterItsText() {
+        Warning warning = new Warning(testReport.getId(), "Never registered", 45.5, 25.5, 1000L);
+
+        assertThrows(RepositoryException.class, () -> warningRepository.add(warning));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM warning_types", Integer.class));
+    }
+
+    @Test
+    public void testTextsAreRefusedOnceTheDictionaryIsFull() {
+        List<String> texts = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            texts.add("Warning " + i);
+        }
+
+        assertEquals(List.of("Warning 11", "Warning 12"), typeDictionary.registerAll(texts));
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM warning_types", Integer.class));
+        // Known texts are still accepted, also by another node, which does not take codes of its own
+        WarningTypeDictionary otherNode = new WarningTypeDictionary(dataSource, 10);
+        assertEquals(List.of("Warning 13"), otherNode.registerAll(List.of("Warning 1", "Warning 13")));
+        assertEquals(typeDictionary.codeOf("Warning 1"), otherNode.codeOf("Warning 1"));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10),
+                jdbcTemplate.queryForList("SELECT code FROM warning_types ORDER BY code", Integer.class));
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.persistence;
+
+import org.example.domain.HeatmapTile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+
+import javax.sql.DataSource;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@ContextConfiguration(classes = {WarningTileRepository.class})
+@Sql(scripts = {"/schema.sql"})
+public class WarningTileRepositoryTest {
+
+    @Autowired
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    private WarningTileRepository tileRepository;
+
+    @BeforeEach
+    public void setup() {
+        tileRepository = new WarningTileRepository(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void testAddCountsCreatesAndIncrementsTiles() {
+        tileRepository.addCounts(List.of(new HeatmapTile(10, 584, 365, 3), new HeatmapTile(10, 585, 365, 1)));
+        tileRepository.addCounts(List.of(new HeatmapTile(10, 584, 365, 2), new HeatmapTile(3, 4, 2, 5)));
+
+        List<HeatmapTile> tiles = tileRepository.getTiles(10, 0, 1023, 0, 1023);
+        tiles.sort(Comparator.comparingInt(HeatmapTile::getX));
+
+        assertEquals(2, tiles.size());
+        assertEquals(584, tiles.get(0).getX());
+        assertEquals(5, tiles.get(0).getWarning_count());
+        assertEquals(1, tiles.get(1).getWarning_count());
+    }
+
+    @Test
+    public void testGetTilesOnlyReturnsTilesInsideTheRectangle() {
+        tileRepository.addCounts(List.of(
+                new HeatmapTile(10, 584, 365, 1),
+                new HeatmapTile(10, 590, 365, 1),
+                new HeatmapTile(10, 584, 370, 1),
+                new HeatmapTile(11, 584, 365, 1)));
+
+        List<HeatmapTile> tiles = tileRepository.getTiles(10, 580, 585, 360, 366);
+
+        assertEquals(1, tiles.size());
+        assertEquals(365, tiles.get(0).getY());
+        assertTrue(tileRepository.getTiles(12, 0, 4095, 0, 4095).isEmpty());
+    }
+}
@@ -1,6 +1,11 @@
 package org.example.rest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.example.business.HeatmapAggregator;
+import org.example.business.HotspotDetector;
+import org.example.business.NearestWarningIndex;
+import org.example.business.exception.ServiceUnavailableException;
 import org.example.domain.Report;
 import org.example.domain.User;
 import org.example.domain.Warning;
@@ -21,11 +26,16 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultMatcher;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -44,6 +54,13 @@ public class ReportControllerIntegrationTest {
     @Autowired
     private IReportRepository reportRepository;
 
+    @Autowired
+    private HeatmapAggregator heatmapAggregator;
+    @Autowired
+    private NearestWarningIndex nearestWarningIndex;
+    @Autowired
+    private HotspotDetector hotspotDetector;
+
     @Autowired
     private JwtService jwtService;
 
@@ -164,6 +181,150 @@ public class ReportControllerIntegrationTest {
         assertThat(reportsInDb).hasSize(1);
     }
 
+    @Test
+    void testCreate_warningInsertFails_thenReportIsRolledBack() throws Exception {
+
+        // The text passes validation but exceeds the VARCHAR(1000) column of warning_types, so registering it fails in the database
+        Warning validWarning = new Warning(null, "Valid warning", 33.2, 25.6, System.currentTimeMillis());
+        Warning tooLongWarning = new Warning(null, "x".repeat(1001), 33.3, 25.7, System.currentTimeMillis());
+        report.setWarnings(List.of(validWarning, tooLongWarning));
+
+        mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isInternalServerError());
+
+        // The report was inserted before the failing warning; the transaction must have undone it.
+        List<Report> reportsInDb = reportRepository.getAllOfUser(user.getId());
+
+        assertThat(reportsInDb).isEmpty();
+    }
+
+    @Test
+    void testCreateBatch_validReportsAreSaved_invalidOnesRejected() throws Exception {
+
+        Report first = new Report(user.getId(), 45.0, 25.0, 46.0, 26.0);
+        first.setWarnings(List.of(new Warning(null, "First trip warning", 33.2, 25.6, System.currentTimeMillis())));
+        Report invalid = new Report(user.getId(), 200.0, 25.0, 46.0, 26.0);
+        invalid.setWarnings(List.of(new Warning(null, "Invalid trip warning", 33.2, 25.6, System.currentTimeMillis())));
+        Report second = new Report(user.getId(), 44.0, 24.0, 45.0, 25.0);
+        second.setWarnings(List.of(
+                new Warning(null, "Second trip warning 1", 33.3, 25.7, System.currentTimeMillis()),
+                new Warning(null, "Second trip warning 2", 33.4, 25.8, System.currentTimeMillis())));
+
+        mockMvc.perform(post("/reports/batch")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(first, invalid, second))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].status").value("created"))
+                .andExpect(jsonPath("$[1].status").value("rejected"))
+                .andExpect(jsonPath("$[1].error", Matchers.containsString("Invalid lat/lng coordinates!")))
+                .andExpect(jsonPath("$[2].status").value("created"));
+
+        List<Report> reportsInDb = reportRepository.getAllOfUser(user.getId());
+
+        assertThat(reportsInDb).hasSize(2);
+        assertThat(reportsInDb).flatExtracting(Report::getWarnings).hasSize(3);
+    }
+
+    @Test
+    void testCreateBatch_Unauthorized_WhenNoJwtAttribute() throws Exception {
+        mockMvc.perform(post("/reports/batch"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testCreateStreaming_reportAndWarningsValid() throws Exception {
+
+        report.setWarnings(List.of(
+                new Warning(null, "Streamed warning 1", 33.2, 25.6, System.currentTimeMillis()),
+                new Warning(null, "Streamed warning 2", 33.3, 25.7, System.currentTimeMillis())));
+
+        mockMvc.perform(post("/reports/stream")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.start_lat").value("45.0"));
+
+        List<Report> reportsInDb = reportRepository.getAllOfUser(user.getId());
+
+        assertThat(reportsInDb).hasSize(1);
+        assertThat(reportsInDb.get(0).getWarnings()).hasSize(2);
+    }
+
+    @Test
+    void testCreateStreaming_warningIsInvalid_thenTransactionIsRolledBack() throws Exception {
+
+        report.setWarnings(List.of(
+                new Warning(null, "Valid warning", 33.2, 25.6, System.currentTimeMillis()),
+                new Warning(null, "", 200.0, 25.6, System.currentTimeMillis())));
+
+        mockMvc.perform(post("/reports/stream")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", Matchers.containsString("Invalid lat/lng coordinates!")));
+
+        // The upload is rejected while it is read, before anything is written
+        List<Report> reportsInDb = reportRepository.getAllOfUser(user.getId());
+
+        assertThat(reportsInDb).isEmpty();
+    }
+
+    @Test
+    void testCreate_gzipCompressedBody() throws Exception {
+
+        Warning validWarning = new Warning(null, "This warning is valid", 33.2, 25.6, System.currentTimeMillis());
+        report.setWarnings(List.of(validWarning));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(objectMapper.writeValueAsBytes(report));
+        }
+
+        mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .header("Content-Encoding", "gzip")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(compressed.toByteArray()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.start_lat").value("45.0"));
+
+        assertThat(reportRepository.getAllOfUser(user.getId())).hasSize(1);
+    }
+
+    @Test
+    void testCreateAndGetAll_cborWireFormat() throws Exception {
+
+        CBORMapper cborMapper = new CBORMapper();
+        Warning validWarning = new Warning(null, "This warning is valid", 33.2, 25.6, System.currentTimeMillis());
+        report.setWarnings(List.of(validWarning));
+
+        mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(report)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR));
+
+        byte[] body = mockMvc.perform(post("/reports/getAll")
+                        .header("Authorization", "Bearer " + jwt)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Report[] reports = cborMapper.readValue(body, Report[].class);
+        assertThat(reports).hasSize(1);
+        assertThat(reports[0].getWarnings()).extracting(Warning::getText).containsExactly("This warning is valid");
+    }
+
     @Test
     void testCreate_Unauthorized_WhenNoJwtAttribute() throws Exception {
         mockMvc.perform(post("/reports/create"))
@@ -207,6 +368,93 @@ public class ReportControllerIntegrationTest {
     }
 
 
+    @Test
+    void testGetAll_notModified_untilAReportIsAdded() throws Exception {
+
+        Warning validWarning = new Warning(null, "This warning is valid", 33.2, 25.6, System.currentTimeMillis());
+        report.setWarnings(List.of(validWarning));
+
+        String etag = mockMvc.perform(post("/reports/getAll")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(post("/reports/getAll")
+                        .header("Authorization", "Bearer " + jwt)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/reports/getAll")
+                        .header("Authorization", "Bearer " + jwt)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", Matchers.not(etag)))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void testGetAll_timeWindow() throws Exception {
+
+        Report older = new Report(user.getId(), 45.0, 25.0, 46.0, 26.0, 1000L);
+        Report newer = new Report(user.getId(), 45.5, 25.5, 46.5, 26.5, 5000L);
+        reportRepository.add(older);
+        reportRepository.add(newer);
+
+        mockMvc.perform(post("/reports/getAll")
+                        .param("from", "2000")
+                        .param("to", "6000")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(newer.getId()));
+
+        mockMvc.perform(post("/reports/getAll")
+                        .param("from", "6000")
+                        .param("to", "2000")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetAllStream_returnsSameReportsAsGetAll() throws Exception {
+
+        for (int i = 0; i < 3; i++) {
+            Report r = new Report(user.getId(), 45.0 + i, 25.0, 46.0, 26.0, 1000L + i);
+            r.setWarnings(List.of(
+                    new Warning(null, "Warning " + i + "a", 33.2, 25.6, 1000L + i),
+                    new Warning(null, "Warning " + i + "b", 33.3, 25.7, 1000L + i)));
+            mockMvc.perform(post("/reports/create")
+                            .header("Authorization", "Bearer " + jwt)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(r)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(post("/reports/getAll/stream")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].created_at").value(1002))
+                .andExpect(jsonPath("$[0].warnings.length()").value(2))
+                .andExpect(jsonPath("$[2].created_at").value(1000));
+    }
+
+    @Test
+    void testGetAllStream_Unauthorized_WhenNoJwtAttribute() throws Exception {
+        mockMvc.perform(post("/reports/getAll/stream"))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     void testGetAll_Unauthorized_WhenNoJwtAttribute() throws Exception {
         mockMvc.perform(post("/reports/getAll"))
@@ -223,4 +471,289 @@ public class ReportControllerIntegrationTest {
                 .andExpect(jsonPath("$.message", Matchers.containsString("Invalid or expired token")));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetPage_followsCursorToLastPage() throws Exception {
+
+        for (int i = 0; i < 3; i++) {
+            Report r = new Report(user.getId(), 45.0 + i, 25.0, 46.0, 26.0, 1000L + i);
+            r.setWarnings(List.of(new Warning(null, "Warning " + i, 33.2, 25.6, 1000L + i)));
+            mockMvc.perform(post("/reports/create")
+                            .header("Authorization", "Bearer " + jwt)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(r)))
+                    .andExpect(status().isCreated());
+        }
+
+        String firstPage = mockMvc.perform(get("/reports/page")
+                        .param("limit", "2")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reports.length()").value(2))
+                .andExpect(jsonPath("$.reports[0].created_at").value(1002))
+                .andExpect(jsonPath("$.reports[0].warnings[0].text").value("Warning 2"))
+                .andExpect(jsonPath("$.next_cursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("next_cursor").asText();
+
+        mockMvc.perform(get("/reports/page")
+                        .param("limit", "2")
+                        .param("cursor", cursor)
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reports.length()").value(1))
+                .andExpect(jsonPath("$.reports[0].created_at").value(1000))
+                .andExpect(jsonPath("$.next_cursor").value(Matchers.nullValue()));
+    }
+
+    @Test
+    void testGetPage_limitTooLarge() throws Exception {
+        mockMvc.perform(get("/reports/page")
+                        .param("limit", "1000")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSummariesAndWarningsOfReport() throws Exception {
+
+        report.setWarnings(List.of(
+                new Warning(null, "First warning", 33.2, 25.6, System.currentTimeMillis()),
+                new Warning(null, "Second warning", 33.3, 25.7, System.currentTimeMillis())));
+        String created = mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long reportId = objectMapper.readTree(created).get("id").asLong();
+
+        mockMvc.perform(get("/reports/summaries")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(reportId))
+                .andExpect(jsonPath("$[0].warning_count").value(2))
+                .andExpect(jsonPath("$[0].warnings").doesNotExist());
+
+        mockMvc.perform(get("/reports/" + reportId + "/warnings")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].text").value("First warning"));
+    }
+
+    @Test
+    void testStats_areRolledUpPerDay_acrossCreateAndBatch() throws Exception {
+
+        // 2024-03-01 08:00 and 17:00 UTC, then 2024-03-02 09:00 UTC
+        Report morning = new Report(user.getId(), 45.0, 25.0, 46.0, 26.0, 1709280000000L);
+        morning.setWarnings(List.of(new Warning(null, "Morning warning", 45.1, 25.1, 1709280000000L)));
+        mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(morning)))
+                .andExpect(status().isCreated());
+
+        Report evening = new Report(user.getId(), 46.0, 26.0, 45.0, 25.0, 1709312400000L);
+        evening.setWarnings(List.of(
+                new Warning(null, "Evening warning 1", 45.2, 25.2, 1709312400000L),
+                new Warning(null, "Evening warning 2", 45.3, 25.3, 1709312400000L)));
+        Report nextDay = new Report(user.getId(), 45.0, 25.0, 46.0, 26.0, 1709370000000L);
+        nextDay.setWarnings(List.of(new Warning(null, "Next day warning", 45.4, 25.4, 1709370000000L)));
+        mockMvc.perform(post("/reports/batch")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(evening, nextDay))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/reports/stats")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].day").value("2024-03-01"))
+                .andExpect(jsonPath("$[0].trip_count").value(2))
+                .andExpect(jsonPath("$[0].warning_count").value(3))
+                .andExpect(jsonPath("$[0].first_at").value(1709280000000L))
+                .andExpect(jsonPath("$[0].last_at").value(1709312400000L))
+                .andExpect(jsonPath("$[1].day").value("2024-03-02"))
+                .andExpect(jsonPath("$[1].trip_count").value(1));
+
+        mockMvc.perform(get("/reports/stats")
+                        .param("from", "2024-03-02")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].warning_count").value(1));
+
+        mockMvc.perform(get("/reports/stats")
+                        .param("from", "yesterday")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testWarningsInBox() throws Exception {
+
+        report.setWarnings(List.of(
+                new Warning(null, "Inside the viewport", 45.5, 25.5, System.currentTimeMillis()),
+                new Warning(null, "Outside the viewport", 40.0, 20.0, System.currentTimeMillis())));
+        mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/reports/warnings/box")
+                        .param("minLat", "45.0").param("minLng", "25.0")
+                        .param("maxLat", "46.0").param("maxLng", "26.0")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].text").value("Inside the viewport"));
+
+        mockMvc.perform(get("/reports/warnings/box")
+                        .param("minLat", "46.0").param("minLng", "25.0")
+                        .param("maxLat", "45.0").param("maxLng", "26.0")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testHeatmap_countsWarningsOfCreatedReports() throws Exception {
+
+        report.setWarnings(List.of(
+                new Warning(null, "Lane departure", 45.65, 25.60, System.currentTimeMillis()),
+                new Warning(null, "Lane departure", 45.65, 25.60, System.currentTimeMillis())));
+        mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isCreated());
+        heatmapAggregator.flush();
+
+        mockMvc.perform(get("/reports/heatmap")
+                        .param("zoom", "10")
+                        .param("minLat", "45.0").param("minLng", "25.0")
+                        .param("maxLat", "46.0").param("maxLng", "26.0")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].x").value(584))
+                .andExpect(jsonPath("$[0].y").value(365))
+                .andExpect(jsonPath("$[0].warning_count").value(2));
+
+        mockMvc.perform(get("/reports/heatmap")
+                        .param("zoom", "15")
+                        .param("minLat", "-80.0").param("minLng", "-170.0")
+                        .param("maxLat", "80.0").param("maxLng", "170.0")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetNearestWarnings_returnsNearestFirst() throws Exception {
+        for (int i = 0; i < 500 && !nearestWarningIndex.isLoaded(); i++) {
+            Thread.sleep(10);
+        }
+        report.setWarnings(List.of(
+                new Warning(null, "Far away", 46.0, 26.0, System.currentTimeMillis()),
+                new Warning(null, "Close by", 45.0001, 25.0, System.currentTimeMillis()),
+                new Warning(null, "Nearby", 45.01, 25.0, System.currentTimeMillis())));
+        mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/reports/warnings/nearest")
+                        .param("lat", "45.0").param("lng", "25.0").param("k", "2")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].text").value("Close by"))
+                .andExpect(jsonPath("$[0].distance_m").value(Matchers.closeTo(11.1, 0.1)))
+                .andExpect(jsonPath("$[0].report_id").doesNotExist())
+                .andExpect(jsonPath("$[1].text").value("Nearby"));
+
+        mockMvc.perform(get("/reports/warnings/nearest")
+                        .param("lat", "45.0").param("lng", "25.0").param("k", "1000")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetHotspots_returnsClusteredWarnings() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            try {
+                hotspotDetector.getHotspots();
+                break;
+            } catch (ServiceUnavailableException stillLoading) {
+                Thread.sleep(10);
+            }
+        }
+        List<Warning> warnings = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            warnings.add(new Warning(null, "Lane departure", 45.65, 25.60 + i * 1e-5, System.currentTimeMillis()));
+        }
+        report.setWarnings(warnings);
+        mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isCreated());
+        hotspotDetector.snapshot();
+
+        mockMvc.perform(get("/reports/hotspots")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].warning_count").value(25))
+                .andExpect(jsonPath("$[0].lat").value(Matchers.closeTo(45.65, 1e-6)));
+    }
+
+    @Test
+    void testGetOne_servesLocationReturnedByCreate() throws Exception {
+
+        Warning validWarning = new Warning(null, "This warning is valid", 33.2, 25.6, System.currentTimeMillis());
+        report.setWarnings(List.of(validWarning));
+
+        String location = mockMvc.perform(post("/reports/create")
+                        .header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(report)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+
+        mockMvc.perform(get(location)
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.start_lat").value(45.0))
+                .andExpect(jsonPath("$.warnings.length()").value(1))
+                .andExpect(jsonPath("$.warnings[0].text").value("This warning is valid"));
+    }
+
+    @Test
+    void testGetOne_NotFound_WhenReportBelongsToAnotherUser() throws Exception {
+
+        User other = userRepository.add(new User("otheruser", BCrypt.hashpw("otherpass", BCrypt.gensalt()), "Other User")).orElseThrow();
+        Report othersReport = new Report(other.getId(), 45.0, 25.0, 46.0, 26.0, System.currentTimeMillis());
+        reportRepository.add(othersReport);
+
+        mockMvc.perform(get("/reports/" + othersReport.getId())
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testWarningsOfReport_NotFound_WhenReportBelongsToAnotherUser() throws Exception {
+
+        User other = userRepository.add(new User("otheruser", BCrypt.hashpw("otherpass", BCrypt.gensalt()), "Other User")).orElseThrow();
+        Report othersReport = new Report(other.getId(), 45.0, 25.0, 46.0, 26.0, System.currentTimeMillis());
+        reportRepository.add(othersReport);
+
+        mockMvc.perform(get("/reports/" + othersReport.getId() + "/warnings")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isNotFound());
+    }
+}
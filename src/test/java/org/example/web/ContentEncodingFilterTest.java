@@ -0,0 +1,219 @@
+package org.example.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.business.exception.PayloadTooLargeException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ContentEncodingFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ContentEncodingFilter filter = new ContentEncodingFilter(meterRegistry, 100, 5, 10_000);
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Servlet answering with the given body, written through the output stream.
+     */
+    private static MockFilterChain respondingWith(String body) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.setContentType("application/json");
+                response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    @Test
+    void gzipRequestBody_isDecompressedForTheApplication() throws Exception {
+        String json = "{\"text\":\"Lane departure\"}".repeat(20);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/create");
+        request.addHeader("Content-Encoding", "gzip");
+        request.setContent(gzip(json));
+        AtomicReference<String> received = new AtomicReference<>();
+        AtomicReference<String> encodingSeen = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                encodingSeen.set(req.getHeader("Content-Encoding"));
+                received.set(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }));
+
+        assertThat(received.get()).isEqualTo(json);
+        assertThat(encodingSeen.get()).isNull();
+        assertThat(meterRegistry.summary("http.compression.ratio", "direction", "request").mean()).isGreaterThan(1.0);
+    }
+
+    @Test
+    void gzipRequestBody_exceedingDecompressedLimit_isRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/create");
+        request.addHeader("Content-Encoding", "gzip");
+        request.setContent(gzip("x".repeat(20_000)));
+
+        assertThatThrownBy(() -> filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.getInputStream().readAllBytes();
+            }
+        }))).isInstanceOf(PayloadTooLargeException.class);
+    }
+
+    @Test
+    void unsupportedRequestEncoding_isRejectedWith415() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/create");
+        request.addHeader("Content-Encoding", "br");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, respondingWith("{}"));
+
+        assertThat(response.getStatus()).isEqualTo(415);
+    }
+
+    @Test
+    void largeResponse_isCompressed_whenClientAcceptsGzip() throws Exception {
+        String json = "[" + "{\"text\":\"Lane departure\",\"lat\":45.1,\"lng\":25.1},".repeat(50) + "{}]";
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/getAll");
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, respondingWith(json));
+
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(response.getHeader("Vary")).isEqualTo("Accept-Encoding");
+        assertThat(response.getContentAsByteArray().length).isLessThan(json.length());
+        assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(json);
+        assertThat(meterRegistry.summary("http.compression.ratio", "direction", "response").count()).isEqualTo(1);
+    }
+
+    @Test
+    void smallResponse_isNotCompressed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/getAll");
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, respondingWith("[]"));
+
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+        assertThat(response.getContentLength()).isEqualTo(2);
+    }
+
+    @Test
+    void response_isNotCompressed_whenClientExcludesGzip() throws Exception {
+        String json = "{\"text\":\"Lane departure\"}".repeat(20);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/getAll");
+        request.addHeader("Accept-Encoding", "gzip;q=0, identity");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, respondingWith(json));
+
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(json);
+    }
+
+    @Test
+    void reset_discardsTheBufferedBody_beforeCompressionStarts() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/getAll/stream");
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.getOutputStream().write("[{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+                assertThat(resp.isCommitted()).isFalse();
+                resp.reset();
+                resp.getOutputStream().write("{\"status\":500}".getBytes(StandardCharsets.UTF_8));
+            }
+        }));
+
+        assertThat(response.getContentAsString()).isEqualTo("{\"status\":500}");
+    }
+
+    @Test
+    void reset_isRefused_onceCompressionStarted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/getAll/stream");
+        request.addHeader("Accept-Encoding", "gzip");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.getOutputStream().write("{\"text\":\"Lane departure\"}".repeat(20).getBytes(StandardCharsets.UTF_8));
+                assertThat(resp.isCommitted()).isTrue();
+                assertThatThrownBy(resp::reset).isInstanceOf(IllegalStateException.class);
+            }
+        }));
+    }
+
+    @Test
+    void failureAfterCompressionStarted_leavesTheBodyWithoutGzipTrailer() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/getAll/stream");
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseAbortedException failure = new ResponseAbortedException("Error while streaming reports!", null);
+
+        assertThatThrownBy(() -> filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.getOutputStream().write("[{\"text\":\"Lane departure\"},".repeat(20).getBytes(StandardCharsets.UTF_8));
+                resp.flushBuffer();
+                assertThat(resp.isCommitted()).isTrue();
+                throw failure;
+            }
+        }))).isSameAs(failure);
+
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(response.getContentAsByteArray()).isNotEmpty();
+        assertThatThrownBy(() -> gunzip(response.getContentAsByteArray())).isInstanceOf(EOFException.class);
+        assertThat(meterRegistry.summary("http.compression.ratio", "direction", "response").count()).isZero();
+    }
+
+    @Test
+    void failureBeforeCompressionStarted_dropsTheBufferedBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reports/getAll");
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.getOutputStream().write("[{}".getBytes(StandardCharsets.UTF_8));
+                throw new IllegalStateException("Failed");
+            }
+        }))).isInstanceOf(IllegalStateException.class);
+
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+}
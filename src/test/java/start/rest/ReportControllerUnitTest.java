@@ -1,25 +1,35 @@
 package start.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import org.example.business.ReportService;
+import org.example.business.exception.DataAccessException;
 import org.example.business.exception.ValidationException;
 import org.example.domain.Report;
 import org.example.rest.ReportController;
+import org.example.web.ResponseAbortedException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 import java.net.URI;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,9 +41,53 @@ public class ReportControllerUnitTest {
     @Mock
     private HttpServletRequest mockRequest;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ReportController reportController;
 
+    /**
+     * Makes streamAll pass the given number of reports to its consumer, then fail.
+     */
+    private void stubStreamAllFailingAfter(int reports) {
+        doAnswer(invocation -> {
+            Consumer<Report> consumer = invocation.getArgument(1);
+            for (int i = 0; i < reports; i++) {
+                Report report = new Report(1L, 45.0, 25.0, 46.0, 26.0, 1000L + i);
+                report.setId((long) i);
+                consumer.accept(report);
+            }
+            throw new DataAccessException("Error while fetching reports!", new RuntimeException("connection lost"));
+        }).when(mockReportService).streamAll(eq(1L), any());
+    }
+
+    @Test
+    void getAllStream_shouldResetResponse_whenServiceFailsBeforeAnythingWasSent() {
+        // --- ARRANGE ---
+        when(mockRequest.getAttribute("user_id")).thenReturn(1L);
+        stubStreamAllFailingAfter(1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // --- ACT & ASSERT ---
+        assertThrows(DataAccessException.class, () -> reportController.get_all_stream(mockRequest, response));
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void getAllStream_shouldAbortResponse_withoutClosingTheArray_whenServiceFailsMidway() throws Exception {
+        // --- ARRANGE ---
+        when(mockRequest.getAttribute("user_id")).thenReturn(1L);
+        stubStreamAllFailingAfter(500); // More than the generator and response buffer, so the response is committed
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // --- ACT & ASSERT ---
+        assertThrows(ResponseAbortedException.class, () -> reportController.get_all_stream(mockRequest, response));
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(response.getContentAsString()).startsWith("[").doesNotEndWith("]");
+    }
+
     @Test
     void create_shouldReturnCreated_whenServiceSucceeds() {
         // --- ARRANGE ---
@@ -76,10 +130,27 @@ public class ReportControllerUnitTest {
         when(mockReportService.getAll(anyLong())).thenReturn(List.of(new Report(), new Report()));
 
         // --- ACT ---
-        ResponseEntity<?> response = reportController.get_all(mockRequest);
+        ResponseEntity<?> response = reportController.get_all(null, null, mockRequest);
 
         // --- ASSERT ---
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat((List<?>) response.getBody()).hasSize(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAll_shouldReturnNotModified_whenETagMatches() {
+        // --- ARRANGE ---
+        when(mockRequest.getAttribute("user_id")).thenReturn(1L);
+        when(mockRequest.getHeader("If-None-Match")).thenReturn("W/\"2-7\"");
+        when(mockReportService.getVersion(1L)).thenReturn("2-7");
+
+        // --- ACT ---
+        ResponseEntity<?> response = reportController.get_all(null, null, mockRequest);
+
+        // --- ASSERT ---
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"2-7\"");
+        assertThat(response.getBody()).isNull();
+        verify(mockReportService, never()).getAll(anyLong());
+    }
+}
@@ -1,11 +1,16 @@
 -- Drop tables in reverse order of dependency to avoid foreign key errors
+DROP TABLE IF EXISTS user_daily_stats;
+DROP TABLE IF EXISTS hotspot_cells;
+DROP TABLE IF EXISTS warning_tiles;
 DROP TABLE IF EXISTS warnings;
+DROP TABLE IF EXISTS warning_types;
 DROP TABLE IF EXISTS reports;
 DROP TABLE IF EXISTS Users;
+DROP TABLE IF EXISTS id_sequences;
 
 -- Create Users table
 CREATE TABLE Users (
-                       id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                       id BIGINT PRIMARY KEY,
                        username VARCHAR(255) NOT NULL UNIQUE,
                        password VARCHAR(255) NOT NULL,
                        name VARCHAR(255)
@@ -13,7 +18,7 @@ CREATE TABLE Users (
 
 -- Create reports table
 CREATE TABLE reports (
-                         id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                         id BIGINT PRIMARY KEY,
                          start_lat FLOAT NOT NULL,
                          start_lng FLOAT NOT NULL,
                          end_lat FLOAT NOT NULL,
@@ -23,13 +28,72 @@ CREATE TABLE reports (
                          FOREIGN KEY (user_id) REFERENCES Users(id)
 );
 
--- Create warnings table
+-- Distinct warning texts, numbered by WarningTypeDictionary; codes are never changed or reused
+CREATE TABLE warning_types (
+                               code INT PRIMARY KEY,
+                               text VARCHAR(1000) NOT NULL UNIQUE
+);
+
+-- Create warnings table; the text of a warning is stored as the code of its warning type.
+-- Existing rows are migrated by filling warning_types with their distinct texts, setting type_code from it
+-- and dropping the text column
 CREATE TABLE warnings (
-                          id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                          id BIGINT PRIMARY KEY,
                           report_id BIGINT NOT NULL,
-                          text VARCHAR(1000) NOT NULL,
+                          type_code INT NOT NULL,
                           lat FLOAT NOT NULL,
                           lng FLOAT NOT NULL,
+                          geohash VARCHAR(12),
                           created_at BIGINT,
-                          FOREIGN KEY (report_id) REFERENCES reports(id) ON DELETE CASCADE
-);
\ No newline at end of file
+                          FOREIGN KEY (report_id) REFERENCES reports(id) ON DELETE CASCADE,
+                          FOREIGN KEY (type_code) REFERENCES warning_types(code)
+);
+
+-- Keyset pagination and time windows of a user's reports (newest first);
+-- loading warnings by report, optionally limited to a time window
+CREATE INDEX idx_reports_user_created ON reports (user_id, created_at DESC, id DESC);
+CREATE INDEX idx_warnings_report_created ON warnings (report_id, created_at);
+-- Bounding-box queries on warnings: each geohash cell of the box is an index range (prefix match);
+-- geohash is set by WarningRepository on insert, rows written before it existed must be backfilled
+CREATE INDEX idx_warnings_geohash ON warnings (geohash);
+
+-- Warning counts per Web Mercator tile and zoom level, maintained by HeatmapAggregator
+CREATE TABLE warning_tiles (
+                               zoom INT NOT NULL,
+                               x INT NOT NULL,
+                               y INT NOT NULL,
+                               warning_count BIGINT NOT NULL,
+                               PRIMARY KEY (zoom, x, y)
+);
+
+-- Warning counts and coordinate sums per hotspot grid cell, maintained by HotspotDetector.
+-- Cell indexes depend on reports.hotspots.eps-meters: empty the table when changing it, it is then refilled from warnings
+CREATE TABLE hotspot_cells (
+                               row_index INT NOT NULL,
+                               column_index INT NOT NULL,
+                               warning_count BIGINT NOT NULL,
+                               lat_sum FLOAT NOT NULL,
+                               lng_sum FLOAT NOT NULL,
+                               PRIMARY KEY (row_index, column_index)
+);
+
+-- Trips and warnings per user and UTC day, updated in the transaction writing each report.
+-- Rows are only added by report writes: days of reports written before this table existed must be backfilled
+CREATE TABLE user_daily_stats (
+                                  user_id BIGINT NOT NULL,
+                                  stats_date DATE NOT NULL,
+                                  trip_count BIGINT NOT NULL,
+                                  warning_count BIGINT NOT NULL,
+                                  first_at BIGINT NOT NULL,
+                                  last_at BIGINT NOT NULL,
+                                  PRIMARY KEY (user_id, stats_date),
+                                  FOREIGN KEY (user_id) REFERENCES Users(id)
+);
+
+-- Hi-lo ID blocks handed out by IdAllocator; one row per table, created on first use.
+-- IDs of users, reports and warnings are assigned by the application, so on SQL Server
+-- these id columns must be plain BIGINT PRIMARY KEY rather than IDENTITY.
+CREATE TABLE id_sequences (
+                              name VARCHAR(64) PRIMARY KEY,
+                              next_val BIGINT NOT NULL
+);
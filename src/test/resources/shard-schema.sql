@@ -0,0 +1,29 @@
+-- Tables of a shard database (see Shard): the reports and warnings of the users assigned to it.
+-- Users and warning_types live in the main database, so their foreign keys are left out
+DROP TABLE IF EXISTS warnings;
+DROP TABLE IF EXISTS reports;
+
+CREATE TABLE reports (
+                         id BIGINT PRIMARY KEY,
+                         start_lat FLOAT NOT NULL,
+                         start_lng FLOAT NOT NULL,
+                         end_lat FLOAT NOT NULL,
+                         end_lng FLOAT NOT NULL,
+                         created_at BIGINT,
+                         user_id BIGINT NOT NULL
+);
+
+CREATE TABLE warnings (
+                          id BIGINT PRIMARY KEY,
+                          report_id BIGINT NOT NULL,
+                          type_code INT NOT NULL,
+                          lat FLOAT NOT NULL,
+                          lng FLOAT NOT NULL,
+                          geohash VARCHAR(12),
+                          created_at BIGINT,
+                          FOREIGN KEY (report_id) REFERENCES reports(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_reports_user_created ON reports (user_id, created_at DESC, id DESC);
+CREATE INDEX idx_warnings_report_created ON warnings (report_id, created_at);
+CREATE INDEX idx_warnings_geohash ON warnings (geohash);